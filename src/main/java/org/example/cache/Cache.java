@@ -0,0 +1,31 @@
+package org.example.cache;
+
+import java.sql.SQLException;
+
+/**
+ * A bounded in-process cache in front of the database.
+ * Implementations must be thread-safe; every controller creates its own services,
+ * so the caches are shared through CacheRegistry.
+ */
+public interface Cache<K, V> {
+
+    /**
+     * Returns the cached value, or loads and caches it on a miss (read-through).
+     * A null result from the loader is cached too, for a shorter time, so repeated
+     * lookups of an unknown key do not reach the database.
+     * @param key The key to look up.
+     * @param loader Loads the value on a miss.
+     * @return The value, or null if the key does not exist.
+     * @throws SQLException if the loader fails; nothing is cached in that case.
+     */
+    V get(K key, CacheLoader<? super K, ? extends V> loader) throws SQLException;
+
+    /**
+     * Drops one key, whether it holds a value or a cached miss. Call it after every write.
+     */
+    void invalidate(K key);
+
+    void invalidateAll();
+
+    CacheStats getStats();
+}
@@ -0,0 +1,15 @@
+package org.example.cache;
+
+import lombok.Data;
+
+/**
+ * Holds the settings of the entity caches created by CacheRegistry.
+ * All durations are in milliseconds.
+ */
+@Data
+public class CacheConfig {
+    private int maximumSize = 10_000;
+    private long ttlMs = 300_000;
+    // Unknown IDs are remembered only briefly, so a record created elsewhere shows up quickly.
+    private long negativeTtlMs = 30_000;
+}
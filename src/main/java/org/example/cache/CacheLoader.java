@@ -0,0 +1,17 @@
+package org.example.cache;
+
+import java.sql.SQLException;
+
+/**
+ * Loads a value on a cache miss, usually with a DAO findById call.
+ */
+@FunctionalInterface
+public interface CacheLoader<K, V> {
+
+    /**
+     * @param key The key that was not in the cache.
+     * @return The value, or null if nothing exists for the key.
+     * @throws SQLException if a database error occurs.
+     */
+    V load(K key) throws SQLException;
+}
@@ -0,0 +1,49 @@
+package org.example.cache;
+
+import org.example.entity.Book;
+import org.example.entity.User;
+
+/**
+ * Holds the shared entity caches. Services are created per controller, so the caches
+ * must live here for all of them to see the same entries and invalidations.
+ * Entities, not DTOs, are cached: services map them to a fresh DTO on every read,
+ * so callers can never modify a cached object.
+ */
+public final class CacheRegistry {
+
+    private static volatile CacheConfig config = new CacheConfig();
+    private static volatile Cache<String, Book> bookCache;
+    private static volatile Cache<String, User> userCache;
+
+    private CacheRegistry() {
+    }
+
+    /**
+     * Replaces the settings used for caches that have not been created yet.
+     */
+    public static void configure(CacheConfig newConfig) {
+        config = newConfig;
+    }
+
+    public static Cache<String, Book> getBookCache() {
+        if (bookCache == null) {
+            synchronized (CacheRegistry.class) {
+                if (bookCache == null) {
+                    bookCache = new TinyLfuCache<>(config);
+                }
+            }
+        }
+        return bookCache;
+    }
+
+    public static Cache<String, User> getUserCache() {
+        if (userCache == null) {
+            synchronized (CacheRegistry.class) {
+                if (userCache == null) {
+                    userCache = new TinyLfuCache<>(config);
+                }
+            }
+        }
+        return userCache;
+    }
+}
@@ -0,0 +1,29 @@
+package org.example.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * A point-in-time snapshot of a cache's counters.
+ */
+@Data
+@AllArgsConstructor
+public class CacheStats {
+    private long hits;
+    private long negativeHits; // Lookups answered by a cached "does not exist".
+    private long misses;
+    private long evictions;    // Entries dropped or refused for lack of space; expiry is not counted.
+    private int size;
+    private int maximumSize;
+
+    public double getHitRate() {
+        long lookups = hits + negativeHits + misses;
+        return lookups == 0 ? 0.0 : (double) (hits + negativeHits) / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("size=%d/%d hits=%d negativeHits=%d misses=%d evictions=%d hitRate=%.1f%%",
+                size, maximumSize, hits, negativeHits, misses, evictions, getHitRate() * 100);
+    }
+}
@@ -0,0 +1,129 @@
+package org.example.cache;
+
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A size-bounded cache with LRU ordering and TinyLFU admission.
+ * Every lookup is recorded in a FrequencySketch. When the cache is full, a new entry only
+ * replaces the least recently used one if it has been requested more often recently,
+ * so a burst of one-off lookups (e.g. a report walking the catalog) cannot flush the hot titles.
+ * Entries expire after a fixed time to live; cached misses use a shorter one.
+ * All state is guarded by the cache's monitor, and loaders run outside of it.
+ */
+public class TinyLfuCache<K, V> implements Cache<K, V> {
+
+    private static final class Entry<V> {
+        final V value; // null marks a cached miss
+        final long expiresAtNanos;
+
+        Entry(V value, long expiresAtNanos) {
+            this.value = value;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+
+    private final int maximumSize;
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+    private final LinkedHashMap<K, Entry<V>> entries;
+    private final FrequencySketch sketch;
+
+    // Bumped on every invalidation, so a load that raced with a write is not cached.
+    private long generation;
+
+    private long hits;
+    private long negativeHits;
+    private long misses;
+    private long evictions;
+
+    public TinyLfuCache(int maximumSize, long ttlMs, long negativeTtlMs) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize must be positive");
+        }
+        this.maximumSize = maximumSize;
+        this.ttlNanos = ttlMs * 1_000_000L;
+        this.negativeTtlNanos = negativeTtlMs * 1_000_000L;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+        this.sketch = new FrequencySketch(maximumSize);
+    }
+
+    public TinyLfuCache(CacheConfig config) {
+        this(config.getMaximumSize(), config.getTtlMs(), config.getNegativeTtlMs());
+    }
+
+    @Override
+    public V get(K key, CacheLoader<? super K, ? extends V> loader) throws SQLException {
+        long loadGeneration;
+        synchronized (this) {
+            sketch.increment(key);
+            Entry<V> entry = entries.get(key);
+            if (entry != null) {
+                if (entry.expiresAtNanos - System.nanoTime() > 0) {
+                    if (entry.value == null) {
+                        negativeHits++;
+                    } else {
+                        hits++;
+                    }
+                    return entry.value;
+                }
+                entries.remove(key);
+            }
+            misses++;
+            loadGeneration = generation;
+        }
+
+        V value = loader.load(key);
+
+        synchronized (this) {
+            if (generation == loadGeneration) {
+                admit(key, value);
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public synchronized void invalidate(K key) {
+        generation++;
+        entries.remove(key);
+    }
+
+    @Override
+    public synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+    }
+
+    @Override
+    public synchronized CacheStats getStats() {
+        return new CacheStats(hits, negativeHits, misses, evictions, entries.size(), maximumSize);
+    }
+
+    /**
+     * Inserts a freshly loaded value, evicting the LRU entry or refusing the newcomer when full.
+     */
+    private void admit(K key, V value) {
+        long now = System.nanoTime();
+        Entry<V> entry = new Entry<>(value, now + (value == null ? negativeTtlNanos : ttlNanos));
+        if (entries.containsKey(key) || entries.size() < maximumSize) {
+            entries.put(key, entry);
+            return;
+        }
+
+        Iterator<Map.Entry<K, Entry<V>>> lru = entries.entrySet().iterator();
+        Map.Entry<K, Entry<V>> victim = lru.next();
+        boolean expired = victim.getValue().expiresAtNanos - now <= 0;
+        if (!expired && sketch.frequency(key) <= sketch.frequency(victim.getKey())) {
+            evictions++; // The newcomer is colder than the LRU entry, so it is not cached.
+            return;
+        }
+        lru.remove();
+        if (!expired) {
+            evictions++;
+        }
+        entries.put(key, entry);
+    }
+}
@@ -1,23 +1,27 @@
 package org.example.controller;
 
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.control.Alert;
+import javafx.scene.control.Button;
 import javafx.scene.control.CheckBox;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.TextField;
 import javafx.scene.control.cell.PropertyValueFactory;
+import org.example.dao.BookSort;
+import org.example.dao.Page;
+import org.example.dao.PageKey;
 import org.example.dto.BookDTO;
+import org.example.dto.ChangeDTO;
 import org.example.service.BookService;
+import org.example.service.DataVersions;
 import org.example.service.impl.BookServiceImpl;
 
 import java.sql.SQLException;
 import java.util.List;
 
-public class BookFormController {
+public class BookFormController implements RefreshableView {
 
     @FXML private TextField txtBookId;
     @FXML private TextField txtIsbn;
@@ -26,6 +30,9 @@ public class BookFormController {
     @FXML private TextField txtGenre;
     @FXML private CheckBox chkAvailability;
     @FXML private TextField txtSearch;
+    @FXML private Button btnAdd;
+    @FXML private Button btnUpdate;
+    @FXML private Button btnDelete;
     @FXML private TableView<BookDTO> tblBooks;
     @FXML private TableColumn<BookDTO, String> colBookId;
     @FXML private TableColumn<BookDTO, String> colTitle;
@@ -33,7 +40,17 @@ public class BookFormController {
     @FXML private TableColumn<BookDTO, Boolean> colAvailable;
 
     private final BookService bookService = new BookServiceImpl();
-    private ObservableList<BookDTO> bookList;
+
+    // The table is filled a page at a time; only the pages near the visible rows are kept.
+    private static final int PAGE_SIZE = 100;
+    private static final int MAX_CACHED_PAGES = 20;
+    private PagedTableSource<BookDTO> books;
+    private PagedTableSource.Query<BookDTO, BookSort> allBooks;
+    // Book writes made from other screens (e.g. a loan changing availability) since the table was loaded.
+    private final ChangeWatch changes = ChangeWatch.of(DataVersions.Table.BOOKS);
+
+    // Rows shown from the typo-tolerant search when the exact search finds nothing.
+    private static final int FUZZY_RESULT_LIMIT = 50;
 
     @FXML
     public void initialize() {
@@ -46,11 +63,37 @@ public class BookFormController {
         colAuthor.setCellValueFactory(new PropertyValueFactory<>("author"));
         colAvailable.setCellValueFactory(new PropertyValueFactory<>("availability"));
 
-        loadAllBooks();
+        books = PagedTableSource.attach(tblBooks, PAGE_SIZE, MAX_CACHED_PAGES, this::handleSQLException);
+        allBooks = PagedTableSource.query(bookService::getBooksPage, BookDTO::getBookId, BookSort.ID_ASC)
+                .sortable(colBookId, BookSort.ID_ASC, BookSort.ID_DESC)
+                .sortable(colTitle, BookSort.TITLE_ASC, BookSort.TITLE_DESC)
+                .sortable(colAuthor, BookSort.AUTHOR_ASC, BookSort.AUTHOR_DESC);
+
+        books.show(allBooks);
+        ChangePoller.getInstance().subscribe(DataVersions.Table.BOOKS, this::applyChanges);
+        ChangePoller.getInstance().onResync(this::onShow);
         generateAndSetNextId(); // Generate ID on startup
         setupListeners();
     }
 
+    /**
+     * Reloads the table only if a book was written since it was last loaded.
+     */
+    @Override
+    public void onShow() {
+        if (changes.hasChanged()) {
+            books.reload();
+        }
+    }
+
+    /**
+     * Patches the loaded pages with book writes from this or another client.
+     */
+    private void applyChanges(List<ChangeDTO> bookChanges) {
+        books.patch(bookChanges);
+        changes.markSeen();
+    }
+
     private void setupListeners() {
         tblBooks.getSelectionModel().selectedItemProperty().addListener((obs, oldSelection, newSelection) -> {
             if (newSelection != null) {
@@ -66,35 +109,31 @@ public class BookFormController {
     @FXML
     void btnAddOnAction(ActionEvent event) {
         BookDTO newBook = readFormData();
-        if (newBook == null) return;
-
-        try {
-            if (bookService.addBook(newBook)) {
-                showAlert(Alert.AlertType.INFORMATION, "Success", "Book added successfully!");
-                refreshView();
-            } else {
-                showAlert(Alert.AlertType.ERROR, "Error", "Failed to add the book.");
-            }
-        } catch (SQLException e) {
-            handleSQLException(e);
-        }
+        if (newBook == null || !checkIsbnFormat(newBook)) return;
+
+        UiTask.of(() -> {
+                    String duplicate = findDuplicateIsbn(newBook);
+                    return duplicate != null ? duplicate : bookService.addBook(newBook) ? null : "Failed to add the book.";
+                })
+                .busy(btnAdd, btnUpdate, btnDelete)
+                .onSuccess(problem -> showSaveResult(problem, "Book added successfully!"))
+                .onError(this::handleSQLException)
+                .start();
     }
 
     @FXML
     void btnUpdateOnAction(ActionEvent event) {
         BookDTO updatedBook = readFormData();
-        if (updatedBook == null) return;
-
-        try {
-            if (bookService.updateBook(updatedBook)) {
-                showAlert(Alert.AlertType.INFORMATION, "Success", "Book updated successfully!");
-                refreshView();
-            } else {
-                showAlert(Alert.AlertType.ERROR, "Error", "Failed to update the book.");
-            }
-        } catch (SQLException e) {
-            handleSQLException(e);
-        }
+        if (updatedBook == null || !checkIsbnFormat(updatedBook)) return;
+
+        UiTask.of(() -> {
+                    String duplicate = findDuplicateIsbn(updatedBook);
+                    return duplicate != null ? duplicate : bookService.updateBook(updatedBook) ? null : "Failed to update the book.";
+                })
+                .busy(btnAdd, btnUpdate, btnDelete)
+                .onSuccess(problem -> showSaveResult(problem, "Book updated successfully!"))
+                .onError(this::handleSQLException)
+                .start();
     }
 
     @FXML
@@ -105,16 +144,18 @@ public class BookFormController {
             return;
         }
 
-        try {
-            if (bookService.deleteBook(bookId)) {
-                showAlert(Alert.AlertType.INFORMATION, "Success", "Book deleted successfully!");
-                refreshView();
-            } else {
-                showAlert(Alert.AlertType.ERROR, "Error", "Failed to delete the book.");
-            }
-        } catch (SQLException e) {
-            handleSQLException(e);
-        }
+        UiTask.of(() -> bookService.deleteBook(bookId))
+                .busy(btnAdd, btnUpdate, btnDelete)
+                .onSuccess(deleted -> {
+                    if (deleted) {
+                        showAlert(Alert.AlertType.INFORMATION, "Success", "Book deleted successfully!");
+                        refreshView();
+                    } else {
+                        showAlert(Alert.AlertType.ERROR, "Error", "Failed to delete the book.");
+                    }
+                })
+                .onError(this::handleSQLException)
+                .start();
     }
 
     @FXML
@@ -125,22 +166,11 @@ public class BookFormController {
 
     // --- Helper Methods ---
 
-    private void loadAllBooks() {
-        try {
-            List<BookDTO> allBooks = bookService.getAllBooks();
-            bookList = FXCollections.observableArrayList(allBooks);
-            tblBooks.setItems(bookList);
-        } catch (SQLException e) {
-            handleSQLException(e);
-        }
-    }
-
     private void generateAndSetNextId() {
-        try {
-            txtBookId.setText(bookService.generateNextBookId());
-        } catch (SQLException e) {
-            handleSQLException(e);
-        }
+        UiTask.of(bookService::generateNextBookId)
+                .onSuccess(txtBookId::setText)
+                .onError(this::handleSQLException)
+                .start();
     }
 
     private void populateForm(BookDTO book) {
@@ -167,6 +197,42 @@ public class BookFormController {
         );
     }
 
+    /**
+     * Checks the ISBN's check digit before saving, so staff see why a book would be refused.
+     */
+    private boolean checkIsbnFormat(BookDTO book) {
+        if (bookService.normalizeIsbn(book.getIsbn()) == null) {
+            showAlert(Alert.AlertType.WARNING, "Validation Error", "The ISBN is not valid. Please check it for typing errors.");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * The same book must not be catalogued twice, under either its ISBN-10 or its ISBN-13.
+     * Runs in the save task, off the FX thread.
+     * @return The reason the book cannot be saved, or null if its ISBN is free.
+     */
+    private String findDuplicateIsbn(BookDTO book) throws SQLException {
+        BookDTO existing = bookService.getBookByIsbn(book.getIsbn());
+        if (existing != null && !existing.getBookId().equals(book.getBookId())) {
+            return "This ISBN is already catalogued as " + existing.getBookId() + " - " + existing.getTitle() + ".";
+        }
+        return null;
+    }
+
+    /**
+     * @param problem The reason the save was refused, or null if it succeeded.
+     */
+    private void showSaveResult(String problem, String successMessage) {
+        if (problem == null) {
+            showAlert(Alert.AlertType.INFORMATION, "Success", successMessage);
+            refreshView();
+        } else {
+            showAlert(Alert.AlertType.ERROR, "Error", problem);
+        }
+    }
+
     private void clearForm() {
         // Don't clear the auto-generated ID
         txtIsbn.clear();
@@ -179,23 +245,39 @@ public class BookFormController {
     }
 
     private void refreshView() {
-        loadAllBooks();
+        changes.markSeen();
+        boolean searching = !txtSearch.getText().isEmpty();
         clearForm();
+        if (!searching && !ChangePoller.getInstance().pollNow()) {
+            // Clearing a search already shows the catalog again from its first page,
+            // and otherwise the change feed patches the saved row in place.
+            books.reload();
+        }
         generateAndSetNextId();
     }
 
+    /**
+     * Filters the table through the service's paged search, so a keystroke does not scan every book.
+     * If no book matches exactly, the closest titles and authors are shown instead, best first.
+     * A newer keystroke replaces the search still loading.
+     */
     private void filterBooks(String keyword) {
         if (keyword == null || keyword.trim().isEmpty()) {
-            tblBooks.setItems(bookList);
+            books.show(allBooks);
             return;
         }
-        String lowerCaseFilter = keyword.toLowerCase();
-        ObservableList<BookDTO> filteredData = bookList.filtered(book ->
-                book.getTitle().toLowerCase().contains(lowerCaseFilter) ||
-                        book.getBookId().toLowerCase().contains(lowerCaseFilter) ||
-                        book.getAuthor().toLowerCase().contains(lowerCaseFilter)
-        );
-        tblBooks.setItems(filteredData);
+        books.show(PagedTableSource.unsorted((afterKey, limit) -> searchPage(keyword, afterKey, limit), BookDTO::getBookId));
+    }
+
+    /**
+     * Runs off the FX thread. Search results stay in relevance order, so their columns are not sortable.
+     */
+    private Page<BookDTO> searchPage(String keyword, PageKey afterKey, int limit) throws SQLException {
+        Page<BookDTO> page = bookService.searchBooksPage(keyword, limit, afterKey);
+        if (afterKey == null && page.getItems().isEmpty()) {
+            return new Page<>(bookService.searchBooksFuzzy(keyword, FUZZY_RESULT_LIMIT), null);
+        }
+        return page;
     }
 
     private void showAlert(Alert.AlertType alertType, String title, String message) {
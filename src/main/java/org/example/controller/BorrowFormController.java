@@ -1,6 +1,7 @@
 package org.example.controller;
 
 import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.control.Alert;
@@ -8,16 +9,18 @@ import javafx.scene.control.Button;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.DatePicker;
 import javafx.scene.control.Label;
+import javafx.scene.control.SelectionMode;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.TextField;
 import javafx.scene.control.cell.PropertyValueFactory;
-import javafx.util.StringConverter;
-import org.example.dto.BookDTO;
+import org.example.dto.BookSummaryDTO;
+import org.example.dto.BorrowOutcomeDTO;
 import org.example.dto.BorrowRecordDTO;
-import org.example.dto.UserDTO;
+import org.example.dto.UserSummaryDTO;
 import org.example.service.BookService;
 import org.example.service.BorrowService;
+import org.example.service.DataVersions;
 import org.example.service.UserService;
 import org.example.service.impl.BookServiceImpl;
 import org.example.service.impl.BorrowServiceImpl;
@@ -32,16 +35,21 @@ import java.util.stream.Collectors;
  * Controller for the borrow_form.fxml view.
  * This final version correctly handles the borrowing limit.
  */
-public class BorrowFormController {
+public class BorrowFormController implements RefreshableView {
 
     // FXML UI Components
     @FXML private TextField txtRecordId;
-    @FXML private ComboBox<UserDTO> cmbUserId;
+    @FXML private ComboBox<UserSummaryDTO> cmbUserId;
     @FXML private Label lblUserName;
-    @FXML private ComboBox<BookDTO> cmbBookId;
+    @FXML private ComboBox<BookSummaryDTO> cmbBookId;
     @FXML private Label lblBookTitle;
     @FXML private DatePicker dateBorrow;
     @FXML private Button btnConfirmBorrow;
+    @FXML private Button btnAddToCart;
+    @FXML private Button btnRemoveFromCart;
+    @FXML private TableView<BookSummaryDTO> tblCart;
+    @FXML private TableColumn<BookSummaryDTO, String> colCartBookId;
+    @FXML private TableColumn<BookSummaryDTO, String> colCartTitle;
     @FXML private TableView<BorrowRecordDTO> tblBorrowedBooks;
     @FXML private TableColumn<BorrowRecordDTO, String> colRecordId;
     @FXML private TableColumn<BorrowRecordDTO, String> colBookId;
@@ -53,51 +61,75 @@ public class BorrowFormController {
     private final BookService bookService = new BookServiceImpl();
     private final UserService userService = new UserServiceImpl();
 
+    // The books queued for the current checkout.
+    private final ObservableList<BookSummaryDTO> cart = FXCollections.observableArrayList();
+
+    // Type-ahead lookups for the user and book fields. They only carry the ID and name or title,
+    // so no suggestion ever holds a member's contact details or password.
+    private static final int SUGGESTION_LIMIT = 20;
+    private ComboBoxAutoComplete<UserSummaryDTO> userLookup;
+    private ComboBoxAutoComplete<BookSummaryDTO> bookLookup;
+
+    // Only the newest load of the borrowed-books table is applied.
+    private final UiTask.Slot loadSlot = new UiTask.Slot();
+    // Loans and returns made on other screens since the table was loaded.
+    private final ChangeWatch changes = ChangeWatch.of(DataVersions.Table.BORROW_RECORDS);
+    // Applies loan writes from this or another desk to the borrowed-books table without reloading it.
+    private ListPatcher<BorrowRecordDTO> borrowedPatcher;
+
     @FXML
     public void initialize() {
         configureTable();
+        borrowedPatcher = new ListPatcher<>(tblBorrowedBooks::getItems, BorrowRecordDTO::getRecordId,
+                borrowService::getBorrowRecordsByIds, record -> record.getReturnDate() == null, this::handleSQLException);
+        ChangePoller.getInstance().subscribe(DataVersions.Table.BORROW_RECORDS, recordChanges -> {
+            borrowedPatcher.apply(recordChanges);
+            changes.markSeen();
+        });
+        ChangePoller.getInstance().onResync(this::onShow);
         loadCurrentlyBorrowed();
         generateAndSetNextId();
-        loadUsersAndBooksIntoComboBoxes();
+        setupLookups();
         setupComboBoxListeners();
     }
 
+    /**
+     * Reloads the borrowed-books table only if a loan was written since it was last loaded.
+     */
+    @Override
+    public void onShow() {
+        if (changes.hasChanged()) {
+            loadCurrentlyBorrowed();
+        }
+    }
+
     private void configureTable() {
         colRecordId.setCellValueFactory(new PropertyValueFactory<>("recordId"));
         colBookId.setCellValueFactory(new PropertyValueFactory<>("bookId"));
         colUserId.setCellValueFactory(new PropertyValueFactory<>("userId"));
         colBorrowDate.setCellValueFactory(new PropertyValueFactory<>("borrowDate"));
-    }
 
-    private void loadUsersAndBooksIntoComboBoxes() {
-        try {
-            cmbUserId.setItems(FXCollections.observableArrayList(userService.getAllUsers()));
-            cmbBookId.setItems(FXCollections.observableArrayList(bookService.getAvailableBooks()));
-        } catch (SQLException e) {
-            handleSQLException(e);
-        }
-
-        cmbUserId.setConverter(new StringConverter<UserDTO>() {
-            @Override
-            public String toString(UserDTO user) {
-                return user == null ? "" : user.getUserId() + " - " + user.getName();
-            }
-            @Override
-            public UserDTO fromString(String string) { return null; }
-        });
+        colCartBookId.setCellValueFactory(new PropertyValueFactory<>("bookId"));
+        colCartTitle.setCellValueFactory(new PropertyValueFactory<>("title"));
+        tblCart.setItems(cart);
+        tblCart.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+    }
 
-        cmbBookId.setConverter(new StringConverter<BookDTO>() {
-            @Override
-            public String toString(BookDTO book) {
-                return book == null ? "" : book.getBookId() + " - " + book.getTitle();
-            }
-            @Override
-            public BookDTO fromString(String string) { return null; }
-        });
+    /**
+     * Turns the user and book combo boxes into type-ahead fields backed by the services' shared
+     * prefix indexes, instead of loading every user and every available book into them.
+     */
+    private void setupLookups() {
+        userLookup = ComboBoxAutoComplete.attach(cmbUserId,
+                user -> user.getUserId() + " - " + user.getName(),
+                userService::suggestUsers, SUGGESTION_LIMIT, this::handleSQLException);
+        bookLookup = ComboBoxAutoComplete.attach(cmbBookId,
+                book -> book.getBookId() + " - " + book.getTitle(),
+                bookService::suggestAvailableBooks, SUGGESTION_LIMIT, this::handleSQLException);
     }
 
     private void setupComboBoxListeners() {
-        cmbUserId.getSelectionModel().selectedItemProperty().addListener((obs, oldVal, newVal) -> {
+        cmbUserId.valueProperty().addListener((obs, oldVal, newVal) -> {
             if (newVal != null) {
                 lblUserName.setText("👤 Name: " + newVal.getName());
                 lblUserName.setStyle("-fx-font-size: 14px; -fx-text-fill: #2F3E2E; -fx-font-weight: bold;");
@@ -106,7 +138,7 @@ public class BorrowFormController {
             }
         });
 
-        cmbBookId.getSelectionModel().selectedItemProperty().addListener((obs, oldVal, newVal) -> {
+        cmbBookId.valueProperty().addListener((obs, oldVal, newVal) -> {
             if (newVal != null) {
                 lblBookTitle.setText("📚 Title: " + newVal.getTitle());
                 lblBookTitle.setStyle("-fx-font-size: 14px; -fx-text-fill: #2F3E2E; -fx-font-weight: bold;");
@@ -116,70 +148,115 @@ public class BorrowFormController {
         });
     }
 
+    /**
+     * Adds the selected book to the cart, so several books can be borrowed in one checkout.
+     */
+    @FXML
+    void btnAddToCartOnAction(ActionEvent event) {
+        BookSummaryDTO selectedBook = bookLookup.getSelection();
+        if (selectedBook == null) {
+            showAlert(Alert.AlertType.WARNING, "Validation Error", "Please select a Book to add.");
+            return;
+        }
+        boolean alreadyInCart = cart.stream().anyMatch(book -> book.getBookId().equals(selectedBook.getBookId()));
+        if (!alreadyInCart) {
+            cart.add(selectedBook);
+        }
+        bookLookup.clear();
+    }
+
+    @FXML
+    void btnRemoveFromCartOnAction(ActionEvent event) {
+        cart.removeAll(List.copyOf(tblCart.getSelectionModel().getSelectedItems()));
+    }
+
+    /**
+     * Borrows every book in the cart, or just the selected book when the cart is empty.
+     * The whole checkout is one service call, so its cost does not grow with the number of books.
+     */
     @FXML
     void btnConfirmBorrowOnAction(ActionEvent event) {
-        UserDTO selectedUser = cmbUserId.getSelectionModel().getSelectedItem();
-        BookDTO selectedBook = cmbBookId.getSelectionModel().getSelectedItem();
+        UserSummaryDTO selectedUser = userLookup.getSelection();
+        BookSummaryDTO selectedBook = bookLookup.getSelection();
+
+        List<String> bookIds = cart.stream().map(BookSummaryDTO::getBookId).collect(Collectors.toList());
+        if (bookIds.isEmpty() && selectedBook != null) {
+            bookIds.add(selectedBook.getBookId());
+        }
 
-        if (selectedUser == null || selectedBook == null || dateBorrow.getValue() == null) {
-            showAlert(Alert.AlertType.WARNING, "Validation Error", "Please select a User, a Book, and a Borrow Date.");
+        if (selectedUser == null || bookIds.isEmpty() || dateBorrow.getValue() == null) {
+            showAlert(Alert.AlertType.WARNING, "Validation Error", "Please select a User, at least one Book, and a Borrow Date.");
             return;
         }
 
-        BorrowRecordDTO newRecord = new BorrowRecordDTO(
-                txtRecordId.getText(),
-                selectedUser.getUserId(),
-                selectedBook.getBookId(),
-                dateBorrow.getValue(),
-                null, 0.0, false
-        );
-
-        try {
-            boolean success = borrowService.borrowBook(newRecord);
-            if (success) {
-                showAlert(Alert.AlertType.INFORMATION, "Success", "Book borrowed successfully!");
-                refreshView();
-            } else {
-                // *** FIXED: This now specifically handles the borrowing limit error. ***
-                showAlert(Alert.AlertType.ERROR, "Borrowing Limit Reached", "This user has already borrowed the maximum number of books (3).");
+        LocalDate borrowDate = dateBorrow.getValue();
+        UiTask.of(() -> borrowService.borrowBooks(selectedUser.getUserId(), bookIds, borrowDate))
+                .busy(btnConfirmBorrow, btnAddToCart, btnRemoveFromCart)
+                .onSuccess(outcomes -> {
+                    showOutcomes(outcomes);
+                    refreshView();
+                })
+                .onError(this::handleSQLException)
+                .start();
+    }
+
+    /**
+     * Summarises a checkout: which books were borrowed and why the others were not.
+     */
+    private void showOutcomes(List<BorrowOutcomeDTO> outcomes) {
+        StringBuilder message = new StringBuilder();
+        boolean allBorrowed = true;
+        for (BorrowOutcomeDTO outcome : outcomes) {
+            message.append(outcome.getBookId()).append(": ");
+            switch (outcome.getStatus()) {
+                case BORROWED -> message.append("borrowed (record ").append(outcome.getRecordId()).append(")");
+                case UNAVAILABLE -> message.append("no longer available");
+                case LIMIT_REACHED -> message.append("not borrowed, the user has reached the borrowing limit (3)");
+                case FAILED -> message.append("not borrowed, the loan could not be saved");
             }
-        } catch (SQLException e) {
-            handleSQLException(e);
+            message.append("\n");
+            allBorrowed &= outcome.getStatus() == BorrowOutcomeDTO.Status.BORROWED;
+        }
+        if (allBorrowed) {
+            showAlert(Alert.AlertType.INFORMATION, "Success", message.toString().trim());
+        } else {
+            showAlert(Alert.AlertType.WARNING, "Checkout Incomplete", message.toString().trim());
         }
     }
 
     private void loadCurrentlyBorrowed() {
-        try {
-            List<BorrowRecordDTO> currentlyBorrowed = borrowService.getAllBorrowRecords().stream()
-                    .filter(record -> record.getReturnDate() == null)
-                    .collect(Collectors.toList());
-            tblBorrowedBooks.setItems(FXCollections.observableArrayList(currentlyBorrowed));
-        } catch (SQLException e) {
-            handleSQLException(e);
-        }
+        UiTask.of(borrowService::getActiveBorrowRecords)
+                .in(loadSlot)
+                .busy(tblBorrowedBooks)
+                // The service hands over a fresh list of shared, immutable rows, so it is wrapped rather than copied.
+                .onSuccess(currentlyBorrowed -> tblBorrowedBooks.setItems(FXCollections.observableList(currentlyBorrowed)))
+                .onError(this::handleSQLException)
+                .start();
     }
 
     private void generateAndSetNextId() {
-        try {
-            txtRecordId.setText(borrowService.generateNextRecordId());
-        } catch (SQLException e) {
-            handleSQLException(e);
-        }
+        UiTask.of(borrowService::generateNextRecordId)
+                .onSuccess(txtRecordId::setText)
+                .onError(this::handleSQLException)
+                .start();
     }
 
     private void clearForm() {
-        cmbUserId.getSelectionModel().clearSelection();
-        cmbBookId.getSelectionModel().clearSelection();
+        userLookup.clear();
+        bookLookup.clear();
         lblUserName.setText("User Name: -");
         lblBookTitle.setText("Book Title: -");
         dateBorrow.setValue(null);
+        cart.clear();
     }
 
     private void refreshView() {
-        loadCurrentlyBorrowed();
+        changes.markSeen();
+        if (!ChangePoller.getInstance().pollNow()) {
+            loadCurrentlyBorrowed();
+        }
         clearForm();
         generateAndSetNextId();
-        loadUsersAndBooksIntoComboBoxes();
     }
 
     private void showAlert(Alert.AlertType alertType, String title, String message) {
@@ -0,0 +1,155 @@
+package org.example.controller;
+
+import javafx.application.Platform;
+import org.example.dto.ChangeBatchDTO;
+import org.example.dto.ChangeDTO;
+import org.example.service.ChangeFeed;
+import org.example.service.DataVersions;
+import org.example.service.impl.ChangeFeedImpl;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Reads the ChangeFeed once a second and hands the changes to the screens showing the changed tables,
+ * which patch the affected rows in place. Writes made at this desk, and at any other client on the
+ * same database, reach every screen within about a second, at a cost that follows the number of
+ * changed rows rather than the size of the tables.
+ * All methods except subscribe and onResync must be called on the FX thread.
+ */
+final class ChangePoller {
+
+    private static final long POLL_INTERVAL_MS = 1_000;
+
+    private static final ChangePoller INSTANCE = new ChangePoller();
+
+    private final ChangeFeed changeFeed = new ChangeFeedImpl();
+    private final Map<DataVersions.Table, List<Consumer<List<ChangeDTO>>>> subscribers = new ConcurrentHashMap<>();
+    private final List<Runnable> resyncHandlers = new CopyOnWriteArrayList<>();
+    private long sequence = -1; // Unknown until start() has read the end of the log.
+    private boolean started;
+    private boolean polling;
+    private boolean pollAgain;
+    private boolean failing;
+
+    private ChangePoller() {
+    }
+
+    static ChangePoller getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Registers a screen's handler for one table. It may be called from a view being preloaded
+     * in the background; the handler itself always runs on the FX thread.
+     */
+    void subscribe(DataVersions.Table table, Consumer<List<ChangeDTO>> handler) {
+        subscribers.computeIfAbsent(table, t -> new CopyOnWriteArrayList<>()).add(handler);
+    }
+
+    /**
+     * Registers what a screen does when the feed may have missed a change, usually its onShow(),
+     * which reloads because every table's version has been bumped. Like subscribe, it may be called
+     * from a view being preloaded; the handler runs on the FX thread.
+     */
+    void onResync(Runnable handler) {
+        resyncHandlers.add(handler);
+    }
+
+    /**
+     * Starts polling from the current end of the log and drops entries too old to be needed.
+     * Later calls do nothing. If the log cannot be read, screens still catch up when they are shown.
+     */
+    void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        UiTask.of(() -> {
+                    long latest = changeFeed.getLatestSequence();
+                    changeFeed.purgeExpiredChanges();
+                    return latest;
+                })
+                .onSuccess(latest -> {
+                    sequence = latest;
+                    ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                        Thread thread = new Thread(runnable, "change-poller");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    scheduler.scheduleWithFixedDelay(() -> Platform.runLater(this::poll),
+                            POLL_INTERVAL_MS, POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                })
+                .onError(this::pollFailed)
+                .onFailure(this::pollFailed)
+                .start();
+    }
+
+    /**
+     * Polls now instead of at the next tick, e.g. right after the user saved a form.
+     * @return false if polling is not running, so the caller has to reload instead.
+     */
+    boolean pollNow() {
+        poll();
+        return sequence >= 0;
+    }
+
+    private void poll() {
+        if (sequence < 0) {
+            return;
+        }
+        if (polling) {
+            pollAgain = true; // Picks up writes made after the running read started.
+            return;
+        }
+        polling = true;
+        long from = sequence;
+        UiTask.of(() -> changeFeed.getChangesSince(from))
+                .onSuccess(this::publish)
+                .onError(this::pollFailed)
+                .onFailure(this::pollFailed)
+                .start();
+    }
+
+    private void publish(ChangeBatchDTO batch) {
+        polling = false;
+        failing = false;
+        sequence = batch.getNextSequence();
+        if (batch.isResync()) {
+            resyncHandlers.forEach(Runnable::run);
+        }
+        Map<DataVersions.Table, List<ChangeDTO>> byTable = new EnumMap<>(DataVersions.Table.class);
+        for (ChangeDTO change : batch.getChanges()) {
+            byTable.computeIfAbsent(change.getTable(), t -> new ArrayList<>()).add(change);
+        }
+        for (Map.Entry<DataVersions.Table, List<ChangeDTO>> entry : byTable.entrySet()) {
+            for (Consumer<List<ChangeDTO>> handler : subscribers.getOrDefault(entry.getKey(), List.of())) {
+                handler.accept(entry.getValue());
+            }
+        }
+        if (batch.isTruncated() || pollAgain) {
+            pollAgain = false;
+            poll();
+        }
+    }
+
+    /**
+     * Polling keeps going through an outage; only its first error is logged, and no alert is shown.
+     */
+    private void pollFailed(Throwable error) {
+        polling = false;
+        pollAgain = false;
+        if (!failing) {
+            failing = true;
+            error.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package org.example.controller;
+
+import org.example.service.DataVersions;
+
+/**
+ * Remembers the DataVersions a screen last loaded, so its onShow() hook can skip queries
+ * when nothing it shows has been written since.
+ */
+final class ChangeWatch {
+
+    private final DataVersions.Table[] tables;
+    private final long[] seen;
+
+    private ChangeWatch(DataVersions.Table[] tables) {
+        this.tables = tables;
+        this.seen = new long[tables.length];
+        markSeen();
+    }
+
+    /**
+     * Create it before the first load, so writes made while that load runs are not missed.
+     */
+    static ChangeWatch of(DataVersions.Table... tables) {
+        return new ChangeWatch(tables);
+    }
+
+    /**
+     * @return true if any watched table was written since the last call or markSeen(); the change is then marked as seen.
+     */
+    boolean hasChanged() {
+        boolean changed = false;
+        for (int i = 0; i < tables.length; i++) {
+            long version = DataVersions.current(tables[i]);
+            if (version != seen[i]) {
+                seen[i] = version;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Call when the screen reloads for its own reasons, e.g. after saving a form.
+     */
+    void markSeen() {
+        hasChanged();
+    }
+}
@@ -0,0 +1,119 @@
+package org.example.controller;
+
+import javafx.collections.FXCollections;
+import javafx.scene.control.ComboBox;
+import javafx.util.StringConverter;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Turns an editable ComboBox into a type-ahead field. Every edit runs the lookup as a UiTask
+ * and shows the first matches in the drop-down, so the combo box never holds a whole table
+ * and typing never waits for the database. A newer keystroke cancels the lookup still running.
+ */
+final class ComboBoxAutoComplete<T> {
+
+    /**
+     * Finds the first few items matching the typed text.
+     */
+    @FunctionalInterface
+    interface Lookup<T> {
+        List<T> find(String text, int limit) throws SQLException;
+    }
+
+    private final ComboBox<T> comboBox;
+    private final StringConverter<T> converter;
+    private final Lookup<T> lookup;
+    private final int limit;
+    private final Consumer<SQLException> onError;
+    private final UiTask.Slot lookupSlot = new UiTask.Slot();
+
+    private ComboBoxAutoComplete(ComboBox<T> comboBox, StringConverter<T> converter, Lookup<T> lookup,
+                                 int limit, Consumer<SQLException> onError) {
+        this.comboBox = comboBox;
+        this.converter = converter;
+        this.lookup = lookup;
+        this.limit = limit;
+        this.onError = onError;
+    }
+
+    /**
+     * Makes the combo box editable and starts suggesting matches as the user types.
+     * @param comboBox The combo box; its items are replaced with the current suggestions.
+     * @param display Renders an item; the same text is shown in the editor once an item is picked.
+     * @param lookup The lookup, called off the FX thread.
+     * @param limit The maximum number of suggestions shown.
+     * @param onError Called on the FX thread if a lookup fails.
+     */
+    static <T> ComboBoxAutoComplete<T> attach(ComboBox<T> comboBox, Function<T, String> display,
+                                              Lookup<T> lookup, int limit, Consumer<SQLException> onError) {
+        StringConverter<T> converter = new StringConverter<T>() {
+            @Override
+            public String toString(T item) {
+                return item == null ? "" : display.apply(item);
+            }
+
+            @Override
+            public T fromString(String string) {
+                // Typed text only becomes a value if it is exactly one of the current suggestions.
+                for (T item : comboBox.getItems()) {
+                    if (display.apply(item).equals(string)) {
+                        return item;
+                    }
+                }
+                return null;
+            }
+        };
+        ComboBoxAutoComplete<T> autoComplete = new ComboBoxAutoComplete<>(comboBox, converter, lookup, limit, onError);
+        comboBox.setEditable(true);
+        comboBox.setConverter(converter);
+        comboBox.setItems(FXCollections.observableArrayList());
+        comboBox.getEditor().textProperty().addListener((obs, oldText, newText) -> autoComplete.textChanged(newText));
+        return autoComplete;
+    }
+
+    /**
+     * Returns the picked item, or null if the editor text no longer matches it.
+     */
+    T getSelection() {
+        T value = comboBox.getValue();
+        return value != null && converter.toString(value).equals(comboBox.getEditor().getText()) ? value : null;
+    }
+
+    /**
+     * Clears the value, the editor and the suggestions, and drops any lookup still in flight.
+     */
+    void clear() {
+        lookupSlot.cancel();
+        comboBox.setValue(null);
+        comboBox.getEditor().clear();
+        comboBox.getItems().clear();
+    }
+
+    private void textChanged(String text) {
+        lookupSlot.cancel();
+        T value = comboBox.getValue();
+        if (text == null || text.isBlank() || (value != null && converter.toString(value).equals(text))) {
+            // Nothing typed, or the text was just filled in by picking a suggestion.
+            return;
+        }
+
+        UiTask.of(() -> lookup.find(text, limit))
+                .in(lookupSlot)
+                .onSuccess(this::showSuggestions)
+                .onError(onError)
+                .start();
+    }
+
+    private void showSuggestions(List<T> matches) {
+        comboBox.getItems().setAll(matches);
+        if (matches.isEmpty()) {
+            comboBox.hide();
+        } else if (!comboBox.isShowing() && comboBox.getEditor().isFocused()) {
+            comboBox.show();
+        }
+    }
+}
@@ -1,17 +1,17 @@
 package org.example.controller;
 
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.layout.AnchorPane;
 import javafx.scene.layout.StackPane;
 import javafx.stage.Stage;
 
-import java.io.IOException;
-import java.net.URL;
+import java.io.FileNotFoundException;
+import java.util.List;
+import java.util.concurrent.CompletionException;
 
 /**
  * Controller for the main dashboard view (dashboard.fxml).
@@ -22,10 +22,18 @@ public class DashboardController {
     @FXML
     private StackPane contentArea;
 
+    // Each module is loaded once and kept, so coming back to it shows it as it was left.
+    private final ViewRegistry views = new ViewRegistry();
+    private String currentPage;
+
     @FXML
     public void initialize() {
         // Load the book form as the default view when the dashboard opens.
         loadPage("book_form.fxml");
+        // Parse the other modules while the user looks at the first one.
+        views.preload(List.of("borrow_form.fxml", "return_form.fxml", "user_form.fxml", "reports_form.fxml", "import_form.fxml"));
+        // Keep every loaded module up to date with writes from this and other clients.
+        ChangePoller.getInstance().start();
     }
 
     @FXML
@@ -57,34 +65,50 @@ public class DashboardController {
         loadPage("reports_form.fxml");
     }
 
+    @FXML
+    void handleImportClick(ActionEvent event) {
+        loadPage("import_form.fxml");
+    }
+
     /**
-     * A private helper method to load a specific FXML file into the contentArea StackPane.
-     * This version includes robust error checking.
+     * A private helper method to show a specific FXML file in the contentArea StackPane.
+     * The view comes from the registry, so it is only parsed the first time; a view still being
+     * preloaded is shown as soon as it is ready, unless another module was picked in the meantime.
      *
      * @param fxmlFile The name of the FXML file to load (e.g., "book_form.fxml").
      */
     private void loadPage(String fxmlFile) {
-        try {
-            // Check if the FXML file exists before trying to load it.
-            URL resourceUrl = getClass().getResource("/view/" + fxmlFile);
+        currentPage = fxmlFile;
+        views.get(fxmlFile).whenComplete((view, error) -> {
+            if (Platform.isFxApplicationThread()) {
+                showPage(fxmlFile, view, error);
+            } else {
+                Platform.runLater(() -> showPage(fxmlFile, view, error));
+            }
+        });
+    }
 
-            if (resourceUrl == null) {
+    private void showPage(String fxmlFile, ViewRegistry.View view, Throwable error) {
+        if (!fxmlFile.equals(currentPage)) {
+            return;
+        }
+        if (error != null) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof FileNotFoundException) {
                 // If the file is not found, show a helpful error message.
-                showErrorAlert("File Not Found", "Could not find the required FXML file: " + fxmlFile);
-                return;
+                showErrorAlert("File Not Found", cause.getMessage());
+            } else {
+                // This will catch other loading errors (e.g., problems inside the FXML itself).
+                showErrorAlert("FXML Load Error", "An error occurred while loading the view: " + fxmlFile);
+                cause.printStackTrace();
             }
+            return;
+        }
 
-            // Load the new FXML file.
-            Parent page = FXMLLoader.load(resourceUrl);
-
-            // Clear any existing content and add the new page.
-            contentArea.getChildren().clear();
-            contentArea.getChildren().add(page);
-
-        } catch (IOException e) {
-            // This will catch other loading errors (e.g., problems inside the FXML itself).
-            showErrorAlert("FXML Load Error", "An error occurred while loading the view: " + fxmlFile);
-            e.printStackTrace();
+        // Replace the current page with this one, then let it catch up on changes made while it was hidden.
+        contentArea.getChildren().setAll(view.getRoot());
+        if (view.getController() instanceof RefreshableView refreshable) {
+            refreshable.onShow();
         }
     }
 
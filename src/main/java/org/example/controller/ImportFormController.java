@@ -0,0 +1,124 @@
+package org.example.controller;
+
+import javafx.application.Platform;
+import javafx.event.ActionEvent;
+import javafx.fxml.FXML;
+import javafx.scene.control.Alert;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.control.ProgressIndicator;
+import javafx.scene.control.TextArea;
+import javafx.stage.FileChooser;
+import org.example.service.ImportProgress;
+import org.example.service.ImportService;
+import org.example.service.impl.ImportServiceImpl;
+
+import java.io.File;
+import java.sql.SQLException;
+import java.util.function.Consumer;
+
+/**
+ * Controller for the import_form.fxml view.
+ * Lets staff bulk-load books or members from a CSV file. The import runs on a background
+ * thread and reports its counters back to the screen after every written batch.
+ */
+public class ImportFormController {
+
+    // FXML UI Components
+    @FXML private Button btnImportBooks;
+    @FXML private Button btnImportUsers;
+    @FXML private ProgressBar progressBar;
+    @FXML private Label lblStatus;
+    @FXML private TextArea txtRejects;
+
+    // Service Layer
+    private final ImportService importService = new ImportServiceImpl();
+
+    @FXML
+    public void initialize() {
+        progressBar.setProgress(0);
+        lblStatus.setText("Choose a CSV file to import.");
+    }
+
+    /**
+     * Handles the "Import Books" button click. Expects the columns isbn,title,author,genre.
+     */
+    @FXML
+    void btnImportBooksOnAction(ActionEvent event) {
+        File file = chooseFile("Import Books");
+        if (file != null) {
+            runImport(file, true);
+        }
+    }
+
+    /**
+     * Handles the "Import Members" button click. Expects the columns name,contact,membership_date,username,password.
+     */
+    @FXML
+    void btnImportUsersOnAction(ActionEvent event) {
+        File file = chooseFile("Import Members");
+        if (file != null) {
+            runImport(file, false);
+        }
+    }
+
+    // --- Helper Methods ---
+
+    private File chooseFile(String title) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle(title);
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV files", "*.csv"));
+        return chooser.showOpenDialog(btnImportBooks.getScene().getWindow());
+    }
+
+    /**
+     * Runs the import off the JavaFX Application Thread and disables the buttons until it finishes.
+     */
+    private void runImport(File file, boolean books) {
+        Consumer<ImportProgress> onProgress = progress -> Platform.runLater(() -> showProgress(progress));
+
+        txtRejects.clear();
+        lblStatus.setText("Importing " + file.getName() + "...");
+        progressBar.setProgress(ProgressIndicator.INDETERMINATE_PROGRESS);
+
+        UiTask.of(() -> books
+                        ? importService.importBooks(file.toPath(), onProgress)
+                        : importService.importUsers(file.toPath(), onProgress))
+                .busy(btnImportBooks, btnImportUsers)
+                .onSuccess(progress -> {
+                    progressBar.setProgress(1);
+                    showProgress(progress);
+                    showAlert(Alert.AlertType.INFORMATION, "Import Complete",
+                            progress.getRowsWritten() + " row(s) imported, " + progress.getRowsRejected() + " rejected.");
+                })
+                .onError(e -> {
+                    progressBar.setProgress(0);
+                    handleSQLException(e);
+                })
+                .onFailure(error -> {
+                    progressBar.setProgress(0);
+                    error.printStackTrace();
+                    showAlert(Alert.AlertType.ERROR, "Import Failed", "Could not import " + file.getName() + ": " + error.getMessage());
+                })
+                .start();
+    }
+
+    private void showProgress(ImportProgress progress) {
+        lblStatus.setText(progress.toString());
+        txtRejects.setText(String.join("\n", progress.getRejectMessages()));
+    }
+
+    private void showAlert(Alert.AlertType alertType, String title, String message) {
+        Alert alert = new Alert(alertType);
+        alert.setTitle(title);
+        alert.setHeaderText(null);
+        alert.setContentText(message);
+        alert.showAndWait();
+    }
+
+    private void handleSQLException(SQLException e) {
+        e.printStackTrace();
+        showAlert(Alert.AlertType.ERROR, "Database Error", "A database error occurred during the import: " + e.getMessage());
+    }
+}
@@ -0,0 +1,103 @@
+package org.example.controller;
+
+import javafx.collections.ObservableList;
+import org.example.dto.ChangeDTO;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Applies ChangeFeed batches to a table that holds a whole, fully loaded list. Only the changed rows
+ * are fetched, by ID, and each is replaced, added or removed in place, so the table keeps its scroll
+ * position and selection. Changes arriving while a fetch runs are merged into the next one.
+ * All methods must be called on the FX thread.
+ */
+final class ListPatcher<T> {
+
+    /**
+     * Loads the current version of the given rows, off the FX thread; rows that no longer exist are left out.
+     */
+    @FunctionalInterface
+    interface Fetcher<T> {
+        List<T> fetch(Collection<String> ids) throws SQLException;
+    }
+
+    private final Supplier<ObservableList<T>> list;
+    private final Function<T, String> idOf;
+    private final Fetcher<T> fetcher;
+    private final Predicate<T> belongs;
+    private final Consumer<SQLException> onError;
+    private final Set<String> pending = new LinkedHashSet<>();
+    private final UiTask.Slot fetchSlot = new UiTask.Slot();
+
+    /**
+     * @param list The list shown; read on every patch, since a full reload may replace it.
+     * @param idOf The primary key of a row.
+     * @param fetcher Loads changed rows by ID.
+     * @param belongs Whether a fetched row is part of the list, e.g. only loans not yet returned.
+     * @param onError Called on the FX thread if the changed rows cannot be loaded.
+     */
+    ListPatcher(Supplier<ObservableList<T>> list, Function<T, String> idOf, Fetcher<T> fetcher,
+                Predicate<T> belongs, Consumer<SQLException> onError) {
+        this.list = list;
+        this.idOf = idOf;
+        this.fetcher = fetcher;
+        this.belongs = belongs;
+        this.onError = onError;
+    }
+
+    void apply(List<ChangeDTO> changes) {
+        for (ChangeDTO change : changes) {
+            pending.add(change.getRowId());
+        }
+        // The newest fetch covers every ID still pending, so cancelling the previous one loses nothing.
+        Set<String> ids = new LinkedHashSet<>(pending);
+        UiTask.of(() -> fetcher.fetch(ids))
+                .in(fetchSlot)
+                .onSuccess(rows -> {
+                    pending.removeAll(ids);
+                    patch(ids, rows);
+                })
+                .onError(e -> {
+                    pending.removeAll(ids);
+                    onError.accept(e);
+                })
+                .start();
+    }
+
+    private void patch(Set<String> ids, List<T> rows) {
+        Map<String, T> current = new HashMap<>();
+        for (T row : rows) {
+            if (belongs.test(row)) {
+                current.put(idOf.apply(row), row);
+            }
+        }
+        ObservableList<T> items = list.get();
+        for (int i = items.size() - 1; i >= 0; i--) {
+            String id = idOf.apply(items.get(i));
+            if (ids.contains(id)) {
+                T row = current.remove(id);
+                if (row == null) {
+                    items.remove(i);
+                } else {
+                    items.set(i, row);
+                }
+            }
+        }
+        // New rows go to the end, in ID order, which is also the order they were created in.
+        List<T> added = new ArrayList<>(current.values());
+        added.sort(Comparator.comparing(idOf));
+        items.addAll(added);
+    }
+}
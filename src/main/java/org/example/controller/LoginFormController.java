@@ -6,15 +6,14 @@ import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
+import javafx.scene.control.Button;
 import javafx.scene.control.PasswordField;
 import javafx.scene.control.TextField;
 import javafx.stage.Stage;
 import org.example.dao.UserDAO;
 import org.example.dao.impl.UserDAOImpl;
-import org.example.entity.User;
 
 import java.io.IOException;
-import java.sql.SQLException;
 import java.util.Objects;
 
 /**
@@ -29,6 +28,9 @@ public class LoginFormController {
     @FXML
     private PasswordField txtPassword;
 
+    @FXML
+    private Button btnLogin;
+
     // Instantiate the DAO to be used for database operations.
     private final UserDAO userDAO = new UserDAOImpl();
 
@@ -43,21 +45,24 @@ public class LoginFormController {
             return;
         }
 
-        try {
-            // Use the DAO to find the user.
-            User user = userDAO.findByUsernameAndPassword(username, password);
-
-            // If the user object is not null, the credentials are valid.
-            if (user != null) {
-                navigateToDashboard();
-            } else {
-                showErrorAlert("Login Failed", "Invalid username or password.");
-            }
-        } catch (SQLException e) {
-            // Handle potential database connection errors.
-            e.printStackTrace();
-            showErrorAlert("Database Error", "Could not connect to the database. Please check your connection.");
-        }
+        // Use the DAO to find the user, off the FX thread so the window stays responsive
+        // while the first connection is opened.
+        UiTask.of(() -> userDAO.findByUsernameAndPassword(username, password))
+                .busy(btnLogin)
+                .onSuccess(user -> {
+                    // If the user object is not null, the credentials are valid.
+                    if (user != null) {
+                        navigateToDashboard();
+                    } else {
+                        showErrorAlert("Login Failed", "Invalid username or password.");
+                    }
+                })
+                .onError(e -> {
+                    // Handle potential database connection errors.
+                    e.printStackTrace();
+                    showErrorAlert("Database Error", "Could not connect to the database. Please check your connection.");
+                })
+                .start();
     }
 
     private void navigateToDashboard() {
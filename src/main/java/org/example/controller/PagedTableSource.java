@@ -0,0 +1,446 @@
+package org.example.controller;
+
+import javafx.collections.ObservableListBase;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import org.example.dao.ChangeType;
+import org.example.dao.Page;
+import org.example.dao.PageKey;
+import org.example.dto.ChangeDTO;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Feeds a TableView from a keyset-paginated service query instead of a fully loaded list.
+ * The table's items are a lazy list: rows are fetched a page at a time as the table asks for them,
+ * the page after the one being shown is prefetched, and only a bounded number of pages is kept.
+ * Scrolling past the last loaded row appends the next page, so the first screen appears after
+ * one small query whatever the size of the table.
+ * Clicking a column header re-runs the query in that column's order on the server.
+ * After a write, patch() fetches again only the loaded pages the change can affect.
+ * <p>
+ * Every page except the last must hold exactly the page size, as keyset pages do.
+ * All methods must be called on the FX thread.
+ */
+final class PagedTableSource<T> {
+
+    /**
+     * Loads one page of a query in the given order, off the FX thread; usually a service method reference.
+     */
+    @FunctionalInterface
+    interface PageLoader<T, S> {
+        Page<? extends T> load(PageKey afterKey, int limit, S sort) throws SQLException;
+    }
+
+    /**
+     * Loads one page of a query with a fixed order, such as search results ranked by relevance.
+     */
+    @FunctionalInterface
+    interface UnsortedPageLoader<T> {
+        Page<? extends T> load(PageKey afterKey, int limit) throws SQLException;
+    }
+
+    /**
+     * A query shown in the table, and the server-side sort order behind each sortable column.
+     */
+    static final class Query<T, S> {
+        private final PageLoader<T, S> loader;
+        private final Function<? super T, String> idOf;
+        private final S defaultSort;
+        private final Map<TableColumn<T, ?>, List<S>> columnSorts = new IdentityHashMap<>();
+        private S sort;
+
+        private Query(PageLoader<T, S> loader, Function<? super T, String> idOf, S defaultSort) {
+            this.loader = loader;
+            this.idOf = idOf;
+            this.defaultSort = defaultSort;
+            this.sort = defaultSort;
+        }
+
+        /**
+         * Lets the user sort by a column; clicking its header re-queries in the given order.
+         */
+        Query<T, S> sortable(TableColumn<T, ?> column, S ascending, S descending) {
+            columnSorts.put(column, List.of(ascending, descending));
+            return this;
+        }
+
+        /**
+         * Only the first column of the table's sort order is used; the server orders by it and the row ID.
+         * @return false if that column cannot be sorted on the server.
+         */
+        private boolean supports(List<TableColumn<T, ?>> sortOrder) {
+            return sortOrder.isEmpty() || columnSorts.containsKey(sortOrder.get(0));
+        }
+
+        private S sortFor(List<TableColumn<T, ?>> sortOrder) {
+            if (sortOrder.isEmpty()) {
+                return defaultSort;
+            }
+            TableColumn<T, ?> column = sortOrder.get(0);
+            return columnSorts.get(column).get(column.getSortType() == TableColumn.SortType.DESCENDING ? 1 : 0);
+        }
+
+        private Page<? extends T> load(PageKey afterKey, int limit) throws SQLException {
+            return loader.load(afterKey, limit, sort);
+        }
+    }
+
+    private final TableView<T> table;
+    private final int pageSize;
+    private final int maxCachedPages;
+    private final Consumer<SQLException> onError;
+    private final Rows rows = new Rows();
+
+    private Query<T, ?> query;
+    // The afterKey of every page seen so far; page p starts after pageStarts.get(p).
+    // Keys are kept for evicted pages too, so any page can be fetched again with one seek.
+    private final List<PageKey> pageStarts = new ArrayList<>();
+    private final LinkedHashMap<Integer, List<T>> cachedPages;
+    private final Map<Integer, UiTask<?>> inFlight = new HashMap<>();
+    private int loadedPages;
+    private int size;
+    // Bumped on every reload, so pages of an older query are dropped when they arrive.
+    private int generation;
+    private boolean failed;
+
+    private PagedTableSource(TableView<T> table, int pageSize, int maxCachedPages, Consumer<SQLException> onError) {
+        this.table = table;
+        this.pageSize = pageSize;
+        this.maxCachedPages = maxCachedPages;
+        this.onError = onError;
+        // Access order, so the pages being looked at are the last to be evicted.
+        this.cachedPages = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<T>> eldest) {
+                return size() > PagedTableSource.this.maxCachedPages;
+            }
+        };
+    }
+
+    /**
+     * Makes the table show pages from this source. Nothing is loaded until a query is shown.
+     * @param table The table; its items and sort policy are replaced.
+     * @param pageSize The number of rows fetched per query.
+     * @param maxCachedPages The number of pages kept in memory; older pages are fetched again when scrolled back to.
+     * @param onError Called on the FX thread if a page cannot be loaded.
+     */
+    static <T> PagedTableSource<T> attach(TableView<T> table, int pageSize, int maxCachedPages, Consumer<SQLException> onError) {
+        PagedTableSource<T> source = new PagedTableSource<>(table, pageSize, Math.max(2, maxCachedPages), onError);
+        table.setItems(source.rows);
+        table.setSortPolicy(t -> source.sort());
+        return source;
+    }
+
+    /**
+     * @param idOf The primary key of a row, matched against the row IDs of a ChangeFeed batch.
+     * @param defaultSort The order used while no column is sorted.
+     */
+    static <T, S> Query<T, S> query(PageLoader<T, S> loader, Function<? super T, String> idOf, S defaultSort) {
+        return new Query<>(loader, idOf, defaultSort);
+    }
+
+    /**
+     * A query whose order cannot be changed; no column is sortable while it is shown.
+     */
+    static <T> Query<T, Void> unsorted(UnsortedPageLoader<T> loader, Function<? super T, String> idOf) {
+        return new Query<>((afterKey, limit, sort) -> loader.load(afterKey, limit), idOf, null);
+    }
+
+    /**
+     * Replaces the table's contents with the first page of a query, in its default order.
+     */
+    void show(Query<T, ?> query) {
+        resetSort(query);
+        this.query = query;
+        for (TableColumn<T, ?> column : table.getColumns()) {
+            column.setSortable(query.columnSorts.containsKey(column));
+        }
+        // Nothing is sorted yet, so the sort policy runs with the default order and does not reload.
+        table.getSortOrder().clear();
+        reload();
+    }
+
+    /**
+     * Drops every loaded page and fetches the current query again from its first page, e.g. after an edit.
+     */
+    void reload() {
+        generation++;
+        for (UiTask<?> task : inFlight.values()) {
+            task.cancel();
+        }
+        inFlight.clear();
+        cachedPages.clear();
+        pageStarts.clear();
+        pageStarts.add(null);
+        loadedPages = 0;
+        failed = false;
+        if (size > 0) {
+            int removed = size;
+            size = 0;
+            rows.fireRemoved(removed);
+        }
+        if (query != null) {
+            request(0);
+        }
+    }
+
+    /**
+     * Brings the loaded rows up to date after writes without starting over from the first page.
+     * Every page in memory that holds a changed row is fetched again. A row that was added, or changed
+     * while not loaded, may now belong to any page, so the page being looked at and the last page are
+     * fetched again too. A refetched page replaces its rows in place and moves the start of the next one.
+     */
+    void patch(Collection<ChangeDTO> changes) {
+        if (query == null || loadedPages == 0 || failed || changes.isEmpty()) {
+            return; // Nothing shown yet, or the first page is still loading and will include the changes.
+        }
+        Set<String> changedIds = new HashSet<>();
+        for (ChangeDTO change : changes) {
+            changedIds.add(change.getRowId());
+        }
+        Set<String> loadedIds = new HashSet<>();
+        TreeSet<Integer> pages = new TreeSet<>();
+        Integer lastViewed = null;
+        // Iterating does not count as access, so the last page seen is the one the table read last.
+        for (Map.Entry<Integer, List<T>> entry : cachedPages.entrySet()) {
+            lastViewed = entry.getKey();
+            for (T row : entry.getValue()) {
+                String id = query.idOf.apply(row);
+                if (changedIds.contains(id)) {
+                    loadedIds.add(id);
+                    pages.add(entry.getKey());
+                }
+            }
+        }
+        boolean mayHaveEntered = false;
+        for (ChangeDTO change : changes) {
+            if (change.getType() != ChangeType.DELETE && !loadedIds.contains(change.getRowId())) {
+                mayHaveEntered = true;
+                break;
+            }
+        }
+        if (mayHaveEntered && lastViewed != null) {
+            pages.add(lastViewed);
+            int lastPage = loadedPages - 1;
+            if (pageStarts.size() == loadedPages && cachedPages.containsKey(lastPage)) {
+                pages.add(lastPage);
+            }
+        }
+        for (int page : pages) {
+            request(page, true);
+        }
+    }
+
+    private static <S> void resetSort(Query<?, S> query) {
+        query.sort = query.defaultSort;
+    }
+
+    /**
+     * The table's sort policy: instead of sorting the loaded rows, re-query in the new order.
+     */
+    private boolean sort() {
+        if (query == null) {
+            return true;
+        }
+        return sortQuery(query);
+    }
+
+    private <S> boolean sortQuery(Query<T, S> query) {
+        List<TableColumn<T, ?>> sortOrder = table.getSortOrder();
+        if (!query.supports(sortOrder)) {
+            return false;
+        }
+        S sort = query.sortFor(sortOrder);
+        if (!Objects.equals(sort, query.sort)) {
+            query.sort = sort;
+            reload();
+        }
+        return true;
+    }
+
+    /**
+     * Reads a row for the table. A row of a page not in memory is blank until its page arrives.
+     */
+    private T rowAt(int index) {
+        int page = index / pageSize;
+        List<T> items = cachedPages.get(page);
+        if (items == null) {
+            request(page);
+        }
+        // Prefetch the next page, so scrolling on finds it already loaded.
+        if (page + 1 < pageStarts.size() && !cachedPages.containsKey(page + 1)) {
+            request(page + 1);
+        }
+        int offset = index - page * pageSize;
+        return items != null && offset < items.size() ? items.get(offset) : null;
+    }
+
+    private void request(int page) {
+        request(page, false);
+    }
+
+    /**
+     * @param refresh Fetch the page even if a request for it is running, since that one may predate a change.
+     */
+    private void request(int page, boolean refresh) {
+        if (failed) {
+            return;
+        }
+        UiTask<?> running = inFlight.get(page);
+        if (running != null) {
+            if (!refresh) {
+                return;
+            }
+            running.cancel();
+        }
+        int requestGeneration = generation;
+        PageKey afterKey = pageStarts.get(page);
+        Query<T, ?> pageQuery = query;
+        UiTask<Page<? extends T>> task = UiTask.<Page<? extends T>>of(() -> pageQuery.load(afterKey, pageSize))
+                .onSuccess(result -> {
+                    if (requestGeneration == generation) {
+                        pageLoaded(page, result);
+                    }
+                })
+                .onError(e -> {
+                    if (pageFailed(page, requestGeneration)) {
+                        onError.accept(e);
+                    }
+                })
+                .onFailure(e -> {
+                    if (pageFailed(page, requestGeneration)) {
+                        UiTask.showUnexpectedError(e); // E.g. a DataAccessException thrown by a row mapper.
+                    }
+                });
+        if (page == 0 && !refresh) {
+            task.busy(table);
+        }
+        inFlight.put(page, task);
+        task.start();
+    }
+
+    /**
+     * Stops asking for pages until the next reload, so one outage shows one error.
+     * @return false if the request belongs to an earlier reload and its error is not worth showing.
+     */
+    private boolean pageFailed(int page, int requestGeneration) {
+        if (requestGeneration != generation) {
+            return false;
+        }
+        inFlight.remove(page);
+        failed = true;
+        return true;
+    }
+
+    private void pageLoaded(int page, Page<? extends T> result) {
+        inFlight.remove(page);
+        List<T> items = new ArrayList<>(result.getItems());
+        cachedPages.put(page, items);
+        if (page == loadedPages) {
+            loadedPages++;
+            if (result.hasMore()) {
+                pageStarts.add(result.getNextKey());
+            }
+            int from = size;
+            size += items.size();
+            if (size > from) {
+                rows.fireAdded(from, size);
+            }
+            return;
+        }
+
+        // A page fetched again, after eviction or because its rows changed.
+        int from = page * pageSize;
+        int oldSize = size;
+        if (!result.hasMore()) {
+            // It is the last page now; rows after it were deleted or moved into it.
+            truncateAfter(page);
+            size = from + items.size();
+            rows.fireReplaced(from, size, oldSize - from);
+            return;
+        }
+        PageKey next = result.getNextKey();
+        if (page + 1 == pageStarts.size()) {
+            pageStarts.add(next); // The last page filled up and more rows follow it now.
+        } else if (!next.equals(pageStarts.get(page + 1))) {
+            // Rows were added to or removed from this page, so the next one starts elsewhere.
+            pageStarts.set(page + 1, next);
+            if (cachedPages.containsKey(page + 1) || inFlight.containsKey(page + 1)) {
+                request(page + 1, true);
+            }
+        }
+        if (page == loadedPages - 1 && size != from + pageSize) {
+            size = from + pageSize;
+            rows.fireReplaced(from, size, oldSize - from);
+        } else {
+            // The row count is unchanged, only the cells need redrawing.
+            table.refresh();
+        }
+    }
+
+    private void truncateAfter(int page) {
+        for (int p = page + 1; p < pageStarts.size(); p++) {
+            cachedPages.remove(p);
+            UiTask<?> task = inFlight.remove(p);
+            if (task != null) {
+                task.cancel();
+            }
+        }
+        pageStarts.subList(page + 1, pageStarts.size()).clear();
+        loadedPages = page + 1;
+    }
+
+    /**
+     * The table's items. Reads go through the page cache; changes are only made by the source.
+     */
+    private final class Rows extends ObservableListBase<T> {
+
+        @Override
+        public T get(int index) {
+            Objects.checkIndex(index, size);
+            return rowAt(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        private void fireAdded(int from, int to) {
+            beginChange();
+            nextAdd(from, to);
+            endChange();
+        }
+
+        private void fireReplaced(int from, int to, int removed) {
+            if (to == from && removed == 0) {
+                return;
+            }
+            beginChange();
+            nextReplace(from, to, Collections.nCopies(removed, null));
+            endChange();
+        }
+
+        private void fireRemoved(int count) {
+            beginChange();
+            // The evicted rows are not known any more; listeners only need the count.
+            nextRemove(0, Collections.nCopies(count, null));
+            endChange();
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package org.example.controller;
+
+/**
+ * A controller whose view is kept alive by the ViewRegistry and shown again and again.
+ * Its initialize() runs once; onShow() runs every time the dashboard puts the view on screen.
+ */
+interface RefreshableView {
+
+    /**
+     * Called on the FX thread each time the view is shown, including the first time.
+     * Reload only what may have changed while the view was hidden, so switching modules stays instant.
+     */
+    void onShow();
+}
@@ -1,6 +1,5 @@
 package org.example.controller;
 
-import javafx.collections.FXCollections;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.control.Alert;
@@ -8,8 +7,12 @@ import javafx.scene.control.Button;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.cell.PropertyValueFactory;
-import org.example.dto.BookDTO;
+import org.example.dao.BookSort;
+import org.example.dao.BorrowRecordSort;
+import org.example.dto.BookSummaryDTO;
 import org.example.dto.BorrowRecordDTO;
+import org.example.dto.ChangeDTO;
+import org.example.service.DataVersions;
 import org.example.service.ReportService;
 import org.example.service.impl.ReportServiceImpl;
 
@@ -21,7 +24,7 @@ import java.util.List;
  * Controller for the reports_form.fxml view.
  * Handles the logic for generating and displaying various library reports.
  */
-public class ReportsFormController {
+public class ReportsFormController implements RefreshableView {
 
     // FXML UI Components
     @FXML private TableView<Object> tblReportData; // Using Object for generic data
@@ -35,15 +38,49 @@ public class ReportsFormController {
     // Service Layer for fetching report data
     private final ReportService reportService = new ReportServiceImpl();
 
+    // Reports are shown a page at a time and sorted on the server, so a large report opens as fast as a small one.
+    // Switching reports drops the pages of the previous one, even those still loading.
+    private static final int PAGE_SIZE = 100;
+    private static final int MAX_CACHED_PAGES = 20;
+    private PagedTableSource<Object> report;
+    // The table the current report lists, whose changes are patched into it.
+    private DataVersions.Table reportTable;
+    // Catalog and loan writes since the current report was loaded.
+    private final ChangeWatch changes = ChangeWatch.of(DataVersions.Table.BOOKS, DataVersions.Table.BORROW_RECORDS);
+
     /**
      * Initializes the controller. By default, it loads the available books report.
      */
     @FXML
     public void initialize() {
+        report = PagedTableSource.attach(tblReportData, PAGE_SIZE, MAX_CACHED_PAGES, this::handleSQLException);
+        ChangePoller.getInstance().subscribe(DataVersions.Table.BOOKS, this::applyChanges);
+        ChangePoller.getInstance().subscribe(DataVersions.Table.BORROW_RECORDS, this::applyChanges);
+        ChangePoller.getInstance().onResync(this::onShow);
         // Load the default report when the view is first opened.
         btnAvailableBooksOnAction(null);
     }
 
+    /**
+     * Reloads the current report only if a book or loan was written since it was last loaded.
+     */
+    @Override
+    public void onShow() {
+        if (changes.hasChanged()) {
+            report.reload();
+        }
+    }
+
+    /**
+     * Patches the loaded pages of the current report with writes from this or another client.
+     */
+    private void applyChanges(List<ChangeDTO> tableChanges) {
+        if (tableChanges.get(0).getTable() == reportTable) {
+            report.patch(tableChanges);
+        }
+        changes.markSeen();
+    }
+
     /**
      * Handles the "Available Books" button click.
      * Configures the table for book data and loads the report.
@@ -51,12 +88,12 @@ public class ReportsFormController {
     @FXML
     void btnAvailableBooksOnAction(ActionEvent event) {
         setupTableForAvailableBooks();
-        try {
-            List<BookDTO> availableBooks = reportService.getAvailableBooks();
-            tblReportData.setItems(FXCollections.observableArrayList(availableBooks));
-        } catch (SQLException e) {
-            handleSQLException(e);
-        }
+        reportTable = DataVersions.Table.BOOKS;
+        report.show(PagedTableSource.<Object, BookSort>query(reportService::getAvailableBooksPage,
+                        row -> ((BookSummaryDTO) row).getBookId(), BookSort.ID_ASC)
+                .sortable(colBookId, BookSort.ID_ASC, BookSort.ID_DESC)
+                .sortable(colTitle, BookSort.TITLE_ASC, BookSort.TITLE_DESC)
+                .sortable(colAuthor, BookSort.AUTHOR_ASC, BookSort.AUTHOR_DESC));
     }
 
     /**
@@ -66,12 +103,8 @@ public class ReportsFormController {
     @FXML
     void btnBorrowedBooksOnAction(ActionEvent event) {
         setupTableForBorrowedBooks();
-        try {
-            List<BorrowRecordDTO> borrowedBooks = reportService.getBorrowedBooks();
-            tblReportData.setItems(FXCollections.observableArrayList(borrowedBooks));
-        } catch (SQLException e) {
-            handleSQLException(e);
-        }
+        reportTable = DataVersions.Table.BORROW_RECORDS;
+        report.show(loanReport(reportService::getBorrowedBooksPage));
     }
 
     /**
@@ -81,22 +114,27 @@ public class ReportsFormController {
     @FXML
     void btnOverdueBooksOnAction(ActionEvent event) {
         setupTableForOverdueBooks();
-        try {
-            List<BorrowRecordDTO> overdueBooks = reportService.getOverdueBooks();
-            tblReportData.setItems(FXCollections.observableArrayList(overdueBooks));
-        } catch (SQLException e) {
-            handleSQLException(e);
-        }
+        reportTable = DataVersions.Table.BORROW_RECORDS;
+        report.show(loanReport(reportService::getOverdueBooksPage));
     }
 
     // --- Helper Methods ---
 
+    /**
+     * The borrowed and overdue reports list loans, oldest first, and can be sorted by user or date.
+     */
+    private PagedTableSource.Query<Object, BorrowRecordSort> loanReport(PagedTableSource.PageLoader<Object, BorrowRecordSort> loader) {
+        return PagedTableSource.query(loader, row -> ((BorrowRecordDTO) row).getRecordId(), BorrowRecordSort.BORROW_DATE_ASC)
+                .sortable(colUserId, BorrowRecordSort.USER_ID_ASC, BorrowRecordSort.USER_ID_DESC)
+                .sortable(colBorrowDate, BorrowRecordSort.BORROW_DATE_ASC, BorrowRecordSort.BORROW_DATE_DESC);
+    }
+
     /**
      * Configures the TableView columns for the "Available Books" report.
      * Shows book-related columns and hides borrowing-related columns.
      */
     private void setupTableForAvailableBooks() {
-        // Set cell value factories for BookDTO properties
+        // Set cell value factories for BookSummaryDTO properties
         colBookId.setCellValueFactory(new PropertyValueFactory<>("bookId"));
         colTitle.setCellValueFactory(new PropertyValueFactory<>("title"));
         colAuthor.setCellValueFactory(new PropertyValueFactory<>("author"));
@@ -1,21 +1,29 @@
 package org.example.controller;
 
 import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.DatePicker;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListView;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.TextField;
 import javafx.scene.control.cell.PropertyValueFactory;
+import org.example.dao.BorrowRecordSort;
+import org.example.dto.BookDTO;
 import org.example.dto.BorrowRecordDTO;
+import org.example.dto.ChangeDTO;
 import org.example.dto.ReturnDTO;
+import org.example.dto.ReturnOutcomeDTO;
+import org.example.service.BookService;
 import org.example.service.BorrowService;
+import org.example.service.DataVersions;
 import org.example.service.FineService;
 import org.example.service.ReturnService;
+import org.example.service.impl.BookServiceImpl;
 import org.example.service.impl.BorrowServiceImpl;
 import org.example.service.impl.FineServiceImpl;
 import org.example.service.impl.ReturnServiceImpl;
@@ -23,13 +31,16 @@ import org.example.service.impl.ReturnServiceImpl;
 import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Controller for the return_form.fxml view.
  * Handles the logic for processing book returns and managing fine payments.
  */
-public class ReturnFormController {
+public class ReturnFormController implements RefreshableView {
 
     // FXML UI Components
     @FXML private TableView<BorrowRecordDTO> tblBorrowRecords;
@@ -43,13 +54,27 @@ public class ReturnFormController {
     @FXML private TextField txtFine;
     @FXML private Button btnConfirmReturn;
     @FXML private Button btnPayFine; // The new button
+    @FXML private TextField txtScan;
+    @FXML private ListView<String> lstScanQueue;
+    @FXML private Label lblQueueCount;
+    @FXML private Button btnProcessQueue;
+    @FXML private Button btnClearQueue;
 
     // Service instances
     private final BorrowService borrowService = new BorrowServiceImpl();
     private final ReturnService returnService = new ReturnServiceImpl();
     private final FineService fineService = new FineServiceImpl(); // The new service
+    private final BookService bookService = new BookServiceImpl();
 
-    private ObservableList<BorrowRecordDTO> recordList;
+    // The records table is filled a page at a time, oldest loans first.
+    private static final int PAGE_SIZE = 100;
+    private static final int MAX_CACHED_PAGES = 20;
+    private PagedTableSource<BorrowRecordDTO> records;
+    // Loans made on the borrow screen since the table was loaded.
+    private final ChangeWatch changes = ChangeWatch.of(DataVersions.Table.BORROW_RECORDS);
+
+    // Scan-queue mode: returns collected from the scanner, keyed by record ID, processed as one batch.
+    private final Map<String, BorrowRecordDTO> scanQueue = new LinkedHashMap<>();
 
     @FXML
     public void initialize() {
@@ -57,12 +82,36 @@ public class ReturnFormController {
         txtFine.setStyle("-fx-background-color: #e2e2e2;");
 
         configureTable();
-        loadAllRecords();
+        records.show(PagedTableSource.query(borrowService::getOpenRecordsPage, BorrowRecordDTO::getRecordId, BorrowRecordSort.BORROW_DATE_ASC)
+                .sortable(colRecordId, BorrowRecordSort.ID_ASC, BorrowRecordSort.ID_DESC)
+                .sortable(colUserId, BorrowRecordSort.USER_ID_ASC, BorrowRecordSort.USER_ID_DESC)
+                .sortable(colBorrowDate, BorrowRecordSort.BORROW_DATE_ASC, BorrowRecordSort.BORROW_DATE_DESC));
+        ChangePoller.getInstance().subscribe(DataVersions.Table.BORROW_RECORDS, this::applyChanges);
+        ChangePoller.getInstance().onResync(this::onShow);
         setupListeners();
 
         // Initially disable buttons until a selection is made
         btnConfirmReturn.setDisable(true);
         btnPayFine.setDisable(true);
+        updateQueueView();
+    }
+
+    /**
+     * Reloads the records table only if a loan was written since it was last loaded.
+     */
+    @Override
+    public void onShow() {
+        if (changes.hasChanged()) {
+            records.reload();
+        }
+    }
+
+    /**
+     * Patches the loaded pages with loans made, returned or paid at this or another desk.
+     */
+    private void applyChanges(List<ChangeDTO> recordChanges) {
+        records.patch(recordChanges);
+        changes.markSeen();
     }
 
     private void configureTable() {
@@ -72,6 +121,7 @@ public class ReturnFormController {
         colBorrowDate.setCellValueFactory(new PropertyValueFactory<>("borrowDate"));
         colReturnDate.setCellValueFactory(new PropertyValueFactory<>("returnDate"));
         colFine.setCellValueFactory(new PropertyValueFactory<>("fine"));
+        records = PagedTableSource.attach(tblBorrowRecords, PAGE_SIZE, MAX_CACHED_PAGES, this::handleSQLException);
     }
 
     private void setupListeners() {
@@ -105,6 +155,10 @@ public class ReturnFormController {
             showAlert(Alert.AlertType.WARNING, "Validation Error", "Please select a record and a return date.");
             return;
         }
+        if (selectedRecord.getReturnDate() != null) {
+            showAlert(Alert.AlertType.WARNING, "Validation Error", "This book has already been returned.");
+            return;
+        }
 
         ReturnDTO returnDTO = new ReturnDTO(
                 selectedRecord.getRecordId(),
@@ -114,17 +168,18 @@ public class ReturnFormController {
                 0 // Fine will be calculated by the service
         );
 
-        try {
-            boolean success = returnService.processReturn(returnDTO);
-            if (success) {
-                showAlert(Alert.AlertType.INFORMATION, "Success", "Book returned successfully!");
-                refreshView();
-            } else {
-                showAlert(Alert.AlertType.ERROR, "Transaction Failed", "The book return could not be processed.");
-            }
-        } catch (SQLException e) {
-            handleSQLException(e);
-        }
+        UiTask.of(() -> returnService.processReturn(returnDTO))
+                .busy(btnConfirmReturn, btnPayFine, btnProcessQueue)
+                .onSuccess(success -> {
+                    if (success) {
+                        showAlert(Alert.AlertType.INFORMATION, "Success", "Book returned successfully!");
+                        refreshView();
+                    } else {
+                        showAlert(Alert.AlertType.ERROR, "Transaction Failed", "The book return could not be processed.");
+                    }
+                })
+                .onError(this::handleSQLException)
+                .start();
     }
 
     /**
@@ -135,27 +190,119 @@ public class ReturnFormController {
         BorrowRecordDTO selectedRecord = tblBorrowRecords.getSelectionModel().getSelectedItem();
         if (selectedRecord == null) return;
 
-        try {
-            boolean success = fineService.payFine(selectedRecord.getRecordId());
-            if (success) {
-                showAlert(Alert.AlertType.INFORMATION, "Success", "Fine marked as paid!");
-                refreshView();
-            } else {
-                showAlert(Alert.AlertType.ERROR, "Error", "Failed to update fine payment status.");
-            }
-        } catch (SQLException e) {
-            handleSQLException(e);
+        UiTask.of(() -> fineService.payFine(selectedRecord.getRecordId()))
+                .busy(btnConfirmReturn, btnPayFine)
+                .onSuccess(success -> {
+                    if (success) {
+                        showAlert(Alert.AlertType.INFORMATION, "Success", "Fine marked as paid!");
+                        refreshView();
+                    } else {
+                        showAlert(Alert.AlertType.ERROR, "Error", "Failed to update fine payment status.");
+                    }
+                })
+                .onError(this::handleSQLException)
+                .start();
+    }
+
+    /**
+     * Handles a scan (the scanner types the code and presses Enter).
+     * A record ID, the ID of a book currently on loan, or the book's ISBN barcode is accepted.
+     */
+    @FXML
+    void txtScanOnAction(ActionEvent event) {
+        String code = txtScan.getText() == null ? "" : txtScan.getText().trim();
+        txtScan.clear();
+        if (code.isEmpty()) {
+            return;
+        }
+        // Only a page of the loans is on screen, so the scan is resolved by the service.
+        UiTask.of(() -> {
+                    BorrowRecordDTO record = borrowService.findActiveLoan(code);
+                    if (record == null) {
+                        // Not a record or book ID: try it as an ISBN barcode.
+                        BookDTO scanned = bookService.getBookByIsbn(code);
+                        record = scanned == null ? null : borrowService.findActiveLoan(scanned.getBookId());
+                    }
+                    return record;
+                })
+                .onSuccess(record -> queueScan(code, record))
+                .onError(this::handleSQLException)
+                .start();
+    }
+
+    private void queueScan(String code, BorrowRecordDTO record) {
+        if (record == null) {
+            showAlert(Alert.AlertType.WARNING, "Unknown Scan", "No book on loan matches '" + code + "'.");
+            return;
+        }
+        scanQueue.putIfAbsent(record.getRecordId(), record);
+        updateQueueView();
+    }
+
+    /**
+     * Processes every queued scan with one batched service call.
+     */
+    @FXML
+    void btnProcessQueueOnAction(ActionEvent event) {
+        if (scanQueue.isEmpty()) {
+            return;
+        }
+        LocalDate returnDate = dateReturn.getValue() != null ? dateReturn.getValue() : LocalDate.now();
+        List<ReturnDTO> returns = new ArrayList<>(scanQueue.size());
+        for (BorrowRecordDTO record : scanQueue.values()) {
+            returns.add(new ReturnDTO(record.getRecordId(), record.getBookId(), record.getBorrowDate(), returnDate, 0));
         }
+
+        UiTask.of(() -> returnService.processReturns(returns))
+                .busy(btnProcessQueue, btnClearQueue, btnConfirmReturn)
+                .onSuccess(outcomes -> {
+                    scanQueue.clear();
+                    updateQueueView();
+                    showReturnOutcomes(outcomes);
+                    refreshView();
+                })
+                .onError(this::handleSQLException)
+                .start();
+    }
+
+    @FXML
+    void btnClearQueueOnAction(ActionEvent event) {
+        scanQueue.clear();
+        updateQueueView();
     }
 
     // --- Helper Methods ---
 
-    private void loadAllRecords() {
-        try {
-            recordList = FXCollections.observableArrayList(borrowService.getAllBorrowRecords());
-            tblBorrowRecords.setItems(recordList);
-        } catch (SQLException e) {
-            handleSQLException(e);
+    private void updateQueueView() {
+        List<String> lines = new ArrayList<>(scanQueue.size());
+        for (BorrowRecordDTO record : scanQueue.values()) {
+            lines.add(record.getRecordId() + " - " + record.getBookId());
+        }
+        lstScanQueue.setItems(FXCollections.observableArrayList(lines));
+        lblQueueCount.setText(scanQueue.size() + " queued");
+        btnProcessQueue.setDisable(scanQueue.isEmpty());
+    }
+
+    private void showReturnOutcomes(List<ReturnOutcomeDTO> outcomes) {
+        int returned = 0;
+        double totalFines = 0.0;
+        StringBuilder problems = new StringBuilder();
+        for (ReturnOutcomeDTO outcome : outcomes) {
+            if (outcome.getStatus() == ReturnOutcomeDTO.Status.RETURNED) {
+                returned++;
+                totalFines += outcome.getFine();
+            } else {
+                problems.append(outcome.getRecordId()).append(": ").append(outcome.getStatus()).append("\n");
+            }
+            if (outcome.getMessage() != null) {
+                problems.append(outcome.getRecordId()).append(": ").append(outcome.getMessage()).append("\n");
+            }
+        }
+        String summary = String.format("%d book(s) returned, fines Rs. %.2f.", returned, totalFines);
+        if (problems.length() == 0) {
+            showAlert(Alert.AlertType.INFORMATION, "Success", summary);
+        } else {
+            showAlert(Alert.AlertType.WARNING, "Returns Processed With Problems", summary + "\n\n" + problems.toString().trim());
         }
     }
 
@@ -201,7 +348,10 @@ public class ReturnFormController {
     }
 
     private void refreshView() {
-        loadAllRecords();
+        changes.markSeen();
+        if (!ChangePoller.getInstance().pollNow()) {
+            records.reload();
+        }
         clearForm();
     }
 
@@ -0,0 +1,237 @@
+package org.example.controller;
+
+import javafx.application.Platform;
+import javafx.scene.Cursor;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.scene.control.Alert;
+
+import java.sql.SQLException;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Runs a service call off the JavaFX Application Thread and hands the result back to it,
+ * so a slow query never freezes the window. Typical use from a controller:
+ * <pre>
+ * UiTask.of(() -> bookService.getAllBooks())
+ *         .busy(tblBooks)
+ *         .onSuccess(books -> tblBooks.setItems(FXCollections.observableArrayList(books)))
+ *         .onError(this::handleSQLException)
+ *         .start();
+ * </pre>
+ * Each call runs on its own virtual thread. A task started in a {@link Slot} cancels the one
+ * still running there, so only the newest search or reload is ever applied; the superseded call
+ * still runs to completion, and its result is dropped.
+ * All methods except the work itself must be called on the FX thread, except start(), which
+ * hands itself to the FX thread when called from a view being preloaded in the background.
+ */
+final class UiTask<T> {
+
+    /**
+     * The background work; usually a single service call.
+     */
+    @FunctionalInterface
+    interface Work<T> {
+        T call() throws Exception;
+    }
+
+    /**
+     * Holds the latest task of one kind (e.g. "search" on one screen). Starting a task in a slot
+     * cancels the previous one, and a cancelled task never publishes its result.
+     */
+    static final class Slot {
+        private UiTask<?> current;
+
+        void cancel() {
+            if (current != null) {
+                current.cancel();
+            }
+        }
+    }
+
+    private static final ExecutorService EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
+    // How many running tasks hold each node disabled, and each scene under the wait cursor.
+    // A node's own disabled state is restored once its last task finishes.
+    private static final Map<Node, Integer> BUSY_NODES = new IdentityHashMap<>();
+    private static final Map<Node, Boolean> WAS_DISABLED = new IdentityHashMap<>();
+    private static final Map<Scene, Integer> BUSY_SCENES = new IdentityHashMap<>();
+
+    private final Work<T> work;
+    private Consumer<? super T> onSuccess = result -> { };
+    private Consumer<SQLException> onError = UiTask::showDatabaseError;
+    private Consumer<Throwable> onFailure = UiTask::showUnexpectedError;
+    private Node[] busyNodes = new Node[0];
+    private Scene busyScene;
+    private Slot slot;
+    private Future<?> future;
+    private boolean started;
+    private boolean done;
+
+    private UiTask(Work<T> work) {
+        this.work = work;
+    }
+
+    static <T> UiTask<T> of(Work<T> work) {
+        return new UiTask<>(work);
+    }
+
+    /**
+     * @param handler Receives the result on the FX thread.
+     */
+    UiTask<T> onSuccess(Consumer<? super T> handler) {
+        this.onSuccess = handler;
+        return this;
+    }
+
+    /**
+     * @param handler Receives a database error on the FX thread; by default an error alert is shown.
+     */
+    UiTask<T> onError(Consumer<SQLException> handler) {
+        this.onError = handler;
+        return this;
+    }
+
+    /**
+     * @param handler Receives any other exception on the FX thread, e.g. an IOException from a file import.
+     */
+    UiTask<T> onFailure(Consumer<Throwable> handler) {
+        this.onFailure = handler;
+        return this;
+    }
+
+    /**
+     * Disables the given controls and shows the wait cursor while the task runs,
+     * so the user cannot start the same action twice.
+     */
+    UiTask<T> busy(Node... nodes) {
+        this.busyNodes = nodes;
+        return this;
+    }
+
+    /**
+     * Replaces whatever task is still running in the slot.
+     */
+    UiTask<T> in(Slot slot) {
+        this.slot = slot;
+        return this;
+    }
+
+    UiTask<T> start() {
+        if (!Platform.isFxApplicationThread()) {
+            Platform.runLater(this::start);
+            return this;
+        }
+        if (done) {
+            return this; // Cancelled before it started.
+        }
+        started = true;
+        if (slot != null) {
+            slot.cancel();
+            slot.current = this;
+        }
+        markBusy();
+        future = EXECUTOR.submit(() -> {
+            try {
+                T result = work.call();
+                Platform.runLater(() -> complete(result, null));
+            } catch (Throwable e) {
+                Platform.runLater(() -> complete(null, e));
+            }
+        });
+        return this;
+    }
+
+    /**
+     * Abandons the task if it is still running; its result or error is discarded.
+     * The work itself is not interrupted: an interrupted virtual thread blocked on a socket read has its
+     * socket closed, which would break the pooled connection and fail a shared index mid-build,
+     * only for the next keystroke to start that build over.
+     */
+    void cancel() {
+        if (done) {
+            return;
+        }
+        if (!started) {
+            done = true;
+            return;
+        }
+        finish();
+        if (future != null) {
+            future.cancel(false);
+        }
+    }
+
+    private void complete(T result, Throwable error) {
+        if (done) {
+            return; // Cancelled or superseded.
+        }
+        finish();
+        if (error == null) {
+            onSuccess.accept(result);
+        } else if (error instanceof SQLException sqlException) {
+            onError.accept(sqlException);
+        } else {
+            onFailure.accept(error);
+        }
+    }
+
+    private void finish() {
+        done = true;
+        if (slot != null && slot.current == this) {
+            slot.current = null;
+        }
+        clearBusy();
+    }
+
+    // --- Busy Indicators ---
+
+    private void markBusy() {
+        for (Node node : busyNodes) {
+            if (BUSY_NODES.merge(node, 1, Integer::sum) == 1) {
+                WAS_DISABLED.put(node, node.isDisable());
+                node.setDisable(true);
+            }
+        }
+        busyScene = busyNodes.length > 0 ? busyNodes[0].getScene() : null;
+        if (busyScene != null && BUSY_SCENES.merge(busyScene, 1, Integer::sum) == 1) {
+            busyScene.setCursor(Cursor.WAIT);
+        }
+    }
+
+    private void clearBusy() {
+        for (Node node : busyNodes) {
+            if (BUSY_NODES.merge(node, -1, Integer::sum) == 0) {
+                BUSY_NODES.remove(node);
+                node.setDisable(WAS_DISABLED.remove(node));
+            }
+        }
+        if (busyScene != null && BUSY_SCENES.merge(busyScene, -1, Integer::sum) == 0) {
+            BUSY_SCENES.remove(busyScene);
+            busyScene.setCursor(Cursor.DEFAULT);
+        }
+    }
+
+    static void showUnexpectedError(Throwable error) {
+        error.printStackTrace();
+        Alert alert = new Alert(Alert.AlertType.ERROR);
+        alert.setTitle("Unexpected Error");
+        alert.setHeaderText(null);
+        alert.setContentText("The operation failed: " + error);
+        alert.showAndWait();
+    }
+
+    private static void showDatabaseError(SQLException e) {
+        e.printStackTrace();
+        Alert alert = new Alert(Alert.AlertType.ERROR);
+        alert.setTitle("Database Error");
+        alert.setHeaderText(null);
+        alert.setContentText("A database error occurred: " + e.getMessage());
+        alert.showAndWait();
+    }
+}
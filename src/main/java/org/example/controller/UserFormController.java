@@ -5,6 +5,7 @@ import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.control.Alert;
+import javafx.scene.control.Button;
 import javafx.scene.control.DatePicker;
 import javafx.scene.control.PasswordField;
 import javafx.scene.control.TableColumn;
@@ -12,14 +13,14 @@ import javafx.scene.control.TableView;
 import javafx.scene.control.TextField;
 import javafx.scene.control.cell.PropertyValueFactory;
 import org.example.dto.UserDTO;
+import org.example.service.DataVersions;
 import org.example.service.UserService;
 import org.example.service.impl.UserServiceImpl;
 
 import java.sql.SQLException;
 import java.time.LocalDate;
-import java.util.List;
 
-public class UserFormController {
+public class UserFormController implements RefreshableView {
 
     @FXML private TextField txtUserId;
     @FXML private TextField txtName;
@@ -28,6 +29,9 @@ public class UserFormController {
     @FXML private TextField txtUsername;
     @FXML private PasswordField txtPassword;
     @FXML private TextField txtSearch;
+    @FXML private Button btnAdd;
+    @FXML private Button btnUpdate;
+    @FXML private Button btnDelete;
     @FXML private TableView<UserDTO> tblUsers;
     @FXML private TableColumn<UserDTO, String> colUserId;
     @FXML private TableColumn<UserDTO, String> colName;
@@ -36,7 +40,14 @@ public class UserFormController {
     @FXML private TableColumn<UserDTO, LocalDate> colMembershipDate;
 
     private final UserService userService = new UserServiceImpl();
-    private ObservableList<UserDTO> userList;
+    private ObservableList<UserDTO> userList = FXCollections.observableArrayList();
+    // Applies user writes from this or another client to userList without reloading it.
+    private ListPatcher<UserDTO> userPatcher;
+
+    // Only the newest table load is applied; an older one still running is cancelled.
+    private final UiTask.Slot loadSlot = new UiTask.Slot();
+    // User writes, e.g. from an import, since the table was loaded.
+    private final ChangeWatch changes = ChangeWatch.of(DataVersions.Table.USERS);
 
     @FXML
     public void initialize() {
@@ -45,11 +56,28 @@ public class UserFormController {
         txtUserId.setStyle("-fx-background-color: #e2e2e2;");
 
         configureTable();
+        userPatcher = new ListPatcher<>(() -> userList, UserDTO::getUserId, userService::getUsersByIds,
+                user -> true, this::handleSQLException);
+        ChangePoller.getInstance().subscribe(DataVersions.Table.USERS, userChanges -> {
+            userPatcher.apply(userChanges);
+            changes.markSeen();
+        });
+        ChangePoller.getInstance().onResync(this::onShow);
         loadAllUsers();
         generateAndSetNextId();
         setupListeners();
     }
 
+    /**
+     * Reloads the table only if a user was written since it was last loaded.
+     */
+    @Override
+    public void onShow() {
+        if (changes.hasChanged()) {
+            loadAllUsers();
+        }
+    }
+
     private void configureTable() {
         colUserId.setCellValueFactory(new PropertyValueFactory<>("userId"));
         colName.setCellValueFactory(new PropertyValueFactory<>("name"));
@@ -75,16 +103,11 @@ public class UserFormController {
         UserDTO newUser = readFormData();
         if (newUser == null) return;
 
-        try {
-            if (userService.addUser(newUser)) {
-                showAlert(Alert.AlertType.INFORMATION, "Success", "User added successfully!");
-                refreshView();
-            } else {
-                showAlert(Alert.AlertType.ERROR, "Error", "Failed to add the user.");
-            }
-        } catch (SQLException e) {
-            handleSQLException(e);
-        }
+        UiTask.of(() -> userService.addUser(newUser))
+                .busy(btnAdd, btnUpdate, btnDelete)
+                .onSuccess(success -> showSaveResult(success, "User added successfully!", "Failed to add the user."))
+                .onError(this::handleSQLException)
+                .start();
     }
 
     @FXML
@@ -92,16 +115,11 @@ public class UserFormController {
         UserDTO updatedUser = readFormData();
         if (updatedUser == null) return;
 
-        try {
-            if (userService.updateUser(updatedUser)) {
-                showAlert(Alert.AlertType.INFORMATION, "Success", "User updated successfully!");
-                refreshView();
-            } else {
-                showAlert(Alert.AlertType.ERROR, "Error", "Failed to update the user.");
-            }
-        } catch (SQLException e) {
-            handleSQLException(e);
-        }
+        UiTask.of(() -> userService.updateUser(updatedUser))
+                .busy(btnAdd, btnUpdate, btnDelete)
+                .onSuccess(success -> showSaveResult(success, "User updated successfully!", "Failed to update the user."))
+                .onError(this::handleSQLException)
+                .start();
     }
 
     @FXML
@@ -112,16 +130,11 @@ public class UserFormController {
             return;
         }
 
-        try {
-            if (userService.deleteUser(userId)) {
-                showAlert(Alert.AlertType.INFORMATION, "Success", "User deleted successfully!");
-                refreshView();
-            } else {
-                showAlert(Alert.AlertType.ERROR, "Error", "Failed to delete the user.");
-            }
-        } catch (SQLException e) {
-            handleSQLException(e);
-        }
+        UiTask.of(() -> userService.deleteUser(userId))
+                .busy(btnAdd, btnUpdate, btnDelete)
+                .onSuccess(success -> showSaveResult(success, "User deleted successfully!", "Failed to delete the user."))
+                .onError(this::handleSQLException)
+                .start();
     }
 
     @FXML
@@ -133,20 +146,30 @@ public class UserFormController {
     // --- Helper Methods ---
 
     private void loadAllUsers() {
-        try {
-            List<UserDTO> allUsers = userService.getAllUsers();
-            userList = FXCollections.observableArrayList(allUsers);
-            tblUsers.setItems(userList);
-        } catch (SQLException e) {
-            handleSQLException(e);
-        }
+        UiTask.of(userService::getAllUsers)
+                .in(loadSlot)
+                .busy(tblUsers)
+                .onSuccess(allUsers -> {
+                    userList = FXCollections.observableList(allUsers);
+                    filterUsers(txtSearch.getText());
+                })
+                .onError(this::handleSQLException)
+                .start();
     }
 
     private void generateAndSetNextId() {
-        try {
-            txtUserId.setText(userService.generateNextUserId());
-        } catch (SQLException e) {
-            handleSQLException(e);
+        UiTask.of(userService::generateNextUserId)
+                .onSuccess(txtUserId::setText)
+                .onError(this::handleSQLException)
+                .start();
+    }
+
+    private void showSaveResult(boolean success, String successMessage, String failureMessage) {
+        if (success) {
+            showAlert(Alert.AlertType.INFORMATION, "Success", successMessage);
+            refreshView();
+        } else {
+            showAlert(Alert.AlertType.ERROR, "Error", failureMessage);
         }
     }
 
@@ -186,7 +209,10 @@ public class UserFormController {
     }
 
     private void refreshView() {
-        loadAllUsers();
+        changes.markSeen();
+        if (!ChangePoller.getInstance().pollNow()) {
+            loadAllUsers();
+        }
         clearForm();
         generateAndSetNextId();
     }
@@ -0,0 +1,96 @@
+package org.example.controller;
+
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.net.URL;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Loads each module's FXML once and keeps its root node and controller for the rest of the session,
+ * so switching modules does not re-parse the view, re-create the controller or re-run its queries.
+ * Views can be preloaded on a background thread: JavaFX allows building nodes off the FX thread
+ * as long as they are not part of a showing scene yet, and UiTasks started by a controller's
+ * initialize() hand themselves to the FX thread.
+ */
+final class ViewRegistry {
+
+    /**
+     * A loaded view: its root node and the controller FXMLLoader created for it.
+     */
+    static final class View {
+        private final Parent root;
+        private final Object controller;
+
+        private View(Parent root, Object controller) {
+            this.root = root;
+            this.controller = controller;
+        }
+
+        Parent getRoot() {
+            return root;
+        }
+
+        Object getController() {
+            return controller;
+        }
+    }
+
+    // One view at a time, so preloading never competes with the screen the user is looking at for more than a core.
+    private static final ExecutorService PRELOADER = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "view-preloader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<String, CompletableFuture<View>> views = new ConcurrentHashMap<>();
+
+    /**
+     * Returns a view, loading it on the calling thread unless it is already loaded or being preloaded.
+     * @param fxmlFile The name of the file in /view/, e.g. "book_form.fxml".
+     * @return The view; completed exceptionally if the file is missing or cannot be loaded, in which case the next call tries again.
+     */
+    CompletableFuture<View> get(String fxmlFile) {
+        CompletableFuture<View> loading = new CompletableFuture<>();
+        CompletableFuture<View> existing = views.putIfAbsent(fxmlFile, loading);
+        if (existing != null) {
+            return existing;
+        }
+        load(fxmlFile, loading);
+        return loading;
+    }
+
+    /**
+     * Loads the views that are not loaded yet on the background thread, in the given order.
+     */
+    void preload(List<String> fxmlFiles) {
+        for (String fxmlFile : fxmlFiles) {
+            CompletableFuture<View> loading = new CompletableFuture<>();
+            if (views.putIfAbsent(fxmlFile, loading) == null) {
+                PRELOADER.execute(() -> load(fxmlFile, loading));
+            }
+        }
+    }
+
+    private void load(String fxmlFile, CompletableFuture<View> loading) {
+        try {
+            URL resourceUrl = getClass().getResource("/view/" + fxmlFile);
+            if (resourceUrl == null) {
+                throw new FileNotFoundException("Could not find the required FXML file: " + fxmlFile);
+            }
+            FXMLLoader loader = new FXMLLoader(resourceUrl);
+            Parent root = loader.load();
+            loading.complete(new View(root, loader.getController()));
+        } catch (IOException | RuntimeException e) {
+            views.remove(fxmlFile, loading);
+            loading.completeExceptionally(e);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package org.example.dao;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * The outcome of a JDBC batch write, with one entry per input row in input order.
+ * An entry is an update count, Statement.SUCCESS_NO_INFO when the driver rewrote the batch
+ * and cannot attribute counts to rows, or Statement.EXECUTE_FAILED.
+ */
+public class BatchResult {
+
+    private final int[] updateCounts;
+    private final List<SQLException> failures;
+
+    public BatchResult(int[] updateCounts, List<SQLException> failures) {
+        this.updateCounts = updateCounts;
+        this.failures = failures;
+    }
+
+    public int size() {
+        return updateCounts.length;
+    }
+
+    /**
+     * @param index The position of the row in the collection that was written.
+     * @return true if the row was written.
+     */
+    public boolean isSuccess(int index) {
+        int count = updateCounts[index];
+        return count > 0 || count == Statement.SUCCESS_NO_INFO;
+    }
+
+    public int getSuccessCount() {
+        int successes = 0;
+        for (int i = 0; i < updateCounts.length; i++) {
+            if (isSuccess(i)) {
+                successes++;
+            }
+        }
+        return successes;
+    }
+
+    public int getFailureCount() {
+        return updateCounts.length - getSuccessCount();
+    }
+
+    public boolean isAllSucceeded() {
+        return getFailureCount() == 0;
+    }
+
+    public int[] getUpdateCounts() {
+        return updateCounts.clone();
+    }
+
+    /**
+     * @return The exceptions raised by failed chunks, in the order they happened.
+     */
+    public List<SQLException> getFailures() {
+        return failures;
+    }
+}
@@ -1,21 +1,165 @@
 package org.example.dao;
 
+import org.example.dto.BookDTO;
+import org.example.dto.BookSummaryDTO;
 import org.example.entity.Book;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * The Data Access Object interface for Book-related database operations.
  * This version includes the method for auto-generating Book IDs.
+ * Lookups and writes use the Book entity; list, page and search reads return the immutable BookDTO
+ * that the services pass on unchanged.
  */
 public interface BookDAO {
     boolean save(Book book) throws SQLException;
     boolean update(Book book) throws SQLException;
     boolean delete(String bookId) throws SQLException;
     Book findById(String bookId) throws SQLException;
-    List<Book> findAll() throws SQLException;
 
-    List<Book> findAvailableBooks() throws SQLException;
+    /**
+     * Loads many books by primary key with IN-list queries instead of one query per ID.
+     * IDs that do not exist are simply missing from the result.
+     * @param bookIds The IDs to look up.
+     * @return The matching books, in no particular order.
+     * @throws SQLException if a database error occurs.
+     */
+    List<Book> findByIds(Collection<String> bookIds) throws SQLException;
+    List<BookDTO> findAll() throws SQLException;
+
+    List<BookDTO> findAvailableBooks() throws SQLException;
+
+    /**
+     * Marks a book as borrowed with a single conditional UPDATE, but only if it is currently available.
+     * Concurrent callers for the same book cannot both succeed.
+     * @param bookId The ID of the book to check out.
+     * @return true if this call changed the book from available to borrowed.
+     * @throws SQLException if a database error occurs.
+     */
+    boolean tryCheckout(String bookId) throws SQLException;
+
+    /**
+     * Marks a book as available again, but only if it is currently borrowed.
+     * @param bookId The ID of the book to check in.
+     * @return true if this call changed the book from borrowed to available.
+     * @throws SQLException if a database error occurs.
+     */
+    boolean tryCheckin(String bookId) throws SQLException;
+
+    /**
+     * Runs the tryCheckout compare-and-set for many books in one JDBC batch.
+     * @param bookIds The IDs of the books to check out.
+     * @return The per-book outcome, in the iteration order of the collection; a success means this call claimed the copy.
+     * @throws SQLException if a database error occurs outside of a batch chunk.
+     */
+    BatchResult tryCheckoutAll(Collection<String> bookIds) throws SQLException;
+
+    /**
+     * Runs the tryCheckin compare-and-set for many books in one JDBC batch.
+     * @param bookIds The IDs of the books to check in.
+     * @return The per-book outcome, in the iteration order of the collection; a success means this call released the copy.
+     * @throws SQLException if a database error occurs outside of a batch chunk.
+     */
+    BatchResult tryCheckinAll(Collection<String> bookIds) throws SQLException;
 
     String generateNextId() throws SQLException;
+
+    /**
+     * Fetches one page of books using keyset pagination, so the cost per page stays flat at any depth.
+     * @param afterKey The nextKey of the previous page, or null for the first page.
+     * @param limit The maximum number of rows to return.
+     * @param sort The order to page through.
+     * @return The page of results.
+     * @throws SQLException if a database error occurs.
+     */
+    Page<BookDTO> findPage(PageKey afterKey, int limit, BookSort sort) throws SQLException;
+
+    /**
+     * Fetches one page of the books that are currently available, using keyset pagination.
+     * @param afterKey The nextKey of the previous page, or null for the first page.
+     * @param limit The maximum number of rows to return.
+     * @param sort The order to page through.
+     * @return The page of results.
+     * @throws SQLException if a database error occurs.
+     */
+    Page<BookDTO> findAvailablePage(PageKey afterKey, int limit, BookSort sort) throws SQLException;
+
+    /**
+     * Lists the available books with only the columns a summary shows.
+     * @return The ID, title and author of every available book.
+     * @throws SQLException if a database error occurs.
+     */
+    List<BookSummaryDTO> findAvailableSummaries() throws SQLException;
+
+    /**
+     * Fetches one page of the available books as summaries, using keyset pagination.
+     * In ID order the page is read from a covering index, without touching the table rows.
+     * @param afterKey The nextKey of the previous page, or null for the first page.
+     * @param limit The maximum number of rows to return.
+     * @param sort The order to page through.
+     * @return The page of results.
+     * @throws SQLException if a database error occurs.
+     */
+    Page<BookSummaryDTO> findAvailableSummaryPage(PageKey afterKey, int limit, BookSort sort) throws SQLException;
+
+    /**
+     * Finds available books for a type-ahead through the FULLTEXT index, every typed word matching as a prefix.
+     * A typed book ID, or a query too short for the FULLTEXT index, is matched as a book ID prefix, as in search.
+     * @param query The text typed by the user.
+     * @param limit The maximum number of rows to return.
+     * @return The summaries of the best matches, best first; empty if nothing matches.
+     * @throws SQLException if a database error occurs.
+     */
+    List<BookSummaryDTO> searchAvailableSummaries(String query, int limit) throws SQLException;
+
+    /**
+     * Searches title, author and genre through the books FULLTEXT index, so the catalog never has to
+     * be loaded on the client. Results are ordered by natural-language relevance, best first, and are
+     * paged with a keyset on (relevance, book_id).
+     * Words shorter than the server's minimum full-text token length (3 by default) are ignored.
+     * A token shaped like a book ID (e.g. "B0042") also matches books whose ID starts with it, ranked first;
+     * a query with no searchable words is matched as a book ID prefix only, instead of finding nothing.
+     * @param query The text typed by the user.
+     * @param mode Whether every word or any word must match.
+     * @param limit The maximum number of rows to return.
+     * @param afterKey The nextKey of the previous page, or null for the first page.
+     * @return The page of results; empty if nothing matches.
+     * @throws SQLException if a database error occurs.
+     */
+    Page<BookDTO> search(String query, TextSearchMode mode, int limit, PageKey afterKey) throws SQLException;
+
+    /**
+     * Counts the rows in the books table.
+     * @return The number of books.
+     * @throws SQLException if a database error occurs.
+     */
+    long countAll() throws SQLException;
+
+    /**
+     * Streams every row of the books table once, without loading the table into memory.
+     * The stream holds a database connection until it is closed, so always use try-with-resources.
+     * Errors raised while consuming it are thrown as DataAccessException.
+     * @return A stream over all books.
+     * @throws SQLException if the query cannot be started.
+     */
+    Stream<Book> streamAll() throws SQLException;
+
+    /**
+     * Inserts many books rows with JDBC batching, sending them in chunks of the configured batch size.
+     * @param books The rows to insert.
+     * @return The per-row outcome, in the iteration order of the collection.
+     * @throws SQLException if a database error occurs outside of a batch chunk.
+     */
+    BatchResult saveAll(Collection<Book> books) throws SQLException;
+
+    /**
+     * Updates many books rows with JDBC batching, sending them in chunks of the configured batch size.
+     * @param books The rows to update, matched by ID.
+     * @return The per-row outcome, in the iteration order of the collection.
+     * @throws SQLException if a database error occurs outside of a batch chunk.
+     */
+    BatchResult updateAll(Collection<Book> books) throws SQLException;
 }
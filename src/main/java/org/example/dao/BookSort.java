@@ -0,0 +1,36 @@
+package org.example.dao;
+
+/**
+ * The sort orders supported when paging through books.
+ */
+public enum BookSort implements PageSort {
+    ID_ASC("book_id", false),
+    ID_DESC("book_id", true),
+    TITLE_ASC("title", false),
+    TITLE_DESC("title", true),
+    AUTHOR_ASC("author", false),
+    AUTHOR_DESC("author", true);
+
+    private final String column;
+    private final boolean descending;
+
+    BookSort(String column, boolean descending) {
+        this.column = column;
+        this.descending = descending;
+    }
+
+    @Override
+    public String column() {
+        return column;
+    }
+
+    @Override
+    public String idColumn() {
+        return "book_id";
+    }
+
+    @Override
+    public boolean descending() {
+        return descending;
+    }
+}
@@ -1,21 +1,89 @@
 package org.example.dao;
 
+import org.example.dto.BorrowRecordDTO;
 import org.example.entity.BorrowRecord;
 
 import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * The Data Access Object interface for BorrowRecord-related database operations.
  * This version includes a method to count active loans for a user.
+ * The list and page reads behind the loan and report tables return the immutable BorrowRecordDTO;
+ * single-record lookups return the entity, since they are followed by an update.
  */
 public interface BorrowRecordDAO {
     boolean save(BorrowRecord record) throws SQLException;
     boolean update(BorrowRecord record) throws SQLException;
     BorrowRecord findById(String recordId) throws SQLException;
-    List<BorrowRecord> findAll() throws SQLException;
+
+    /**
+     * Loads many borrow records by primary key with IN-list queries instead of one query per ID.
+     * IDs that do not exist are simply missing from the result.
+     * @param recordIds The IDs to look up.
+     * @return The matching borrow records, in no particular order.
+     * @throws SQLException if a database error occurs.
+     */
+    List<BorrowRecord> findByIds(Collection<String> recordIds) throws SQLException;
+    List<BorrowRecordDTO> findAll() throws SQLException;
     String generateNextId() throws SQLException;
 
+    /**
+     * Fetches one page of borrow_records using keyset pagination, so the cost per page stays flat at any depth.
+     * @param afterKey The nextKey of the previous page, or null for the first page.
+     * @param limit The maximum number of rows to return.
+     * @param sort The order to page through.
+     * @return The page of results.
+     * @throws SQLException if a database error occurs.
+     */
+    Page<BorrowRecordDTO> findPage(PageKey afterKey, int limit, BorrowRecordSort sort) throws SQLException;
+
+    /**
+     * Fetches one page of the loans that have not been returned yet, using keyset pagination.
+     * @param afterKey The nextKey of the previous page, or null for the first page.
+     * @param limit The maximum number of rows to return.
+     * @param sort The order to page through.
+     * @return The page of results.
+     * @throws SQLException if a database error occurs.
+     */
+    Page<BorrowRecordDTO> findActivePage(PageKey afterKey, int limit, BorrowRecordSort sort) throws SQLException;
+
+    /**
+     * Fetches one page of the loans that still need action: not returned yet, or returned with an unpaid fine.
+     * @param afterKey The nextKey of the previous page, or null for the first page.
+     * @param limit The maximum number of rows to return.
+     * @param sort The order to page through.
+     * @return The page of results.
+     * @throws SQLException if a database error occurs.
+     */
+    Page<BorrowRecordDTO> findOpenPage(PageKey afterKey, int limit, BorrowRecordSort sort) throws SQLException;
+
+    /**
+     * Fetches one page of the loans findOverdue returns, with the same database-computed fine.
+     * @param asOf The date to evaluate the loans against.
+     * @param lendingPeriodDays The number of days a book may be kept without a fine.
+     * @param finePerDay The fine charged for each overdue day.
+     * @param afterKey The nextKey of the previous page, or null for the first page.
+     * @param limit The maximum number of rows to return.
+     * @param sort The order to page through.
+     * @return The page of results.
+     * @throws SQLException if a database error occurs.
+     */
+    Page<BorrowRecordDTO> findOverduePage(LocalDate asOf, int lendingPeriodDays, double finePerDay,
+                                          PageKey afterKey, int limit, BorrowRecordSort sort) throws SQLException;
+
+    /**
+     * Finds the loan of a book that has not been returned yet.
+     * @param bookId The ID of the book.
+     * @return The active borrow record, or null if the book is not on loan.
+     * @throws SQLException if a database error occurs.
+     */
+    BorrowRecord findActiveByBook(String bookId) throws SQLException;
+
     /**
      * Counts the number of books a user has currently borrowed (not yet returned).
      * @param userId The ID of the user to check.
@@ -23,4 +91,110 @@ public interface BorrowRecordDAO {
      * @throws SQLException if a database error occurs.
      */
     int getActiveBorrowCountForUser(String userId) throws SQLException;
+
+    /**
+     * Counts the active loans of every user with one grouped query.
+     * @return The number of unreturned loans per user ID; users without active loans are absent.
+     * @throws SQLException if a database error occurs.
+     */
+    Map<String, Integer> countActiveBorrowsByUser() throws SQLException;
+
+    /**
+     * Inserts a new loan only if the user has fewer than limit active loans.
+     * This is the database-side guard for the borrowing limit. Under READ COMMITTED the count is a
+     * non-locking read, so the caller must first lock the member with UserDAO.lockForUpdate in the
+     * same transaction; otherwise two desks can both count limit - 1 and both insert.
+     * @param record The loan to insert.
+     * @param limit The maximum number of active loans per user.
+     * @return true if the loan was inserted, false if the user is at the limit.
+     * @throws SQLException if a database error occurs.
+     */
+    boolean saveIfUnderLimit(BorrowRecord record, int limit) throws SQLException;
+
+    /**
+     * Runs saveIfUnderLimit for many loans in one JDBC batch. Within a transaction each row sees
+     * the rows inserted before it, so a cart that would cross the limit is cut off at the limit.
+     * The same member lock is required as for saveIfUnderLimit.
+     * @param records The loans to insert.
+     * @param limit The maximum number of active loans per user.
+     * @return The per-row outcome, in the iteration order of the collection; an update count of 0 means the limit was reached.
+     * @throws SQLException if a database error occurs outside of a batch chunk.
+     */
+    BatchResult saveAllUnderLimit(Collection<BorrowRecord> records, int limit) throws SQLException;
+
+    /**
+     * Finds all loans that have not been returned yet, oldest first.
+     * @return The active borrow records.
+     * @throws SQLException if a database error occurs.
+     */
+    List<BorrowRecordDTO> findActiveBorrows() throws SQLException;
+
+    /**
+     * Finds all unreturned loans that are overdue on the given date.
+     * The overdue check and the accrued fine are calculated by the database;
+     * the fine of each returned record holds (days borrowed - lending period) * finePerDay.
+     * @param asOf The date to evaluate the loans against.
+     * @param lendingPeriodDays The number of days a book may be kept without a fine.
+     * @param finePerDay The fine charged for each overdue day.
+     * @return The overdue borrow records, oldest first.
+     * @throws SQLException if a database error occurs.
+     */
+    List<BorrowRecordDTO> findOverdue(LocalDate asOf, int lendingPeriodDays, double finePerDay) throws SQLException;
+
+    /**
+     * Finds every loan (active and returned) of one user, newest first.
+     * @param userId The ID of the user.
+     * @return The user's borrow records.
+     * @throws SQLException if a database error occurs.
+     */
+    List<BorrowRecordDTO> findByUser(String userId) throws SQLException;
+
+    /**
+     * Finds returned loans whose fine has not been paid yet.
+     * @return The borrow records with an outstanding fine.
+     * @throws SQLException if a database error occurs.
+     */
+    List<BorrowRecordDTO> findUnpaidFines() throws SQLException;
+
+    /**
+     * Streams every row of the borrow_records table once, without loading the table into memory.
+     * The stream holds a database connection until it is closed, so always use try-with-resources.
+     * Errors raised while consuming it are thrown as DataAccessException.
+     * @return A stream over all borrow records.
+     * @throws SQLException if the query cannot be started.
+     */
+    Stream<BorrowRecord> streamAll() throws SQLException;
+
+    /**
+     * Inserts many borrow_records rows with JDBC batching, sending them in chunks of the configured batch size.
+     * @param records The rows to insert.
+     * @return The per-row outcome, in the iteration order of the collection.
+     * @throws SQLException if a database error occurs outside of a batch chunk.
+     */
+    BatchResult saveAll(Collection<BorrowRecord> records) throws SQLException;
+
+    /**
+     * Updates many borrow_records rows with JDBC batching, sending them in chunks of the configured batch size.
+     * @param records The rows to update, matched by ID.
+     * @return The per-row outcome, in the iteration order of the collection.
+     * @throws SQLException if a database error occurs outside of a batch chunk.
+     */
+    BatchResult updateAll(Collection<BorrowRecord> records) throws SQLException;
+
+    /**
+     * Writes the return date and fine of a record, but only while it is still on loan.
+     * @param record The record to close, with its returnDate and fine already set.
+     * @return true if this call closed the loan; false if it was already returned or does not exist.
+     * @throws SQLException if a database error occurs.
+     */
+    boolean tryReturn(BorrowRecord record) throws SQLException;
+
+    /**
+     * Writes the return date and fine of many records in one JDBC batch, but only for records
+     * that are still on loan, so a book scanned twice is not returned twice.
+     * @param records The records to close, with their returnDate and fine already set.
+     * @return The per-record outcome, in the iteration order of the collection; a success means this call closed the loan.
+     * @throws SQLException if a database error occurs outside of a batch chunk.
+     */
+    BatchResult tryReturnAll(Collection<BorrowRecord> records) throws SQLException;
 }
@@ -0,0 +1,36 @@
+package org.example.dao;
+
+/**
+ * The sort orders supported when paging through borrow records.
+ */
+public enum BorrowRecordSort implements PageSort {
+    ID_ASC("record_id", false),
+    ID_DESC("record_id", true),
+    BORROW_DATE_ASC("borrow_date", false),
+    BORROW_DATE_DESC("borrow_date", true),
+    USER_ID_ASC("user_id", false),
+    USER_ID_DESC("user_id", true);
+
+    private final String column;
+    private final boolean descending;
+
+    BorrowRecordSort(String column, boolean descending) {
+        this.column = column;
+        this.descending = descending;
+    }
+
+    @Override
+    public String column() {
+        return column;
+    }
+
+    @Override
+    public String idColumn() {
+        return "record_id";
+    }
+
+    @Override
+    public boolean descending() {
+        return descending;
+    }
+}
@@ -0,0 +1,54 @@
+package org.example.dao;
+
+import org.example.entity.ChangeLogEntry;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Reads the change_log table that the DAO write methods append to.
+ * Every insert, update and delete of a book, user or borrow record adds one entry in the same
+ * transaction as the write, so an entry becomes visible exactly when its write commits.
+ */
+public interface ChangeLogDAO {
+
+    /**
+     * @param afterSeq The last sequence number already seen, or 0 for all retained changes.
+     * @param limit The maximum number of entries to return.
+     * @return The entries with a higher sequence number, in sequence order.
+     * @throws SQLException if a database error occurs.
+     */
+    List<ChangeLogEntry> findAfter(long afterSeq, int limit) throws SQLException;
+
+    /**
+     * Looks up entries by sequence number, e.g. the holes a reader is still waiting on.
+     * @param seqs The sequence numbers to look up.
+     * @return The entries that exist, in sequence order.
+     * @throws SQLException if a database error occurs.
+     */
+    List<ChangeLogEntry> findBySeqs(Collection<Long> seqs) throws SQLException;
+
+    /**
+     * @return The highest sequence number written so far, or 0 if the log is empty.
+     * @throws SQLException if a database error occurs.
+     */
+    long findLatestSeq() throws SQLException;
+
+    /**
+     * Measures how long the oldest transaction still open on the server has been running.
+     * A sequence number missing from the log can only still be committed by a transaction at least that old.
+     * Reading information_schema.innodb_trx needs the PROCESS privilege.
+     *
+     * @return The age in seconds by the database clock, or null if no transaction is open.
+     * @throws SQLException if a database error occurs, including a missing privilege.
+     */
+    Long findOldestOpenTransactionAgeSeconds() throws SQLException;
+
+    /**
+     * Removes the entries written more than the given number of hours ago.
+     * @return The number of entries removed.
+     * @throws SQLException if a database error occurs.
+     */
+    int deleteOlderThan(int hours) throws SQLException;
+}
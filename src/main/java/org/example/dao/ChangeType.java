@@ -0,0 +1,10 @@
+package org.example.dao;
+
+/**
+ * The kind of write recorded for a row in the change_log table.
+ */
+public enum ChangeType {
+    INSERT,
+    UPDATE,
+    DELETE
+}
@@ -0,0 +1,21 @@
+package org.example.dao;
+
+import java.sql.SQLException;
+
+/**
+ * An unchecked wrapper for a SQLException raised where checked exceptions cannot be thrown,
+ * such as while a Stream returned by a DAO is being consumed.
+ */
+public class DataAccessException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public DataAccessException(SQLException cause) {
+        super(cause.getMessage(), cause);
+    }
+
+    @Override
+    public synchronized SQLException getCause() {
+        return (SQLException) super.getCause();
+    }
+}
@@ -0,0 +1,39 @@
+package org.example.dao;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset-paginated query.
+ * nextKey is the position to pass back as afterKey to fetch the following page,
+ * or null when this is the last page.
+ *
+ * @param <T> The type of the items on the page.
+ */
+@Data
+@AllArgsConstructor
+public class Page<T> {
+    private List<T> items;
+    private PageKey nextKey;
+
+    public boolean hasMore() {
+        return nextKey != null;
+    }
+
+    /**
+     * Converts the items of this page, keeping the same continuation key.
+     * @param mapper The conversion to apply to each item.
+     * @return A new page holding the converted items.
+     */
+    public <R> Page<R> map(Function<? super T, ? extends R> mapper) {
+        List<R> mapped = new ArrayList<>(items.size());
+        for (T item : items) {
+            mapped.add(mapper.apply(item));
+        }
+        return new Page<>(mapped, nextKey);
+    }
+}
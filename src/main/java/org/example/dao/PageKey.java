@@ -0,0 +1,15 @@
+package org.example.dao;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * The seek position of a keyset-paginated query: the sort value and ID of the last row already seen.
+ * The next page starts strictly after this row, so fetching any page costs the same no matter how deep it is.
+ */
+@Data
+@AllArgsConstructor
+public class PageKey {
+    private Object sortValue;
+    private String id;
+}
@@ -0,0 +1,18 @@
+package org.example.dao;
+
+/**
+ * Describes a sort order that keyset pagination can seek on.
+ * Rows are ordered by the sort column and then by the unique ID column, so every row has a distinct position.
+ * The seek key is read from those columns of the last row, not from the mapped object,
+ * so one sort order serves every projection of the table.
+ */
+public interface PageSort {
+
+    /** The SQL column (or expression) to sort by. */
+    String column();
+
+    /** The unique ID column used to break ties. */
+    String idColumn();
+
+    boolean descending();
+}
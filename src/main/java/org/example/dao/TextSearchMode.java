@@ -0,0 +1,15 @@
+package org.example.dao;
+
+/**
+ * How a full-text catalog search combines the words of a query.
+ */
+public enum TextSearchMode {
+    /**
+     * Every word must start a word of the title, author or genre (MySQL boolean mode, "+word*").
+     */
+    ALL_WORDS,
+    /**
+     * Any word may match; rows sharing more and rarer words rank first (MySQL natural-language mode).
+     */
+    ANY_WORD
+}
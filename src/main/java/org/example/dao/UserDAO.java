@@ -1,21 +1,88 @@
 package org.example.dao;
 
+import org.example.dto.UserDTO;
+import org.example.dto.UserSummaryDTO;
 import org.example.entity.User;
 
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * The Data Access Object interface for User-related database operations.
  * This version includes the method for auto-generating User IDs.
+ * findAll and findPage return the immutable UserDTO read model; every other method works on the User entity.
  */
 public interface UserDAO {
     boolean save(User user) throws SQLException;
     boolean update(User user) throws SQLException;
     boolean delete(String userId) throws SQLException;
     User findById(String userId) throws SQLException;
-    List<User> findAll() throws SQLException;
+
+    /**
+     * Loads many users by primary key with IN-list queries instead of one query per ID.
+     * IDs that do not exist are simply missing from the result.
+     * @param userIds The IDs to look up.
+     * @return The matching users, in no particular order.
+     * @throws SQLException if a database error occurs.
+     */
+    List<User> findByIds(Collection<String> userIds) throws SQLException;
+    List<UserDTO> findAll() throws SQLException;
     User findByUsernameAndPassword(String username, String password) throws SQLException;
 
+    /**
+     * Locks a member's row with SELECT ... FOR UPDATE until the current transaction ends.
+     * Checkouts take this lock before counting the member's loans, so two desks cannot both pass the limit check.
+     * Must be called inside TransactionManager.inTransaction; in autocommit mode the lock is released at once.
+     * @param userId The ID of the member.
+     * @return true if the member exists and is now locked.
+     * @throws SQLException if a database error occurs, e.g. a lock wait timeout.
+     */
+    boolean lockForUpdate(String userId) throws SQLException;
+
     String generateNextId() throws SQLException;
+
+    /**
+     * Fetches one page of users using keyset pagination, so the cost per page stays flat at any depth.
+     * @param afterKey The nextKey of the previous page, or null for the first page.
+     * @param limit The maximum number of rows to return.
+     * @param sort The order to page through.
+     * @return The page of results.
+     * @throws SQLException if a database error occurs.
+     */
+    Page<UserDTO> findPage(PageKey afterKey, int limit, UserSort sort) throws SQLException;
+
+    /**
+     * Streams every row of the users table once, without loading the table into memory.
+     * The stream holds a database connection until it is closed, so always use try-with-resources.
+     * Errors raised while consuming it are thrown as DataAccessException.
+     * @return A stream over all users.
+     * @throws SQLException if the query cannot be started.
+     */
+    Stream<User> streamAll() throws SQLException;
+
+    /**
+     * Streams the ID and name of every user, read from the name index alone, for building lookups.
+     * Like streamAll, the stream must be closed and reports errors as DataAccessException.
+     * @return A stream over all users' summaries.
+     * @throws SQLException if the query cannot be started.
+     */
+    Stream<UserSummaryDTO> streamSummaries() throws SQLException;
+
+    /**
+     * Inserts many users rows with JDBC batching, sending them in chunks of the configured batch size.
+     * @param users The rows to insert.
+     * @return The per-row outcome, in the iteration order of the collection.
+     * @throws SQLException if a database error occurs outside of a batch chunk.
+     */
+    BatchResult saveAll(Collection<User> users) throws SQLException;
+
+    /**
+     * Updates many users rows with JDBC batching, sending them in chunks of the configured batch size.
+     * @param users The rows to update, matched by ID.
+     * @return The per-row outcome, in the iteration order of the collection.
+     * @throws SQLException if a database error occurs outside of a batch chunk.
+     */
+    BatchResult updateAll(Collection<User> users) throws SQLException;
 }
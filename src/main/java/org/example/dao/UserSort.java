@@ -0,0 +1,36 @@
+package org.example.dao;
+
+/**
+ * The sort orders supported when paging through users.
+ */
+public enum UserSort implements PageSort {
+    ID_ASC("user_id", false),
+    ID_DESC("user_id", true),
+    NAME_ASC("name", false),
+    NAME_DESC("name", true),
+    USERNAME_ASC("username", false),
+    USERNAME_DESC("username", true);
+
+    private final String column;
+    private final boolean descending;
+
+    UserSort(String column, boolean descending) {
+        this.column = column;
+        this.descending = descending;
+    }
+
+    @Override
+    public String column() {
+        return column;
+    }
+
+    @Override
+    public String idColumn() {
+        return "user_id";
+    }
+
+    @Override
+    public boolean descending() {
+        return descending;
+    }
+}
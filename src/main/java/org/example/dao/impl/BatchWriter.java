@@ -0,0 +1,127 @@
+package org.example.dao.impl;
+
+import org.example.dao.BatchResult;
+import org.example.db.DBConnection;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Writes many rows with one prepared statement using addBatch/executeBatch.
+ * Rows are sent in chunks of the configured batch size; with rewriteBatchedStatements enabled
+ * the driver turns each chunk of INSERTs into a single multi-row statement.
+ * A failing chunk is recorded in the result and the remaining chunks are still sent,
+ * so callers that need all-or-nothing should run inside TransactionManager.inTransaction.
+ * A ChunkListener runs after every chunk on the same connection, e.g. to record the changed rows
+ * in the change_log table; outside a transaction each chunk is then committed together with its listener's writes.
+ */
+final class BatchWriter {
+
+    private BatchWriter() {
+    }
+
+    /**
+     * Binds the parameters of one row.
+     */
+    @FunctionalInterface
+    interface ParameterBinder<T> {
+        void bind(PreparedStatement pstm, T item) throws SQLException;
+    }
+
+    /**
+     * Receives every chunk once it has been sent, with the counts of its rows.
+     */
+    @FunctionalInterface
+    interface ChunkListener<T> {
+        /**
+         * @param counts The counts of the whole batch; the chunk's rows start at offset.
+         */
+        void written(Connection connection, List<T> chunk, int[] counts, int offset) throws SQLException;
+    }
+
+    static <T> BatchResult write(String sql, Collection<? extends T> items, ParameterBinder<T> binder) throws SQLException {
+        return write(sql, items, binder, null);
+    }
+
+    static <T> BatchResult write(String sql, Collection<? extends T> items, ParameterBinder<T> binder,
+                                 ChunkListener<T> listener) throws SQLException {
+        DBConnection dbConnection = DBConnection.getInstance();
+        int chunkSize = Math.max(1, dbConnection.getBatchSize());
+        int[] counts = new int[items.size()];
+        List<SQLException> failures = new ArrayList<>();
+        if (items.isEmpty()) {
+            return new BatchResult(counts, failures);
+        }
+
+        try (Connection connection = dbConnection.getConnection();
+             PreparedStatement pstm = connection.prepareStatement(sql)) {
+            boolean commitPerChunk = listener != null && connection.getAutoCommit();
+            if (commitPerChunk) {
+                connection.setAutoCommit(false);
+            }
+            try {
+                List<T> chunk = new ArrayList<>(Math.min(chunkSize, items.size()));
+                int chunkStart = 0;
+                for (T item : items) {
+                    binder.bind(pstm, item);
+                    pstm.addBatch();
+                    chunk.add(item);
+                    if (chunk.size() == chunkSize) {
+                        executeChunk(pstm, counts, chunkStart, chunk.size(), failures);
+                        afterChunk(connection, chunk, counts, chunkStart, listener, commitPerChunk);
+                        chunkStart += chunk.size();
+                        chunk.clear();
+                    }
+                }
+                if (!chunk.isEmpty()) {
+                    executeChunk(pstm, counts, chunkStart, chunk.size(), failures);
+                    afterChunk(connection, chunk, counts, chunkStart, listener, commitPerChunk);
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (commitPerChunk) {
+                    connection.rollback();
+                }
+                throw e;
+            } finally {
+                if (commitPerChunk) {
+                    connection.setAutoCommit(true);
+                }
+            }
+        }
+        return new BatchResult(counts, failures);
+    }
+
+    private static <T> void afterChunk(Connection connection, List<T> chunk, int[] counts, int offset,
+                                       ChunkListener<T> listener, boolean commit) throws SQLException {
+        if (listener != null) {
+            listener.written(connection, chunk, counts, offset);
+        }
+        if (commit) {
+            connection.commit();
+        }
+    }
+
+    private static void executeChunk(PreparedStatement pstm, int[] counts, int offset, int length,
+                                     List<SQLException> failures) throws SQLException {
+        try {
+            int[] chunkCounts = pstm.executeBatch();
+            System.arraycopy(chunkCounts, 0, counts, offset, Math.min(length, chunkCounts.length));
+        } catch (BatchUpdateException e) {
+            // The driver reports counts for the rows it got through; everything after them failed.
+            int[] partial = e.getUpdateCounts() != null ? e.getUpdateCounts() : new int[0];
+            int reported = Math.min(length, partial.length);
+            System.arraycopy(partial, 0, counts, offset, reported);
+            Arrays.fill(counts, offset + reported, offset + length, Statement.EXECUTE_FAILED);
+            failures.add(e);
+        } finally {
+            pstm.clearBatch();
+        }
+    }
+}
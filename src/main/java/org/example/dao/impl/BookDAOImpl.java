@@ -1,7 +1,16 @@
 package org.example.dao.impl;
 
+import org.example.dao.BatchResult;
 import org.example.dao.BookDAO;
+import org.example.dao.BookSort;
+import org.example.dao.ChangeType;
+import org.example.dao.Page;
+import org.example.dao.PageKey;
+import org.example.dao.TextSearchMode;
 import org.example.db.DBConnection;
+import org.example.db.IdAllocator;
+import org.example.dto.BookDTO;
+import org.example.dto.BookSummaryDTO;
 import org.example.entity.Book;
 
 import java.sql.Connection;
@@ -9,105 +18,145 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 public class BookDAOImpl implements BookDAO {
 
+    // IDs come from a hi/lo block reserved in the id_sequences table, not from scanning the table.
+    private static final IdAllocator ID_ALLOCATOR = new IdAllocator("books", "B", "books", "book_id");
+
+    // Every query selects exactly these columns in this order, so BOOK_MAPPER reads them by position
+    // instead of looking up each column label on every row.
+    private static final String COLUMNS = "book_id, isbn, title, author, genre, availability";
+    private static final RowMapper<Book> BOOK_MAPPER = BookDAOImpl::buildBookFromResultSet;
+    // List, page and search reads map rows straight into the immutable DTO the services return,
+    // so those rows are never copied from an entity first.
+    private static final RowMapper<BookDTO> BOOK_DTO_MAPPER = BookDAOImpl::buildBookDTOFromResultSet;
+    // The projection behind pickers and the available-books report. The covering index
+    // idx_books_available_summary (see SchemaInitializer) answers the list and page queries on its own.
+    private static final String SUMMARY_COLUMNS = "book_id, title, author";
+    private static final RowMapper<BookSummaryDTO> SUMMARY_MAPPER = BookDAOImpl::buildBookSummaryFromResultSet;
+
+    private static final String INSERT_SQL = "INSERT INTO books (book_id, isbn, title, author, genre, availability) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_SQL = "UPDATE books SET isbn = ?, title = ?, author = ?, genre = ?, availability = ? WHERE book_id = ?";
+    private static final String SET_AVAILABILITY_IF_SQL = "UPDATE books SET availability = ? WHERE book_id = ? AND availability = ?";
+    private static final String DELETE_SQL = "DELETE FROM books WHERE book_id = ?";
+
+    // Every write below is recorded in change_log, for ChangeFeed readers on this and other clients.
+    private static final ChangeLog CHANGES = new ChangeLog("books");
+
+    // The column list must match the FULLTEXT index created by SchemaInitializer.
+    private static final String FULLTEXT_COLUMNS = "MATCH (title, author, genre)";
+    // InnoDB's default innodb_ft_min_token_size; shorter words are not in the index.
+    private static final int MIN_FULLTEXT_WORD_LENGTH = 3;
+    // search selects the relevance right after COLUMNS.
+    private static final int RELEVANCE_COLUMN = 7;
+    // Book IDs are a letter and a number (see IdAllocator). A typed ID is matched as a primary-key prefix,
+    // which the FULLTEXT index cannot do, and ranked above any natural-language relevance.
+    private static final Pattern BOOK_ID_SHAPE = Pattern.compile("[A-Za-z]\\d+");
+    private static final Pattern ID_PREFIX_CHARS = Pattern.compile("[A-Za-z0-9]+");
+    private static final double ID_MATCH_RELEVANCE = 1.0E9;
+
     @Override
-    public List<Book> findAvailableBooks() throws SQLException {
-        Connection connection = DBConnection.getInstance().getConnection();
-        String sql = "SELECT * FROM books WHERE availability = true";
-        List<Book> books = new ArrayList<>();
-        try (PreparedStatement pstm = connection.prepareStatement(sql);
+    public List<BookDTO> findAvailableBooks() throws SQLException {
+        String sql = "SELECT " + COLUMNS + " FROM books WHERE availability = true";
+        List<BookDTO> books = new ArrayList<>();
+        try (Connection connection = DBConnection.getInstance().getConnection();
+             PreparedStatement pstm = connection.prepareStatement(sql);
              ResultSet resultSet = pstm.executeQuery()) {
             while (resultSet.next()) {
-                books.add(new Book(
-                        resultSet.getString("book_id"),
-                        resultSet.getString("isbn"),
-                        resultSet.getString("title"),
-                        resultSet.getString("author"),
-                        resultSet.getString("genre"),
-                        resultSet.getBoolean("availability")
-                ));
+                books.add(buildBookDTOFromResultSet(resultSet));
             }
         }
         return books;
     }
 
     // --- All other methods from the previous version remain unchanged ---
+    @Override
+    public boolean tryCheckout(String bookId) throws SQLException {
+        return setAvailabilityIf(bookId, true, false);
+    }
+
+    @Override
+    public boolean tryCheckin(String bookId) throws SQLException {
+        return setAvailabilityIf(bookId, false, true);
+    }
+
+    @Override
+    public BatchResult tryCheckoutAll(Collection<String> bookIds) throws SQLException {
+        return setAvailabilityIfAll(bookIds, true, false);
+    }
+
+    @Override
+    public BatchResult tryCheckinAll(Collection<String> bookIds) throws SQLException {
+        return setAvailabilityIfAll(bookIds, false, true);
+    }
+
+    private BatchResult setAvailabilityIfAll(Collection<String> bookIds, boolean expected, boolean newValue) throws SQLException {
+        return CHANGES.writeAll(SET_AVAILABILITY_IF_SQL, ChangeType.UPDATE, bookIds, Function.identity(), (pstm, bookId) -> {
+            pstm.setBoolean(1, newValue);
+            pstm.setString(2, bookId);
+            pstm.setBoolean(3, expected);
+        });
+    }
+
+    /**
+     * Flips the availability flag only when it still holds the expected value (compare-and-set).
+     * The WHERE clause makes the check and the write one atomic statement.
+     */
+    private boolean setAvailabilityIf(String bookId, boolean expected, boolean newValue) throws SQLException {
+        return CHANGES.write(SET_AVAILABILITY_IF_SQL, ChangeType.UPDATE, bookId, Function.identity(), (pstm, id) -> {
+            pstm.setBoolean(1, newValue);
+            pstm.setString(2, id);
+            pstm.setBoolean(3, expected);
+        });
+    }
+
     @Override
     public String generateNextId() throws SQLException {
-        Connection connection = DBConnection.getInstance().getConnection();
-        String sql = "SELECT book_id FROM books ORDER BY CAST(SUBSTRING(book_id, 2) AS UNSIGNED) DESC LIMIT 1";
-        try (PreparedStatement pstm = connection.prepareStatement(sql)) {
-            ResultSet resultSet = pstm.executeQuery();
-            if (resultSet.next()) {
-                String lastId = resultSet.getString(1);
-                int num = Integer.parseInt(lastId.substring(1));
-                num++;
-                return String.format("B%03d", num);
-            } else {
-                return "B001";
-            }
-        }
+        return ID_ALLOCATOR.nextId();
     }
 
     @Override
     public boolean save(Book book) throws SQLException {
-        Connection connection = DBConnection.getInstance().getConnection();
-        String sql = "INSERT INTO books (book_id, isbn, title, author, genre, availability) VALUES (?, ?, ?, ?, ?, ?)";
-        try (PreparedStatement pstm = connection.prepareStatement(sql)) {
-            pstm.setString(1, book.getBookId());
-            pstm.setString(2, book.getIsbn());
-            pstm.setString(3, book.getTitle());
-            pstm.setString(4, book.getAuthor());
-            pstm.setString(5, book.getGenre());
-            pstm.setBoolean(6, book.isAvailability());
-            return pstm.executeUpdate() > 0;
-        }
+        return CHANGES.write(INSERT_SQL, ChangeType.INSERT, book, Book::getBookId, this::bindInsert);
+    }
+
+    @Override
+    public BatchResult saveAll(Collection<Book> books) throws SQLException {
+        return CHANGES.writeAll(INSERT_SQL, ChangeType.INSERT, books, Book::getBookId, this::bindInsert);
     }
 
     @Override
     public boolean update(Book book) throws SQLException {
-        Connection connection = DBConnection.getInstance().getConnection();
-        String sql = "UPDATE books SET isbn = ?, title = ?, author = ?, genre = ?, availability = ? WHERE book_id = ?";
-        try (PreparedStatement pstm = connection.prepareStatement(sql)) {
-            pstm.setString(1, book.getIsbn());
-            pstm.setString(2, book.getTitle());
-            pstm.setString(3, book.getAuthor());
-            pstm.setString(4, book.getGenre());
-            pstm.setBoolean(5, book.isAvailability());
-            pstm.setString(6, book.getBookId());
-            return pstm.executeUpdate() > 0;
-        }
+        return CHANGES.write(UPDATE_SQL, ChangeType.UPDATE, book, Book::getBookId, this::bindUpdate);
+    }
+
+    @Override
+    public BatchResult updateAll(Collection<Book> books) throws SQLException {
+        return CHANGES.writeAll(UPDATE_SQL, ChangeType.UPDATE, books, Book::getBookId, this::bindUpdate);
     }
 
     @Override
     public boolean delete(String bookId) throws SQLException {
-        Connection connection = DBConnection.getInstance().getConnection();
-        String sql = "DELETE FROM books WHERE book_id = ?";
-        try (PreparedStatement pstm = connection.prepareStatement(sql)) {
-            pstm.setString(1, bookId);
-            return pstm.executeUpdate() > 0;
-        }
+        return CHANGES.write(DELETE_SQL, ChangeType.DELETE, bookId, Function.identity(), (pstm, id) -> pstm.setString(1, id));
     }
 
     @Override
     public Book findById(String bookId) throws SQLException {
-        Connection connection = DBConnection.getInstance().getConnection();
-        String sql = "SELECT * FROM books WHERE book_id = ?";
-        try (PreparedStatement pstm = connection.prepareStatement(sql)) {
+        String sql = "SELECT " + COLUMNS + " FROM books WHERE book_id = ?";
+        try (Connection connection = DBConnection.getInstance().getConnection();
+             PreparedStatement pstm = connection.prepareStatement(sql)) {
             pstm.setString(1, bookId);
             try (ResultSet resultSet = pstm.executeQuery()) {
                 if (resultSet.next()) {
-                    return new Book(
-                            resultSet.getString("book_id"),
-                            resultSet.getString("isbn"),
-                            resultSet.getString("title"),
-                            resultSet.getString("author"),
-                            resultSet.getString("genre"),
-                            resultSet.getBoolean("availability")
-                    );
+                    return buildBookFromResultSet(resultSet);
                 }
             }
         }
@@ -115,23 +164,300 @@ public class BookDAOImpl implements BookDAO {
     }
 
     @Override
-    public List<Book> findAll() throws SQLException {
-        Connection connection = DBConnection.getInstance().getConnection();
-        String sql = "SELECT * FROM books";
-        List<Book> books = new ArrayList<>();
-        try (PreparedStatement pstm = connection.prepareStatement(sql);
+    public List<Book> findByIds(Collection<String> bookIds) throws SQLException {
+        // The IN list is split into chunks of the batch size to keep each statement a reasonable size.
+        int chunkSize = Math.max(1, DBConnection.getInstance().getBatchSize());
+        List<String> ids = new ArrayList<>(bookIds);
+        List<Book> books = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            List<String> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+            String sql = "SELECT " + COLUMNS + " FROM books WHERE book_id IN (" + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+            try (Connection connection = DBConnection.getInstance().getConnection();
+                 PreparedStatement pstm = connection.prepareStatement(sql)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    pstm.setString(i + 1, chunk.get(i));
+                }
+                try (ResultSet resultSet = pstm.executeQuery()) {
+                    while (resultSet.next()) {
+                        books.add(buildBookFromResultSet(resultSet));
+                    }
+                }
+            }
+        }
+        return books;
+    }
+
+    @Override
+    public List<BookDTO> findAll() throws SQLException {
+        String sql = "SELECT " + COLUMNS + " FROM books";
+        List<BookDTO> books = new ArrayList<>();
+        try (Connection connection = DBConnection.getInstance().getConnection();
+             PreparedStatement pstm = connection.prepareStatement(sql);
+             ResultSet resultSet = pstm.executeQuery()) {
+            while (resultSet.next()) {
+                books.add(buildBookDTOFromResultSet(resultSet));
+            }
+        }
+        return books;
+    }
+
+    @Override
+    public Stream<Book> streamAll() throws SQLException {
+        return ResultSetStreams.stream("SELECT " + COLUMNS + " FROM books", BOOK_MAPPER);
+    }
+
+    @Override
+    public Page<BookDTO> findPage(PageKey afterKey, int limit, BookSort sort) throws SQLException {
+        return KeysetPager.fetch("books", COLUMNS, null, sort, afterKey, limit, BOOK_DTO_MAPPER);
+    }
+
+    @Override
+    public Page<BookDTO> findAvailablePage(PageKey afterKey, int limit, BookSort sort) throws SQLException {
+        return KeysetPager.fetch("books", COLUMNS, "availability = true", sort, afterKey, limit, BOOK_DTO_MAPPER);
+    }
+
+    @Override
+    public List<BookSummaryDTO> findAvailableSummaries() throws SQLException {
+        String sql = "SELECT " + SUMMARY_COLUMNS + " FROM books WHERE availability = true";
+        List<BookSummaryDTO> books = new ArrayList<>();
+        try (Connection connection = DBConnection.getInstance().getConnection();
+             PreparedStatement pstm = connection.prepareStatement(sql);
              ResultSet resultSet = pstm.executeQuery()) {
             while (resultSet.next()) {
-                books.add(new Book(
-                        resultSet.getString("book_id"),
-                        resultSet.getString("isbn"),
-                        resultSet.getString("title"),
-                        resultSet.getString("author"),
-                        resultSet.getString("genre"),
-                        resultSet.getBoolean("availability")
-                ));
+                books.add(buildBookSummaryFromResultSet(resultSet));
             }
         }
         return books;
     }
+
+    @Override
+    public Page<BookSummaryDTO> findAvailableSummaryPage(PageKey afterKey, int limit, BookSort sort) throws SQLException {
+        return KeysetPager.fetch("books", SUMMARY_COLUMNS, "availability = true", sort, afterKey, limit, SUMMARY_MAPPER);
+    }
+
+    /**
+     * Filters on availability in the query itself, so the limit is never spent on books that are out.
+     */
+    @Override
+    public List<BookSummaryDTO> searchAvailableSummaries(String query, int limit) throws SQLException {
+        List<String> words = fullTextWords(query);
+        String idPrefix = bookIdPrefix(query, words);
+        List<BookSummaryDTO> books = new ArrayList<>();
+        if ((words.isEmpty() && idPrefix == null) || limit < 1) {
+            return books;
+        }
+        List<Object> params = new ArrayList<>();
+        String sql = "SELECT " + SUMMARY_COLUMNS + " FROM "
+                + rankedMatches(SUMMARY_COLUMNS, "availability = true", words, TextSearchMode.ALL_WORDS, idPrefix, params)
+                + " ORDER BY relevance DESC, book_id LIMIT ?";
+        params.add(limit);
+        try (Connection connection = DBConnection.getInstance().getConnection();
+             PreparedStatement pstm = connection.prepareStatement(sql)) {
+            for (int i = 0; i < params.size(); i++) {
+                pstm.setObject(i + 1, params.get(i));
+            }
+            try (ResultSet resultSet = pstm.executeQuery()) {
+                while (resultSet.next()) {
+                    books.add(buildBookSummaryFromResultSet(resultSet));
+                }
+            }
+        }
+        return books;
+    }
+
+    /**
+     * Filters with the requested mode and always ranks with natural-language relevance, so both modes
+     * return the best matches first. The relevance is computed in a derived table so the keyset
+     * condition on it can be applied to the next page. A typed book ID is matched as an ID prefix
+     * and ranked above every text match.
+     */
+    @Override
+    public Page<BookDTO> search(String query, TextSearchMode mode, int limit, PageKey afterKey) throws SQLException {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Page limit must be positive: " + limit);
+        }
+        List<String> words = fullTextWords(query);
+        String idPrefix = bookIdPrefix(query, words);
+        if (words.isEmpty() && idPrefix == null) {
+            return new Page<>(new ArrayList<>(), null);
+        }
+
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT " + COLUMNS + ", relevance FROM ")
+                .append(rankedMatches(COLUMNS, null, words, mode, idPrefix, params));
+        if (afterKey != null) {
+            sql.append(" WHERE (relevance < ? OR (relevance = ? AND book_id > ?))");
+            double relevance = ((Number) afterKey.getSortValue()).doubleValue();
+            params.add(relevance);
+            params.add(relevance);
+            params.add(afterKey.getId());
+        }
+        sql.append(" ORDER BY relevance DESC, book_id LIMIT ?");
+        // One extra row tells us whether another page follows.
+        params.add(limit + 1);
+
+        List<BookDTO> items = new ArrayList<>(Math.min(limit + 1, 1024));
+        List<Double> relevances = new ArrayList<>(Math.min(limit + 1, 1024));
+        try (Connection connection = DBConnection.getInstance().getConnection();
+             PreparedStatement pstm = connection.prepareStatement(sql.toString())) {
+            for (int i = 0; i < params.size(); i++) {
+                pstm.setObject(i + 1, params.get(i));
+            }
+            try (ResultSet resultSet = pstm.executeQuery()) {
+                while (resultSet.next()) {
+                    items.add(buildBookDTOFromResultSet(resultSet));
+                    relevances.add(resultSet.getDouble(RELEVANCE_COLUMN));
+                }
+            }
+        }
+
+        PageKey nextKey = null;
+        if (items.size() > limit) {
+            items.remove(limit);
+            nextKey = new PageKey(relevances.get(limit - 1), items.get(limit - 1).getBookId());
+        }
+        return new Page<>(items, nextKey);
+    }
+
+    @Override
+    public long countAll() throws SQLException {
+        try (Connection connection = DBConnection.getInstance().getConnection();
+             PreparedStatement pstm = connection.prepareStatement("SELECT COUNT(*) FROM books");
+             ResultSet resultSet = pstm.executeQuery()) {
+            return resultSet.next() ? resultSet.getLong(1) : 0;
+        }
+    }
+
+    /**
+     * Splits a query into the words the FULLTEXT index can match, lower-cased.
+     */
+    private static List<String> fullTextWords(String query) {
+        List<String> words = new ArrayList<>();
+        for (String word : query.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (word.length() >= MIN_FULLTEXT_WORD_LENGTH) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Returns the LIKE pattern for the book ID typed in the query, or null if no ID was typed.
+     * A token shaped like an ID (a letter and digits, e.g. "B0042") is always used; a query too short
+     * for the FULLTEXT index falls back to an ID-prefix match instead of finding nothing.
+     */
+    private static String bookIdPrefix(String query, List<String> words) {
+        for (String token : query.trim().split("[^\\p{L}\\p{N}]+")) {
+            if (BOOK_ID_SHAPE.matcher(token).matches()) {
+                return token.toUpperCase(Locale.ROOT) + "%";
+            }
+        }
+        String token = query.trim();
+        if (words.isEmpty() && !token.isEmpty() && ID_PREFIX_CHARS.matcher(token).matches()) {
+            return token.toUpperCase(Locale.ROOT) + "%";
+        }
+        return null;
+    }
+
+    /**
+     * Builds the derived table "ranked" of search and searchAvailableSummaries, with a relevance column:
+     * FULLTEXT matches ranked by natural-language relevance, and books whose ID starts with idPrefix,
+     * ranked above them through the primary key. Either branch is left out when it has nothing to match.
+     * A book that is in both branches is listed once, as an ID match.
+     * @param condition An extra condition for both branches without placeholders, or null.
+     * @param params Receives the values of the placeholders, in order.
+     */
+    private static String rankedMatches(String columns, String condition, List<String> words, TextSearchMode mode,
+                                        String idPrefix, List<Object> params) {
+        String extra = condition == null ? "" : " AND " + condition;
+        List<String> branches = new ArrayList<>(2);
+        if (!words.isEmpty()) {
+            String rankText = String.join(" ", words);
+            StringBuilder text = new StringBuilder("SELECT " + columns + ", ")
+                    .append(FULLTEXT_COLUMNS).append(" AGAINST (? IN NATURAL LANGUAGE MODE) AS relevance FROM books WHERE ");
+            params.add(rankText);
+            if (mode == TextSearchMode.ALL_WORDS) {
+                text.append(FULLTEXT_COLUMNS).append(" AGAINST (? IN BOOLEAN MODE)");
+                params.add(allWordsPrefixQuery(words));
+            } else {
+                text.append(FULLTEXT_COLUMNS).append(" AGAINST (? IN NATURAL LANGUAGE MODE)");
+                params.add(rankText);
+            }
+            text.append(extra);
+            if (idPrefix != null) {
+                text.append(" AND book_id NOT LIKE ?");
+                params.add(idPrefix);
+            }
+            branches.add(text.toString());
+        }
+        if (idPrefix != null) {
+            branches.add("SELECT " + columns + ", " + ID_MATCH_RELEVANCE + " AS relevance FROM books WHERE book_id LIKE ?" + extra);
+            params.add(idPrefix);
+        }
+        return "(" + String.join(" UNION ALL ", branches) + ") ranked";
+    }
+
+    /**
+     * A boolean-mode query in which every word is required and may be a prefix.
+     */
+    private static String allWordsPrefixQuery(List<String> words) {
+        return "+" + String.join("* +", words) + "*";
+    }
+
+    /**
+     * Maps a row selected with COLUMNS; the positions follow that list.
+     */
+    private static Book buildBookFromResultSet(ResultSet resultSet) throws SQLException {
+        return new Book(
+                resultSet.getString(1),  // book_id
+                resultSet.getString(2),  // isbn
+                resultSet.getString(3),  // title
+                resultSet.getString(4),  // author
+                resultSet.getString(5),  // genre
+                resultSet.getBoolean(6)  // availability
+        );
+    }
+
+    /**
+     * Maps a row selected with SUMMARY_COLUMNS.
+     */
+    private static BookSummaryDTO buildBookSummaryFromResultSet(ResultSet resultSet) throws SQLException {
+        return new BookSummaryDTO(
+                resultSet.getString(1),  // book_id
+                resultSet.getString(2),  // title
+                resultSet.getString(3)   // author
+        );
+    }
+
+    /**
+     * Maps a row selected with COLUMNS into the read model.
+     */
+    private static BookDTO buildBookDTOFromResultSet(ResultSet resultSet) throws SQLException {
+        return new BookDTO(
+                resultSet.getString(1),
+                resultSet.getString(2),
+                resultSet.getString(3),
+                resultSet.getString(4),
+                resultSet.getString(5),
+                resultSet.getBoolean(6)
+        );
+    }
+
+    private void bindInsert(PreparedStatement pstm, Book book) throws SQLException {
+        pstm.setString(1, book.getBookId());
+        pstm.setString(2, book.getIsbn());
+        pstm.setString(3, book.getTitle());
+        pstm.setString(4, book.getAuthor());
+        pstm.setString(5, book.getGenre());
+        pstm.setBoolean(6, book.isAvailability());
+    }
+
+    private void bindUpdate(PreparedStatement pstm, Book book) throws SQLException {
+        pstm.setString(1, book.getIsbn());
+        pstm.setString(2, book.getTitle());
+        pstm.setString(3, book.getAuthor());
+        pstm.setString(4, book.getGenre());
+        pstm.setBoolean(5, book.isAvailability());
+        pstm.setString(6, book.getBookId());
+    }
 }
@@ -1,7 +1,14 @@
 package org.example.dao.impl;
 
+import org.example.dao.BatchResult;
 import org.example.dao.BorrowRecordDAO;
+import org.example.dao.BorrowRecordSort;
+import org.example.dao.ChangeType;
+import org.example.dao.Page;
+import org.example.dao.PageKey;
 import org.example.db.DBConnection;
+import org.example.db.IdAllocator;
+import org.example.dto.BorrowRecordDTO;
 import org.example.entity.BorrowRecord;
 
 import java.sql.Connection;
@@ -11,7 +18,12 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * The concrete implementation of the BorrowRecordDAO interface.
@@ -19,45 +31,80 @@ import java.util.List;
  */
 public class BorrowRecordDAOImpl implements BorrowRecordDAO {
 
+    // IDs come from a hi/lo block reserved in the id_sequences table, not from scanning the table.
+    private static final IdAllocator ID_ALLOCATOR = new IdAllocator("borrow_records", "R", "borrow_records", "record_id");
+
+    // Every query selects exactly these columns in this order, so RECORD_MAPPER reads them by position
+    // instead of looking up each column label on every row.
+    private static final String COLUMNS = "record_id, user_id, book_id, borrow_date, return_date, fine, is_fine_paid";
+    private static final RowMapper<BorrowRecord> RECORD_MAPPER = BorrowRecordDAOImpl::buildBorrowRecordFromResultSet;
+    // The list and page reads behind the loan and report tables build the service's DTO directly;
+    // RECORD_MAPPER is left for the lookups that feed returns and other writes.
+    private static final RowMapper<BorrowRecordDTO> RECORD_DTO_MAPPER = BorrowRecordDAOImpl::buildBorrowRecordDTOFromResultSet;
+
+    private static final String INSERT_SQL = "INSERT INTO borrow_records (record_id, user_id, book_id, borrow_date, return_date, fine, is_fine_paid) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_SQL = "UPDATE borrow_records SET user_id = ?, book_id = ?, borrow_date = ?, return_date = ?, fine = ?, is_fine_paid = ? WHERE record_id = ?";
+    // Inserts the loan only while the user is below the limit; the count and the insert are one statement.
+    private static final String INSERT_UNDER_LIMIT_SQL = "INSERT INTO borrow_records (record_id, user_id, book_id, borrow_date, return_date, fine, is_fine_paid) "
+            + "SELECT ?, ?, ?, ?, ?, ?, ? FROM DUAL "
+            + "WHERE (SELECT COUNT(*) FROM borrow_records WHERE user_id = ? AND return_date IS NULL) < ?";
+    // The select list of findOverdue: the accrued fine replaces the stored one, at the same position as in COLUMNS.
+    private static final String OVERDUE_COLUMNS = "record_id, user_id, book_id, borrow_date, return_date, "
+            + "(DATEDIFF(?, borrow_date) - ?) * ? AS fine, is_fine_paid";
+    private static final String RETURN_IF_ON_LOAN_SQL = "UPDATE borrow_records SET return_date = ?, fine = ? WHERE record_id = ? AND return_date IS NULL";
+
+    // Every write below is recorded in change_log, for ChangeFeed readers on this and other clients.
+    private static final ChangeLog CHANGES = new ChangeLog("borrow_records");
+
     @Override
     public boolean save(BorrowRecord record) throws SQLException {
-        Connection connection = DBConnection.getInstance().getConnection();
-        String sql = "INSERT INTO borrow_records (record_id, user_id, book_id, borrow_date, return_date, fine, is_fine_paid) VALUES (?, ?, ?, ?, ?, ?, ?)";
-        try (PreparedStatement pstm = connection.prepareStatement(sql)) {
-            pstm.setString(1, record.getRecordId());
-            pstm.setString(2, record.getUserId());
-            pstm.setString(3, record.getBookId());
-            pstm.setDate(4, Date.valueOf(record.getBorrowDate()));
-            pstm.setDate(5, record.getReturnDate() != null ? Date.valueOf(record.getReturnDate()) : null);
-            pstm.setDouble(6, record.getFine());
-            pstm.setBoolean(7, record.isFinePaid()); // Set the new field
-            return pstm.executeUpdate() > 0;
-        }
+        return CHANGES.write(INSERT_SQL, ChangeType.INSERT, record, BorrowRecord::getRecordId, this::bindInsert);
+    }
+
+    @Override
+    public BatchResult saveAll(Collection<BorrowRecord> records) throws SQLException {
+        return CHANGES.writeAll(INSERT_SQL, ChangeType.INSERT, records, BorrowRecord::getRecordId, this::bindInsert);
+    }
+
+    @Override
+    public boolean saveIfUnderLimit(BorrowRecord record, int limit) throws SQLException {
+        return CHANGES.write(INSERT_UNDER_LIMIT_SQL, ChangeType.INSERT, record, BorrowRecord::getRecordId,
+                (pstm, item) -> bindInsertUnderLimit(pstm, item, limit));
+    }
+
+    @Override
+    public BatchResult saveAllUnderLimit(Collection<BorrowRecord> records, int limit) throws SQLException {
+        return CHANGES.writeAll(INSERT_UNDER_LIMIT_SQL, ChangeType.INSERT, records, BorrowRecord::getRecordId,
+                (pstm, record) -> bindInsertUnderLimit(pstm, record, limit));
     }
 
     @Override
     public boolean update(BorrowRecord record) throws SQLException {
-        Connection connection = DBConnection.getInstance().getConnection();
-        String sql = "UPDATE borrow_records SET user_id = ?, book_id = ?, borrow_date = ?, return_date = ?, fine = ?, is_fine_paid = ? WHERE record_id = ?";
-        try (PreparedStatement pstm = connection.prepareStatement(sql)) {
-            pstm.setString(1, record.getUserId());
-            pstm.setString(2, record.getBookId());
-            pstm.setDate(3, Date.valueOf(record.getBorrowDate()));
-            pstm.setDate(4, record.getReturnDate() != null ? Date.valueOf(record.getReturnDate()) : null);
-            pstm.setDouble(5, record.getFine());
-            pstm.setBoolean(6, record.isFinePaid()); // Set the new field
-            pstm.setString(7, record.getRecordId());
-            return pstm.executeUpdate() > 0;
-        }
+        return CHANGES.write(UPDATE_SQL, ChangeType.UPDATE, record, BorrowRecord::getRecordId, this::bindUpdate);
+    }
+
+    @Override
+    public BatchResult updateAll(Collection<BorrowRecord> records) throws SQLException {
+        return CHANGES.writeAll(UPDATE_SQL, ChangeType.UPDATE, records, BorrowRecord::getRecordId, this::bindUpdate);
+    }
+
+    @Override
+    public boolean tryReturn(BorrowRecord record) throws SQLException {
+        return CHANGES.write(RETURN_IF_ON_LOAN_SQL, ChangeType.UPDATE, record, BorrowRecord::getRecordId, this::bindReturn);
+    }
+
+    @Override
+    public BatchResult tryReturnAll(Collection<BorrowRecord> records) throws SQLException {
+        return CHANGES.writeAll(RETURN_IF_ON_LOAN_SQL, ChangeType.UPDATE, records, BorrowRecord::getRecordId, this::bindReturn);
     }
 
     // --- Other methods remain unchanged, but their helper method is updated ---
 
     @Override
     public int getActiveBorrowCountForUser(String userId) throws SQLException {
-        Connection connection = DBConnection.getInstance().getConnection();
         String sql = "SELECT COUNT(*) FROM borrow_records WHERE user_id = ? AND return_date IS NULL";
-        try (PreparedStatement pstm = connection.prepareStatement(sql)) {
+        try (Connection connection = DBConnection.getInstance().getConnection();
+             PreparedStatement pstm = connection.prepareStatement(sql)) {
             pstm.setString(1, userId);
             try (ResultSet resultSet = pstm.executeQuery()) {
                 if (resultSet.next()) {
@@ -68,11 +115,51 @@ public class BorrowRecordDAOImpl implements BorrowRecordDAO {
         return 0;
     }
 
+    @Override
+    public Map<String, Integer> countActiveBorrowsByUser() throws SQLException {
+        String sql = "SELECT user_id, COUNT(*) FROM borrow_records WHERE return_date IS NULL GROUP BY user_id";
+        Map<String, Integer> counts = new HashMap<>();
+        try (Connection connection = DBConnection.getInstance().getConnection();
+             PreparedStatement pstm = connection.prepareStatement(sql);
+             ResultSet resultSet = pstm.executeQuery()) {
+            while (resultSet.next()) {
+                counts.put(resultSet.getString(1), resultSet.getInt(2));
+            }
+        }
+        return counts;
+    }
+
+    @Override
+    public List<BorrowRecordDTO> findActiveBorrows() throws SQLException {
+        String sql = "SELECT " + COLUMNS + " FROM borrow_records WHERE return_date IS NULL ORDER BY borrow_date";
+        return findRecords(sql, RECORD_DTO_MAPPER);
+    }
+
+    @Override
+    public List<BorrowRecordDTO> findOverdue(LocalDate asOf, int lendingPeriodDays, double finePerDay) throws SQLException {
+        // "borrow_date < asOf - period" is the same test as "days borrowed > period" but can use the index.
+        String sql = "SELECT " + OVERDUE_COLUMNS + " "
+                + "FROM borrow_records WHERE return_date IS NULL AND borrow_date < ? ORDER BY borrow_date";
+        return findRecords(sql, RECORD_DTO_MAPPER, Date.valueOf(asOf), lendingPeriodDays, finePerDay, Date.valueOf(asOf.minusDays(lendingPeriodDays)));
+    }
+
+    @Override
+    public List<BorrowRecordDTO> findByUser(String userId) throws SQLException {
+        String sql = "SELECT " + COLUMNS + " FROM borrow_records WHERE user_id = ? ORDER BY borrow_date DESC";
+        return findRecords(sql, RECORD_DTO_MAPPER, userId);
+    }
+
+    @Override
+    public List<BorrowRecordDTO> findUnpaidFines() throws SQLException {
+        String sql = "SELECT " + COLUMNS + " FROM borrow_records WHERE is_fine_paid = false AND fine > 0 ORDER BY return_date";
+        return findRecords(sql, RECORD_DTO_MAPPER);
+    }
+
     @Override
     public BorrowRecord findById(String recordId) throws SQLException {
-        Connection connection = DBConnection.getInstance().getConnection();
-        String sql = "SELECT * FROM borrow_records WHERE record_id = ?";
-        try (PreparedStatement pstm = connection.prepareStatement(sql)) {
+        String sql = "SELECT " + COLUMNS + " FROM borrow_records WHERE record_id = ?";
+        try (Connection connection = DBConnection.getInstance().getConnection();
+             PreparedStatement pstm = connection.prepareStatement(sql)) {
             pstm.setString(1, recordId);
             try (ResultSet resultSet = pstm.executeQuery()) {
                 if (resultSet.next()) {
@@ -84,14 +171,28 @@ public class BorrowRecordDAOImpl implements BorrowRecordDAO {
     }
 
     @Override
-    public List<BorrowRecord> findAll() throws SQLException {
-        Connection connection = DBConnection.getInstance().getConnection();
-        String sql = "SELECT * FROM borrow_records";
-        List<BorrowRecord> records = new ArrayList<>();
-        try (PreparedStatement pstm = connection.prepareStatement(sql);
+    public List<BorrowRecord> findByIds(Collection<String> recordIds) throws SQLException {
+        // The IN list is split into chunks of the batch size to keep each statement a reasonable size.
+        int chunkSize = Math.max(1, DBConnection.getInstance().getBatchSize());
+        List<String> ids = new ArrayList<>(recordIds);
+        List<BorrowRecord> records = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            List<String> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+            String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+            records.addAll(findRecords("SELECT " + COLUMNS + " FROM borrow_records WHERE record_id IN (" + placeholders + ")", RECORD_MAPPER, chunk.toArray()));
+        }
+        return records;
+    }
+
+    @Override
+    public List<BorrowRecordDTO> findAll() throws SQLException {
+        String sql = "SELECT " + COLUMNS + " FROM borrow_records";
+        List<BorrowRecordDTO> records = new ArrayList<>();
+        try (Connection connection = DBConnection.getInstance().getConnection();
+             PreparedStatement pstm = connection.prepareStatement(sql);
              ResultSet resultSet = pstm.executeQuery()) {
             while (resultSet.next()) {
-                records.add(buildBorrowRecordFromResultSet(resultSet));
+                records.add(buildBorrowRecordDTOFromResultSet(resultSet));
             }
         }
         return records;
@@ -99,37 +200,124 @@ public class BorrowRecordDAOImpl implements BorrowRecordDAO {
 
     @Override
     public String generateNextId() throws SQLException {
-        Connection connection = DBConnection.getInstance().getConnection();
-        String sql = "SELECT record_id FROM borrow_records ORDER BY CAST(SUBSTRING(record_id, 2) AS UNSIGNED) DESC LIMIT 1";
-        try (PreparedStatement pstm = connection.prepareStatement(sql)) {
-            ResultSet resultSet = pstm.executeQuery();
-            if (resultSet.next()) {
-                String lastId = resultSet.getString(1);
-                int num = Integer.parseInt(lastId.substring(1));
-                num++;
-                return String.format("R%03d", num);
-            } else {
-                return "R001";
+        return ID_ALLOCATOR.nextId();
+    }
+
+    @Override
+    public Stream<BorrowRecord> streamAll() throws SQLException {
+        return ResultSetStreams.stream("SELECT " + COLUMNS + " FROM borrow_records", RECORD_MAPPER);
+    }
+
+    @Override
+    public Page<BorrowRecordDTO> findPage(PageKey afterKey, int limit, BorrowRecordSort sort) throws SQLException {
+        return KeysetPager.fetch("borrow_records", COLUMNS, null, sort, afterKey, limit, RECORD_DTO_MAPPER);
+    }
+
+    @Override
+    public Page<BorrowRecordDTO> findActivePage(PageKey afterKey, int limit, BorrowRecordSort sort) throws SQLException {
+        return KeysetPager.fetch("borrow_records", COLUMNS, "return_date IS NULL", sort, afterKey, limit, RECORD_DTO_MAPPER);
+    }
+
+    @Override
+    public Page<BorrowRecordDTO> findOpenPage(PageKey afterKey, int limit, BorrowRecordSort sort) throws SQLException {
+        String filter = "(return_date IS NULL OR (is_fine_paid = false AND fine > 0))";
+        return KeysetPager.fetch("borrow_records", COLUMNS, filter, sort, afterKey, limit, RECORD_DTO_MAPPER);
+    }
+
+    @Override
+    public Page<BorrowRecordDTO> findOverduePage(LocalDate asOf, int lendingPeriodDays, double finePerDay,
+                                                 PageKey afterKey, int limit, BorrowRecordSort sort) throws SQLException {
+        List<Object> params = List.of(Date.valueOf(asOf), lendingPeriodDays, finePerDay, Date.valueOf(asOf.minusDays(lendingPeriodDays)));
+        return KeysetPager.fetch("borrow_records", OVERDUE_COLUMNS, "return_date IS NULL AND borrow_date < ?", params,
+                sort, afterKey, limit, RECORD_DTO_MAPPER);
+    }
+
+    @Override
+    public BorrowRecord findActiveByBook(String bookId) throws SQLException {
+        List<BorrowRecord> records = findRecords("SELECT " + COLUMNS + " FROM borrow_records WHERE book_id = ? AND return_date IS NULL LIMIT 1",
+                RECORD_MAPPER, bookId);
+        return records.isEmpty() ? null : records.get(0);
+    }
+
+    /**
+     * Runs a query with positional parameters and maps every row with the given mapper.
+     */
+    private <T> List<T> findRecords(String sql, RowMapper<T> mapper, Object... params) throws SQLException {
+        List<T> records = new ArrayList<>();
+        try (Connection connection = DBConnection.getInstance().getConnection();
+             PreparedStatement pstm = connection.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                pstm.setObject(i + 1, params[i]);
+            }
+            try (ResultSet resultSet = pstm.executeQuery()) {
+                while (resultSet.next()) {
+                    records.add(mapper.mapRow(resultSet));
+                }
             }
         }
+        return records;
     }
 
     /**
-     * Helper method to build a BorrowRecord object from a ResultSet row.
-     * This now includes reading the 'is_fine_paid' column.
+     * Maps a row selected with COLUMNS or OVERDUE_COLUMNS; the positions follow those lists.
+     * Dates are read straight into LocalDate, without an intermediate java.sql.Date per row.
      */
-    private BorrowRecord buildBorrowRecordFromResultSet(ResultSet resultSet) throws SQLException {
-        Date sqlReturnDate = resultSet.getDate("return_date");
-        LocalDate returnDate = (sqlReturnDate != null) ? sqlReturnDate.toLocalDate() : null;
-
+    private static BorrowRecord buildBorrowRecordFromResultSet(ResultSet resultSet) throws SQLException {
         return new BorrowRecord(
-                resultSet.getString("record_id"),
-                resultSet.getString("user_id"),
-                resultSet.getString("book_id"),
-                resultSet.getDate("borrow_date").toLocalDate(),
-                returnDate,
-                resultSet.getDouble("fine"),
-                resultSet.getBoolean("is_fine_paid") // Read the new field
+                resultSet.getString(1),                    // record_id
+                resultSet.getString(2),                    // user_id
+                resultSet.getString(3),                    // book_id
+                resultSet.getObject(4, LocalDate.class),   // borrow_date
+                resultSet.getObject(5, LocalDate.class),   // return_date
+                resultSet.getDouble(6),                    // fine
+                resultSet.getBoolean(7)                    // is_fine_paid
+        );
+    }
+
+    /**
+     * Maps a row selected with COLUMNS or OVERDUE_COLUMNS into the read model.
+     */
+    private static BorrowRecordDTO buildBorrowRecordDTOFromResultSet(ResultSet resultSet) throws SQLException {
+        return new BorrowRecordDTO(
+                resultSet.getString(1),
+                resultSet.getString(2),
+                resultSet.getString(3),
+                resultSet.getObject(4, LocalDate.class),
+                resultSet.getObject(5, LocalDate.class),
+                resultSet.getDouble(6),
+                resultSet.getBoolean(7)
         );
     }
+
+    private void bindInsert(PreparedStatement pstm, BorrowRecord record) throws SQLException {
+        pstm.setString(1, record.getRecordId());
+        pstm.setString(2, record.getUserId());
+        pstm.setString(3, record.getBookId());
+        pstm.setDate(4, Date.valueOf(record.getBorrowDate()));
+        pstm.setDate(5, record.getReturnDate() != null ? Date.valueOf(record.getReturnDate()) : null);
+        pstm.setDouble(6, record.getFine());
+        pstm.setBoolean(7, record.isFinePaid()); // Set the new field
+    }
+
+    private void bindInsertUnderLimit(PreparedStatement pstm, BorrowRecord record, int limit) throws SQLException {
+        bindInsert(pstm, record);
+        pstm.setString(8, record.getUserId());
+        pstm.setInt(9, limit);
+    }
+
+    private void bindUpdate(PreparedStatement pstm, BorrowRecord record) throws SQLException {
+        pstm.setString(1, record.getUserId());
+        pstm.setString(2, record.getBookId());
+        pstm.setDate(3, Date.valueOf(record.getBorrowDate()));
+        pstm.setDate(4, record.getReturnDate() != null ? Date.valueOf(record.getReturnDate()) : null);
+        pstm.setDouble(5, record.getFine());
+        pstm.setBoolean(6, record.isFinePaid()); // Set the new field
+        pstm.setString(7, record.getRecordId());
+    }
+
+    private void bindReturn(PreparedStatement pstm, BorrowRecord record) throws SQLException {
+        pstm.setDate(1, Date.valueOf(record.getReturnDate()));
+        pstm.setDouble(2, record.getFine());
+        pstm.setString(3, record.getRecordId());
+    }
 }
@@ -0,0 +1,115 @@
+package org.example.dao.impl;
+
+import org.example.dao.BatchResult;
+import org.example.dao.ChangeType;
+import org.example.db.DBConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Performs the writes of one table's DAO and appends an entry to the change_log table for every row
+ * they change. The entry is written on the same connection and committed with the row, inside the
+ * caller's transaction if there is one, so a reader of the log never sees a change before its write.
+ * Writes that match no row, e.g. a compare-and-set that lost, are not logged.
+ * Inside a transaction the entries are only inserted right before the commit, so a transaction that
+ * rolls back, e.g. a refused borrow, takes no sequence number and leaves no hole for ChangeFeed to wait on.
+ */
+final class ChangeLog {
+
+    private static final String INSERT_SQL = "INSERT INTO change_log (table_name, row_id, change_type) VALUES (?, ?, ?)";
+
+    private final String tableName;
+
+    /**
+     * @param tableName The table the DAO writes, as stored in change_log.table_name.
+     */
+    ChangeLog(String tableName) {
+        this.tableName = tableName;
+    }
+
+    /**
+     * Runs a single-row write and logs it if a row was changed.
+     * @return true if the statement changed a row.
+     */
+    <T> boolean write(String sql, ChangeType type, T item, Function<? super T, String> idOf,
+                      BatchWriter.ParameterBinder<T> binder) throws SQLException {
+        try (Connection connection = DBConnection.getInstance().getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            if (autoCommit) {
+                connection.setAutoCommit(false);
+            }
+            try {
+                boolean changed;
+                try (PreparedStatement pstm = connection.prepareStatement(sql)) {
+                    binder.bind(pstm, item);
+                    changed = pstm.executeUpdate() > 0;
+                }
+                if (changed) {
+                    record(connection, type, List.of(idOf.apply(item)));
+                }
+                if (autoCommit) {
+                    connection.commit();
+                }
+                return changed;
+            } catch (SQLException | RuntimeException e) {
+                if (autoCommit) {
+                    connection.rollback();
+                }
+                throw e;
+            } finally {
+                if (autoCommit) {
+                    connection.setAutoCommit(true);
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs a batch write with BatchWriter and logs the rows of every chunk that reported a change.
+     * A chunk rewritten by the driver reports no per-row counts; all its rows are logged then.
+     */
+    <T> BatchResult writeAll(String sql, ChangeType type, Collection<? extends T> items, Function<? super T, String> idOf,
+                             BatchWriter.ParameterBinder<T> binder) throws SQLException {
+        return BatchWriter.write(sql, items, binder, (connection, chunk, counts, offset) -> {
+            List<String> rowIds = new ArrayList<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                int count = counts[offset + i];
+                if (count > 0 || count == Statement.SUCCESS_NO_INFO) {
+                    rowIds.add(idOf.apply(chunk.get(i)));
+                }
+            }
+            record(connection, type, rowIds);
+        });
+    }
+
+    private void record(Connection connection, ChangeType type, List<String> rowIds) throws SQLException {
+        if (rowIds.isEmpty()) {
+            return;
+        }
+        DBConnection dbConnection = DBConnection.getInstance();
+        if (dbConnection.isConnectionBound()) {
+            dbConnection.beforeCommit(bound -> insert(bound, type, rowIds));
+        } else {
+            insert(connection, type, rowIds);
+        }
+    }
+
+    private void insert(Connection connection, ChangeType type, List<String> rowIds) throws SQLException {
+        try (PreparedStatement pstm = connection.prepareStatement(INSERT_SQL)) {
+            for (String rowId : rowIds) {
+                pstm.setString(1, tableName);
+                pstm.setString(2, rowId);
+                pstm.setString(3, type.name());
+                pstm.addBatch();
+            }
+            pstm.executeBatch();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package org.example.dao.impl;
+
+import org.example.dao.ChangeLogDAO;
+import org.example.db.DBConnection;
+import org.example.entity.ChangeLogEntry;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+public class ChangeLogDAOImpl implements ChangeLogDAO {
+
+    private static final String COLUMNS = "seq, table_name, row_id, change_type";
+
+    @Override
+    public List<ChangeLogEntry> findAfter(long afterSeq, int limit) throws SQLException {
+        String sql = "SELECT " + COLUMNS + " FROM change_log WHERE seq > ? ORDER BY seq LIMIT ?";
+        List<ChangeLogEntry> entries = new ArrayList<>();
+        try (Connection connection = DBConnection.getInstance().getConnection();
+             PreparedStatement pstm = connection.prepareStatement(sql)) {
+            pstm.setLong(1, afterSeq);
+            pstm.setInt(2, limit);
+            try (ResultSet resultSet = pstm.executeQuery()) {
+                while (resultSet.next()) {
+                    entries.add(buildEntryFromResultSet(resultSet));
+                }
+            }
+        }
+        return entries;
+    }
+
+    @Override
+    public List<ChangeLogEntry> findBySeqs(Collection<Long> seqs) throws SQLException {
+        // The IN list is split into chunks of the batch size to keep each statement a reasonable size.
+        int chunkSize = Math.max(1, DBConnection.getInstance().getBatchSize());
+        List<Long> sorted = new ArrayList<>(seqs);
+        Collections.sort(sorted);
+        List<ChangeLogEntry> entries = new ArrayList<>();
+        for (int from = 0; from < sorted.size(); from += chunkSize) {
+            List<Long> chunk = sorted.subList(from, Math.min(from + chunkSize, sorted.size()));
+            String sql = "SELECT " + COLUMNS + " FROM change_log WHERE seq IN ("
+                    + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ") ORDER BY seq";
+            try (Connection connection = DBConnection.getInstance().getConnection();
+                 PreparedStatement pstm = connection.prepareStatement(sql)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    pstm.setLong(i + 1, chunk.get(i));
+                }
+                try (ResultSet resultSet = pstm.executeQuery()) {
+                    while (resultSet.next()) {
+                        entries.add(buildEntryFromResultSet(resultSet));
+                    }
+                }
+            }
+        }
+        return entries;
+    }
+
+    @Override
+    public long findLatestSeq() throws SQLException {
+        try (Connection connection = DBConnection.getInstance().getConnection();
+             PreparedStatement pstm = connection.prepareStatement("SELECT COALESCE(MAX(seq), 0) FROM change_log");
+             ResultSet resultSet = pstm.executeQuery()) {
+            return resultSet.next() ? resultSet.getLong(1) : 0;
+        }
+    }
+
+    @Override
+    public Long findOldestOpenTransactionAgeSeconds() throws SQLException {
+        String sql = "SELECT TIMESTAMPDIFF(SECOND, MIN(trx_started), NOW()) FROM information_schema.innodb_trx";
+        try (Connection connection = DBConnection.getInstance().getConnection();
+             PreparedStatement pstm = connection.prepareStatement(sql);
+             ResultSet resultSet = pstm.executeQuery()) {
+            if (!resultSet.next()) {
+                return null;
+            }
+            long age = resultSet.getLong(1);
+            return resultSet.wasNull() ? null : age;
+        }
+    }
+
+    @Override
+    public int deleteOlderThan(int hours) throws SQLException {
+        String sql = "DELETE FROM change_log WHERE changed_at < NOW() - INTERVAL ? HOUR";
+        try (Connection connection = DBConnection.getInstance().getConnection();
+             PreparedStatement pstm = connection.prepareStatement(sql)) {
+            pstm.setInt(1, hours);
+            return pstm.executeUpdate();
+        }
+    }
+
+    private static ChangeLogEntry buildEntryFromResultSet(ResultSet resultSet) throws SQLException {
+        return new ChangeLogEntry(
+                resultSet.getLong(1),
+                resultSet.getString(2),
+                resultSet.getString(3),
+                resultSet.getString(4)
+        );
+    }
+}
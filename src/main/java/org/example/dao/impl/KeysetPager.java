@@ -0,0 +1,125 @@
+package org.example.dao.impl;
+
+import org.example.dao.Page;
+import org.example.dao.PageKey;
+import org.example.dao.PageSort;
+import org.example.db.DBConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds and runs keyset (seek) pagination queries for the DAOs.
+ * Instead of OFFSET, each page continues with "WHERE (sort, id) > (last sort, last id)",
+ * so the database seeks straight to the start of the page through the index.
+ * MySQL sorts NULLs first, which the seek condition takes into account for nullable sort columns.
+ * The sort and ID columns are selected again after the caller's columns, and the continuation key is read
+ * from them; a mapper reads its own columns by position and never sees them, so a projection that leaves
+ * out the sort column pages the same way as a full row.
+ */
+final class KeysetPager {
+
+    private KeysetPager() {
+    }
+
+    /**
+     * Fetches one page.
+     * @param table The table to read from.
+     * @param columns The select list.
+     * @param filter An optional fixed WHERE condition without parameters, or null.
+     * @param sort The sort order.
+     * @param afterKey The position of the last row of the previous page, or null for the first page.
+     * @param limit The maximum number of rows on the page.
+     * @param mapper Maps each row, reading the select list by position.
+     * @return The page, with a continuation key if more rows follow.
+     * @throws SQLException if a database error occurs.
+     */
+    static <T> Page<T> fetch(String table, String columns, String filter, PageSort sort,
+                             PageKey afterKey, int limit, RowMapper<T> mapper) throws SQLException {
+        return fetch(table, columns, filter, List.of(), sort, afterKey, limit, mapper);
+    }
+
+    /**
+     * Fetches one page of a query whose select list or filter has placeholders.
+     * @param filterParams The values of the placeholders in columns and filter, in that order.
+     */
+    static <T> Page<T> fetch(String table, String columns, String filter, List<?> filterParams, PageSort sort,
+                             PageKey afterKey, int limit, RowMapper<T> mapper) throws SQLException {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Page limit must be positive: " + limit);
+        }
+
+        String column = sort.column();
+        String idColumn = sort.idColumn();
+        boolean singleKey = column.equals(idColumn);
+        String direction = sort.descending() ? " DESC" : "";
+        String compare = sort.descending() ? " < " : " > ";
+
+        List<String> conditions = new ArrayList<>();
+        List<Object> params = new ArrayList<>(filterParams);
+        if (filter != null) {
+            conditions.add(filter);
+        }
+        if (afterKey != null) {
+            if (singleKey) {
+                conditions.add(idColumn + compare + "?");
+                params.add(afterKey.getId());
+            } else if (afterKey.getSortValue() == null) {
+                // The previous page ended inside the NULL group (first when ascending, last when descending).
+                conditions.add(sort.descending()
+                        ? "(" + column + " IS NULL AND " + idColumn + " < ?)"
+                        : "((" + column + " IS NULL AND " + idColumn + " > ?) OR " + column + " IS NOT NULL)");
+                params.add(afterKey.getId());
+            } else {
+                String seek = "(" + column + ", " + idColumn + ")" + compare + "(?, ?)";
+                conditions.add(sort.descending() ? "(" + seek + " OR " + column + " IS NULL)" : seek);
+                params.add(afterKey.getSortValue());
+                params.add(afterKey.getId());
+            }
+        }
+
+        StringBuilder sql = new StringBuilder("SELECT ").append(columns)
+                .append(", ").append(column).append(", ").append(idColumn)
+                .append(" FROM ").append(table);
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        sql.append(" ORDER BY ").append(column).append(direction);
+        if (!singleKey) {
+            sql.append(", ").append(idColumn).append(direction);
+        }
+        sql.append(" LIMIT ?");
+        // One extra row tells us whether another page follows without a COUNT query.
+        params.add(limit + 1);
+
+        List<T> items = new ArrayList<>(Math.min(limit + 1, 1024));
+        PageKey lastKey = null;
+        try (Connection connection = DBConnection.getInstance().getConnection();
+             PreparedStatement pstm = connection.prepareStatement(sql.toString())) {
+            for (int i = 0; i < params.size(); i++) {
+                pstm.setObject(i + 1, params.get(i));
+            }
+            try (ResultSet resultSet = pstm.executeQuery()) {
+                int keyColumn = resultSet.getMetaData().getColumnCount() - 1;
+                while (resultSet.next()) {
+                    items.add(mapper.mapRow(resultSet));
+                    if (items.size() == limit) {
+                        // The last row of this page, should another row follow it.
+                        lastKey = new PageKey(resultSet.getObject(keyColumn), resultSet.getString(keyColumn + 1));
+                    }
+                }
+            }
+        }
+
+        PageKey nextKey = null;
+        if (items.size() > limit) {
+            items.remove(limit);
+            nextKey = lastKey;
+        }
+        return new Page<>(items, nextKey);
+    }
+}
@@ -0,0 +1,95 @@
+package org.example.dao.impl;
+
+import org.example.dao.DataAccessException;
+import org.example.db.DBConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Exposes a forward-only, read-only ResultSet as a lazily populated Stream.
+ * Rows are fetched with the configured streaming fetch size and mapped one at a time,
+ * so heap use stays constant however large the table is.
+ * Closing the stream closes the ResultSet, the statement and the connection.
+ */
+final class ResultSetStreams {
+
+    private ResultSetStreams() {
+    }
+
+    /**
+     * Runs the query and returns its rows as a stream.
+     * The query uses its own connection, outside any transaction bound to the calling thread,
+     * because a MySQL connection cannot run other statements while a streamed result is open.
+     * @param sql The query to run.
+     * @param mapper Maps each row to an object.
+     * @return A stream that must be closed, preferably with try-with-resources.
+     * @throws SQLException if the query cannot be started.
+     */
+    static <T> Stream<T> stream(String sql, RowMapper<T> mapper) throws SQLException {
+        DBConnection dbConnection = DBConnection.getInstance();
+        Connection connection = dbConnection.getUnboundConnection();
+        PreparedStatement pstm = null;
+        ResultSet resultSet;
+        try {
+            pstm = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            pstm.setFetchSize(dbConnection.getStreamingFetchSize());
+            resultSet = pstm.executeQuery();
+        } catch (SQLException e) {
+            closeAll(e, null, pstm, connection);
+            throw e;
+        }
+
+        ResultSet rows = resultSet;
+        PreparedStatement statement = pstm;
+        Spliterator<T> spliterator = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                try {
+                    if (!rows.next()) {
+                        return false;
+                    }
+                    action.accept(mapper.mapRow(rows));
+                    return true;
+                } catch (SQLException e) {
+                    throw new DataAccessException(e);
+                }
+            }
+        };
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            SQLException failure = closeAll(null, rows, statement, connection);
+            if (failure != null) {
+                throw new DataAccessException(failure);
+            }
+        });
+    }
+
+    /**
+     * Closes each resource, collecting failures on the first exception instead of stopping.
+     */
+    private static SQLException closeAll(SQLException failure, AutoCloseable... resources) {
+        for (AutoCloseable resource : resources) {
+            if (resource == null) {
+                continue;
+            }
+            try {
+                resource.close();
+            } catch (Exception e) {
+                SQLException sqlException = e instanceof SQLException ? (SQLException) e : new SQLException(e);
+                if (failure == null) {
+                    failure = sqlException;
+                } else {
+                    failure.addSuppressed(sqlException);
+                }
+            }
+        }
+        return failure;
+    }
+}
@@ -0,0 +1,16 @@
+package org.example.dao.impl;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps the current row of a ResultSet to an object.
+ * The DAOs keep one mapper per entity in a constant and read columns by position, which matches
+ * the explicit select list each DAO declares, so no column label is resolved per row.
+ *
+ * @param <T> The type produced for each row.
+ */
+@FunctionalInterface
+interface RowMapper<T> {
+    T mapRow(ResultSet resultSet) throws SQLException;
+}
@@ -1,7 +1,15 @@
 package org.example.dao.impl;
 
+import org.example.dao.BatchResult;
+import org.example.dao.ChangeType;
+import org.example.dao.Page;
+import org.example.dao.PageKey;
 import org.example.dao.UserDAO;
+import org.example.dao.UserSort;
 import org.example.db.DBConnection;
+import org.example.db.IdAllocator;
+import org.example.dto.UserDTO;
+import org.example.dto.UserSummaryDTO;
 import org.example.entity.User;
 
 import java.sql.Connection;
@@ -11,7 +19,11 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * The concrete implementation of the UserDAO interface.
@@ -19,70 +31,61 @@ import java.util.List;
  */
 public class UserDAOImpl implements UserDAO {
 
+    // IDs come from a hi/lo block reserved in the id_sequences table, not from scanning the table.
+    private static final IdAllocator ID_ALLOCATOR = new IdAllocator("users", "U", "users", "user_id");
+
+    // Every query selects exactly these columns in this order, so USER_MAPPER reads them by position
+    // instead of looking up each column label on every row.
+    private static final String COLUMNS = "user_id, name, contact, membership_date, username, password";
+    private static final RowMapper<User> USER_MAPPER = UserDAOImpl::buildUserFromResultSet;
+    // findAll and findPage feed the user tables, so they build the UserDTO the service returns directly.
+    private static final RowMapper<UserDTO> USER_DTO_MAPPER = UserDAOImpl::buildUserDTOFromResultSet;
+    // InnoDB stores the primary key in every secondary index, so idx_users_name (name) covers this projection.
+    private static final String SUMMARY_COLUMNS = "user_id, name";
+
+    private static final String INSERT_SQL = "INSERT INTO users (user_id, name, contact, membership_date, username, password) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_SQL = "UPDATE users SET name = ?, contact = ?, membership_date = ?, username = ?, password = ? WHERE user_id = ?";
+    private static final String DELETE_SQL = "DELETE FROM users WHERE user_id = ?";
+
+    // Every write below is recorded in change_log, for ChangeFeed readers on this and other clients.
+    private static final ChangeLog CHANGES = new ChangeLog("users");
+
     @Override
     public String generateNextId() throws SQLException {
-        Connection connection = DBConnection.getInstance().getConnection();
-        // This robust query correctly sorts alphanumeric IDs (e.g., U009, U010, U011)
-        String sql = "SELECT user_id FROM users ORDER BY CAST(SUBSTRING(user_id, 2) AS UNSIGNED) DESC LIMIT 1";
-        try (PreparedStatement pstm = connection.prepareStatement(sql)) {
-            ResultSet resultSet = pstm.executeQuery();
-            if (resultSet.next()) {
-                String lastId = resultSet.getString(1);
-                int num = Integer.parseInt(lastId.substring(1));
-                num++;
-                return String.format("U%03d", num); // Formats to U002, U010, etc.
-            } else {
-                return "U001"; // If the table is empty
-            }
-        }
+        return ID_ALLOCATOR.nextId();
     }
 
     // --- All other CRUD and find methods remain unchanged ---
     @Override
     public boolean save(User user) throws SQLException {
-        Connection connection = DBConnection.getInstance().getConnection();
-        String sql = "INSERT INTO users (user_id, name, contact, membership_date, username, password) VALUES (?, ?, ?, ?, ?, ?)";
-        try (PreparedStatement pstm = connection.prepareStatement(sql)) {
-            pstm.setString(1, user.getUserId());
-            pstm.setString(2, user.getName());
-            pstm.setString(3, user.getContact());
-            pstm.setDate(4, user.getMembershipDate() != null ? Date.valueOf(user.getMembershipDate()) : null);
-            pstm.setString(5, user.getUsername());
-            pstm.setString(6, user.getPassword());
-            return pstm.executeUpdate() > 0;
-        }
+        return CHANGES.write(INSERT_SQL, ChangeType.INSERT, user, User::getUserId, this::bindInsert);
+    }
+
+    @Override
+    public BatchResult saveAll(Collection<User> users) throws SQLException {
+        return CHANGES.writeAll(INSERT_SQL, ChangeType.INSERT, users, User::getUserId, this::bindInsert);
     }
 
     @Override
     public boolean update(User user) throws SQLException {
-        Connection connection = DBConnection.getInstance().getConnection();
-        String sql = "UPDATE users SET name = ?, contact = ?, membership_date = ?, username = ?, password = ? WHERE user_id = ?";
-        try (PreparedStatement pstm = connection.prepareStatement(sql)) {
-            pstm.setString(1, user.getName());
-            pstm.setString(2, user.getContact());
-            pstm.setDate(3, user.getMembershipDate() != null ? Date.valueOf(user.getMembershipDate()) : null);
-            pstm.setString(4, user.getUsername());
-            pstm.setString(5, user.getPassword());
-            pstm.setString(6, user.getUserId());
-            return pstm.executeUpdate() > 0;
-        }
+        return CHANGES.write(UPDATE_SQL, ChangeType.UPDATE, user, User::getUserId, this::bindUpdate);
+    }
+
+    @Override
+    public BatchResult updateAll(Collection<User> users) throws SQLException {
+        return CHANGES.writeAll(UPDATE_SQL, ChangeType.UPDATE, users, User::getUserId, this::bindUpdate);
     }
 
     @Override
     public boolean delete(String userId) throws SQLException {
-        Connection connection = DBConnection.getInstance().getConnection();
-        String sql = "DELETE FROM users WHERE user_id = ?";
-        try (PreparedStatement pstm = connection.prepareStatement(sql)) {
-            pstm.setString(1, userId);
-            return pstm.executeUpdate() > 0;
-        }
+        return CHANGES.write(DELETE_SQL, ChangeType.DELETE, userId, Function.identity(), (pstm, id) -> pstm.setString(1, id));
     }
 
     @Override
     public User findById(String userId) throws SQLException {
-        Connection connection = DBConnection.getInstance().getConnection();
-        String sql = "SELECT * FROM users WHERE user_id = ?";
-        try (PreparedStatement pstm = connection.prepareStatement(sql)) {
+        String sql = "SELECT " + COLUMNS + " FROM users WHERE user_id = ?";
+        try (Connection connection = DBConnection.getInstance().getConnection();
+             PreparedStatement pstm = connection.prepareStatement(sql)) {
             pstm.setString(1, userId);
             try (ResultSet resultSet = pstm.executeQuery()) {
                 if (resultSet.next()) {
@@ -94,14 +97,49 @@ public class UserDAOImpl implements UserDAO {
     }
 
     @Override
-    public List<User> findAll() throws SQLException {
-        Connection connection = DBConnection.getInstance().getConnection();
-        String sql = "SELECT * FROM users";
-        List<User> users = new ArrayList<>();
-        try (PreparedStatement pstm = connection.prepareStatement(sql);
+    public boolean lockForUpdate(String userId) throws SQLException {
+        try (Connection connection = DBConnection.getInstance().getConnection();
+             PreparedStatement pstm = connection.prepareStatement("SELECT user_id FROM users WHERE user_id = ? FOR UPDATE")) {
+            pstm.setString(1, userId);
+            try (ResultSet resultSet = pstm.executeQuery()) {
+                return resultSet.next();
+            }
+        }
+    }
+
+    @Override
+    public List<User> findByIds(Collection<String> userIds) throws SQLException {
+        // The IN list is split into chunks of the batch size to keep each statement a reasonable size.
+        int chunkSize = Math.max(1, DBConnection.getInstance().getBatchSize());
+        List<String> ids = new ArrayList<>(userIds);
+        List<User> users = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            List<String> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+            String sql = "SELECT " + COLUMNS + " FROM users WHERE user_id IN (" + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+            try (Connection connection = DBConnection.getInstance().getConnection();
+                 PreparedStatement pstm = connection.prepareStatement(sql)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    pstm.setString(i + 1, chunk.get(i));
+                }
+                try (ResultSet resultSet = pstm.executeQuery()) {
+                    while (resultSet.next()) {
+                        users.add(buildUserFromResultSet(resultSet));
+                    }
+                }
+            }
+        }
+        return users;
+    }
+
+    @Override
+    public List<UserDTO> findAll() throws SQLException {
+        String sql = "SELECT " + COLUMNS + " FROM users";
+        List<UserDTO> users = new ArrayList<>();
+        try (Connection connection = DBConnection.getInstance().getConnection();
+             PreparedStatement pstm = connection.prepareStatement(sql);
              ResultSet resultSet = pstm.executeQuery()) {
             while (resultSet.next()) {
-                users.add(buildUserFromResultSet(resultSet));
+                users.add(buildUserDTOFromResultSet(resultSet));
             }
         }
         return users;
@@ -109,9 +147,9 @@ public class UserDAOImpl implements UserDAO {
 
     @Override
     public User findByUsernameAndPassword(String username, String password) throws SQLException {
-        Connection connection = DBConnection.getInstance().getConnection();
-        String sql = "SELECT * FROM users WHERE username = ? AND password = ?";
-        try (PreparedStatement pstm = connection.prepareStatement(sql)) {
+        String sql = "SELECT " + COLUMNS + " FROM users WHERE username = ? AND password = ?";
+        try (Connection connection = DBConnection.getInstance().getConnection();
+             PreparedStatement pstm = connection.prepareStatement(sql)) {
             pstm.setString(1, username);
             pstm.setString(2, password);
             try (ResultSet resultSet = pstm.executeQuery()) {
@@ -123,17 +161,66 @@ public class UserDAOImpl implements UserDAO {
         return null;
     }
 
-    private User buildUserFromResultSet(ResultSet resultSet) throws SQLException {
-        Date sqlMembershipDate = resultSet.getDate("membership_date");
-        LocalDate membershipDate = (sqlMembershipDate != null) ? sqlMembershipDate.toLocalDate() : null;
+    @Override
+    public Stream<User> streamAll() throws SQLException {
+        return ResultSetStreams.stream("SELECT " + COLUMNS + " FROM users", USER_MAPPER);
+    }
 
+    @Override
+    public Stream<UserSummaryDTO> streamSummaries() throws SQLException {
+        return ResultSetStreams.stream("SELECT " + SUMMARY_COLUMNS + " FROM users",
+                resultSet -> new UserSummaryDTO(resultSet.getString(1), resultSet.getString(2)));
+    }
+
+    @Override
+    public Page<UserDTO> findPage(PageKey afterKey, int limit, UserSort sort) throws SQLException {
+        return KeysetPager.fetch("users", COLUMNS, null, sort, afterKey, limit, USER_DTO_MAPPER);
+    }
+
+    /**
+     * Maps a row selected with COLUMNS; the positions follow that list.
+     * Dates are read straight into LocalDate, without an intermediate java.sql.Date per row.
+     */
+    private static User buildUserFromResultSet(ResultSet resultSet) throws SQLException {
         return new User(
-                resultSet.getString("user_id"),
-                resultSet.getString("name"),
-                resultSet.getString("contact"),
-                membershipDate,
-                resultSet.getString("username"),
-                resultSet.getString("password")
+                resultSet.getString(1),                    // user_id
+                resultSet.getString(2),                    // name
+                resultSet.getString(3),                    // contact
+                resultSet.getObject(4, LocalDate.class),   // membership_date
+                resultSet.getString(5),                    // username
+                resultSet.getString(6)                     // password
         );
     }
+
+    /**
+     * Maps a row selected with COLUMNS into the read model.
+     */
+    private static UserDTO buildUserDTOFromResultSet(ResultSet resultSet) throws SQLException {
+        return new UserDTO(
+                resultSet.getString(1),
+                resultSet.getString(2),
+                resultSet.getString(3),
+                resultSet.getObject(4, LocalDate.class),
+                resultSet.getString(5),
+                resultSet.getString(6)
+        );
+    }
+
+    private void bindInsert(PreparedStatement pstm, User user) throws SQLException {
+        pstm.setString(1, user.getUserId());
+        pstm.setString(2, user.getName());
+        pstm.setString(3, user.getContact());
+        pstm.setDate(4, user.getMembershipDate() != null ? Date.valueOf(user.getMembershipDate()) : null);
+        pstm.setString(5, user.getUsername());
+        pstm.setString(6, user.getPassword());
+    }
+
+    private void bindUpdate(PreparedStatement pstm, User user) throws SQLException {
+        pstm.setString(1, user.getName());
+        pstm.setString(2, user.getContact());
+        pstm.setDate(3, user.getMembershipDate() != null ? Date.valueOf(user.getMembershipDate()) : null);
+        pstm.setString(4, user.getUsername());
+        pstm.setString(5, user.getPassword());
+        pstm.setString(6, user.getUserId());
+    }
 }
@@ -0,0 +1,379 @@
+package org.example.db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A bounded JDBC connection pool.
+ * Connections handed out by borrow() are proxies; calling close() on them returns the
+ * physical connection to the pool instead of closing it.
+ * The pool validates connections on checkout, evicts idle and over-aged connections,
+ * and reports connections that are held longer than the leak detection threshold.
+ */
+public class ConnectionPool {
+
+    private static final Logger LOG = Logger.getLogger(ConnectionPool.class.getName());
+    private static final long[] WAIT_BUCKET_BOUNDS_MS = {1, 5, 10, 25, 50, 100, 250, 500, 1000, 5000};
+
+    private final PoolConfig config;
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<PooledEntry> idle = new LinkedBlockingDeque<>();
+    private final Set<PooledEntry> leased = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger total = new AtomicInteger();
+    private final AtomicInteger waiters = new AtomicInteger();
+    private final LongAdder borrowCount = new LongAdder();
+    private final LongAdder timeoutCount = new LongAdder();
+    private final LongAdder leakCount = new LongAdder();
+    private final LongAdder[] waitBuckets = new LongAdder[WAIT_BUCKET_BOUNDS_MS.length + 1];
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean shutdown;
+
+    /**
+     * Creates the pool and opens the minimum number of idle connections straight away,
+     * so that a wrong URL or password is reported at startup rather than on first use.
+     * @param config The pool settings.
+     * @throws SQLException if the initial connections cannot be opened.
+     */
+    public ConnectionPool(PoolConfig config) throws SQLException {
+        if (config.getMaxPoolSize() < 1 || config.getMinIdle() < 0 || config.getMinIdle() > config.getMaxPoolSize()) {
+            throw new IllegalArgumentException("Invalid pool size: minIdle=" + config.getMinIdle()
+                    + ", maxPoolSize=" + config.getMaxPoolSize());
+        }
+        this.config = config;
+        this.permits = new Semaphore(config.getMaxPoolSize(), true);
+        for (int i = 0; i < waitBuckets.length; i++) {
+            waitBuckets[i] = new LongAdder();
+        }
+
+        fillToMinIdle();
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "db-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = config.getHousekeepingIntervalMs();
+        housekeeper.scheduleWithFixedDelay(this::housekeep, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection, waiting up to the configured borrow timeout if all are in use.
+     * The caller must close the returned connection to give it back to the pool.
+     * @return A validated connection.
+     * @throws SQLTimeoutException if no connection became available in time.
+     * @throws SQLException if a new connection cannot be opened.
+     */
+    public Connection borrow() throws SQLException {
+        if (shutdown) {
+            throw new SQLException("The connection pool has been shut down.");
+        }
+
+        long start = System.nanoTime();
+        boolean acquired;
+        waiters.incrementAndGet();
+        try {
+            acquired = permits.tryAcquire(config.getBorrowTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection.", e);
+        } finally {
+            waiters.decrementAndGet();
+        }
+        recordWait(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+        if (!acquired) {
+            timeoutCount.increment();
+            throw new SQLTimeoutException("Timed out after " + config.getBorrowTimeoutMs()
+                    + " ms waiting for a database connection. " + getStats());
+        }
+
+        try {
+            PooledEntry entry = takeValidEntry();
+            entry.leasedAt = System.currentTimeMillis();
+            entry.leaseSite = config.getLeakDetectionThresholdMs() > 0 ? new Exception("Connection borrowed here") : null;
+            entry.leakReported = false;
+            leased.add(entry);
+            borrowCount.increment();
+            return entry.newHandle();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Takes a snapshot of the pool counters.
+     * @return The current pool statistics.
+     */
+    public PoolStats getStats() {
+        long[] counts = new long[waitBuckets.length];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = waitBuckets[i].sum();
+        }
+        return new PoolStats(
+                total.get(),
+                leased.size(),
+                idle.size(),
+                waiters.get(),
+                borrowCount.sum(),
+                timeoutCount.sum(),
+                leakCount.sum(),
+                WAIT_BUCKET_BOUNDS_MS.clone(),
+                counts
+        );
+    }
+
+    /**
+     * Closes all idle connections and stops the housekeeping thread.
+     * Connections that are still borrowed are closed as soon as they are returned.
+     */
+    public void shutdown() {
+        shutdown = true;
+        housekeeper.shutdownNow();
+        PooledEntry entry;
+        while ((entry = idle.pollFirst()) != null) {
+            destroy(entry);
+        }
+    }
+
+    // --- Helper Methods ---
+
+    private PooledEntry takeValidEntry() throws SQLException {
+        long now = System.currentTimeMillis();
+        PooledEntry entry;
+        while ((entry = idle.pollFirst()) != null) {
+            if (isExpired(entry, now) || !isValid(entry)) {
+                destroy(entry);
+                continue;
+            }
+            return entry;
+        }
+        return createEntry();
+    }
+
+    private PooledEntry createEntry() throws SQLException {
+        total.incrementAndGet();
+        try {
+            Connection physical = DriverManager.getConnection(config.getUrl(), config.toDriverProperties());
+            return new PooledEntry(physical);
+        } catch (SQLException | RuntimeException e) {
+            total.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private void release(PooledEntry entry) {
+        leased.remove(entry);
+        try {
+            if (shutdown || entry.broken || isExpired(entry, System.currentTimeMillis())) {
+                destroy(entry);
+            } else {
+                entry.reset();
+                entry.lastUsedAt = System.currentTimeMillis();
+                // LIFO keeps the most recently used (and therefore warmest) connections in circulation.
+                idle.offerFirst(entry);
+            }
+        } catch (SQLException e) {
+            destroy(entry);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void destroy(PooledEntry entry) {
+        total.decrementAndGet();
+        try {
+            entry.physical.close();
+        } catch (SQLException ignored) {
+            // The connection is being discarded anyway.
+        }
+    }
+
+    private boolean isExpired(PooledEntry entry, long now) {
+        return config.getMaxLifetimeMs() > 0 && now - entry.createdAt > config.getMaxLifetimeMs();
+    }
+
+    private boolean isValid(PooledEntry entry) {
+        try {
+            return entry.physical.isValid(config.getValidationTimeoutSeconds());
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void recordWait(long waitedMs) {
+        int bucket = 0;
+        while (bucket < WAIT_BUCKET_BOUNDS_MS.length && waitedMs > WAIT_BUCKET_BOUNDS_MS[bucket]) {
+            bucket++;
+        }
+        waitBuckets[bucket].increment();
+    }
+
+    private void fillToMinIdle() throws SQLException {
+        while (!shutdown && total.get() < config.getMinIdle()) {
+            PooledEntry entry = createEntry();
+            entry.lastUsedAt = System.currentTimeMillis();
+            idle.offerLast(entry);
+        }
+    }
+
+    /**
+     * Runs periodically on the housekeeping thread: evicts idle and over-aged connections,
+     * reports suspected leaks, and tops the pool back up to its minimum idle size.
+     */
+    private void housekeep() {
+        long now = System.currentTimeMillis();
+
+        for (PooledEntry entry : idle) {
+            boolean idleTooLong = config.getIdleTimeoutMs() > 0
+                    && now - entry.lastUsedAt > config.getIdleTimeoutMs()
+                    && total.get() > config.getMinIdle();
+            if ((idleTooLong || isExpired(entry, now)) && idle.remove(entry)) {
+                destroy(entry);
+            }
+        }
+
+        long leakThreshold = config.getLeakDetectionThresholdMs();
+        if (leakThreshold > 0) {
+            for (PooledEntry entry : leased) {
+                if (!entry.leakReported && now - entry.leasedAt > leakThreshold) {
+                    entry.leakReported = true;
+                    leakCount.increment();
+                    // The cause's stack trace shows where the connection was borrowed.
+                    reportError(new IllegalStateException("Possible connection leak: a connection has been held for "
+                            + (now - entry.leasedAt) + " ms.", entry.leaseSite));
+                }
+            }
+        }
+
+        try {
+            fillToMinIdle();
+        } catch (SQLException e) {
+            reportError(e);
+        }
+    }
+
+    /**
+     * Hands a problem found on the housekeeping thread, where no caller can receive it, to the configured handler.
+     */
+    private void reportError(Exception error) {
+        Consumer<Exception> handler = config.getErrorHandler();
+        if (handler != null) {
+            handler.accept(error);
+        } else {
+            LOG.log(Level.WARNING, error.getMessage(), error);
+        }
+    }
+
+    /**
+     * One physical connection together with its bookkeeping.
+     */
+    private final class PooledEntry {
+        private final Connection physical;
+        private final long createdAt = System.currentTimeMillis();
+        private final int defaultIsolation;
+        private volatile long lastUsedAt;
+        private volatile long leasedAt;
+        private volatile Exception leaseSite;
+        private volatile boolean leakReported;
+        private volatile boolean broken;
+
+        private PooledEntry(Connection physical) throws SQLException {
+            this.physical = physical;
+            this.defaultIsolation = physical.getTransactionIsolation();
+        }
+
+        private Connection newHandle() {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new LeaseHandler(this)
+            );
+        }
+
+        /**
+         * Undoes any session state a borrower may have left behind.
+         */
+        private void reset() throws SQLException {
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            if (physical.getTransactionIsolation() != defaultIsolation) {
+                physical.setTransactionIsolation(defaultIsolation);
+            }
+            if (physical.isReadOnly()) {
+                physical.setReadOnly(false);
+            }
+        }
+    }
+
+    /**
+     * Backs the proxy handed to borrowers. Each borrow gets its own handler, so a stale
+     * handle cannot touch the physical connection after it has been returned.
+     */
+    private final class LeaseHandler implements InvocationHandler {
+        private final PooledEntry entry;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private LeaseHandler(PooledEntry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (closed.compareAndSet(false, true)) {
+                        release(entry);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed.get() || entry.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled[" + entry.physical + "]";
+                default:
+                    break;
+            }
+
+            if (closed.get()) {
+                throw new SQLException("This connection has already been returned to the pool.");
+            }
+            try {
+                return method.invoke(entry.physical, args);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                // SQLState class 08 means the connection itself is gone; never hand it out again.
+                if (cause instanceof SQLException sqlException
+                        && sqlException.getSQLState() != null
+                        && sqlException.getSQLState().startsWith("08")) {
+                    entry.broken = true;
+                }
+                throw cause;
+            }
+        }
+    }
+}
@@ -1,53 +1,214 @@
 package org.example.db;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
-import java.util.Properties;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
- * Manages the database connection using the Singleton pattern.
- * This ensures that only one instance of the connection is created,
- * which is efficient and prevents resource leaks.
+ * Manages access to the database using the Singleton pattern.
+ * Connections are served from a bounded ConnectionPool, so callers must close
+ * every connection they obtain (preferably with try-with-resources) to return it to the pool.
  */
 public class DBConnection {
 
-    private static DBConnection dbConnection;
-    private final Connection connection;
+    private static volatile DBConnection dbConnection;
+    private final PoolConfig config;
+    private final ConnectionPool pool;
+    private final ThreadLocal<Connection> boundConnection = new ThreadLocal<>();
+    private final ThreadLocal<List<CommitAction>> beforeCommit = new ThreadLocal<>();
+
+    /**
+     * Work that must run on a transaction's connection only if, and just before, the transaction commits.
+     */
+    @FunctionalInterface
+    public interface CommitAction {
+        void run(Connection connection) throws SQLException;
+    }
 
     /**
      * Private constructor to prevent direct instantiation.
-     * It loads the MySQL driver and establishes a connection.
-     * @throws SQLException if a database access error occurs.
+     * It creates the connection pool with the default settings and makes sure
+     * the supporting tables and indexes exist.
+     * @throws SQLException if the initial connections cannot be established.
      */
     private DBConnection() throws SQLException {
-        // Define connection properties
-        String url = "jdbc:mysql://localhost:3306/library_db";
-        Properties props = new Properties();
-        props.setProperty("user", "root");
-        props.setProperty("password", "1234"); // <-- IMPORTANT: Set your MySQL password here
-
-        // Establish the connection
-        this.connection = DriverManager.getConnection(url, props);
+        this.config = new PoolConfig();
+        this.pool = new ConnectionPool(config);
+        try (Connection connection = pool.borrow()) {
+            new SchemaInitializer().initialize(connection);
+        } catch (SQLException e) {
+            pool.shutdown();
+            throw e;
+        }
     }
 
     /**
      * Provides the single instance of the DBConnection.
      * @return The singleton instance of DBConnection.
-     * @throws SQLException if the connection cannot be established.
+     * @throws SQLException if the connection pool cannot be created.
      */
     public static DBConnection getInstance() throws SQLException {
-        if (dbConnection == null) {
-            dbConnection = new DBConnection();
+        DBConnection instance = dbConnection;
+        if (instance == null) {
+            synchronized (DBConnection.class) {
+                if (dbConnection == null) {
+                    dbConnection = new DBConnection();
+                }
+                instance = dbConnection;
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Returns a database connection that must be closed after use.
+     * If the current thread has a bound connection (see bindConnection), that connection is
+     * returned instead, and closing it is a no-op so it stays open for the rest of the transaction.
+     * @return A connection from the pool, or the thread's bound connection.
+     * @throws SQLException if no connection could be obtained.
+     */
+    public Connection getConnection() throws SQLException {
+        Connection bound = boundConnection.get();
+        if (bound != null) {
+            return suppressClose(bound);
         }
-        return dbConnection;
+        return pool.borrow();
+    }
+
+    /**
+     * Returns a connection straight from the pool, ignoring any connection bound to the current thread.
+     * Use it for work that must commit independently of the caller's transaction.
+     * @return A connection from the pool that must be closed after use.
+     * @throws SQLException if no connection could be obtained.
+     */
+    public Connection getUnboundConnection() throws SQLException {
+        return pool.borrow();
     }
 
     /**
-     * Returns the active database connection.
-     * @return The active java.sql.Connection object.
+     * Borrows a connection and binds it to the current thread, so every DAO call made by
+     * this thread uses it until releaseBoundConnection is called.
+     * @return The bound connection.
+     * @throws SQLException if no connection could be obtained.
      */
-    public Connection getConnection() {
+    public Connection bindConnection() throws SQLException {
+        if (boundConnection.get() != null) {
+            throw new IllegalStateException("A connection is already bound to this thread.");
+        }
+        Connection connection = pool.borrow();
+        boundConnection.set(connection);
         return connection;
     }
+
+    /**
+     * Checks whether the current thread already has a bound connection, i.e. is inside a transaction.
+     * @return true if a connection is bound to the current thread.
+     */
+    public boolean isConnectionBound() {
+        return boundConnection.get() != null;
+    }
+
+    /**
+     * Defers an action until the current thread's transaction is about to commit.
+     * Actions run in the order they were added, on the bound connection; a rollback discards them.
+     * @param action The work to run before the commit.
+     * @throws IllegalStateException if no connection is bound to the current thread.
+     */
+    public void beforeCommit(CommitAction action) {
+        if (boundConnection.get() == null) {
+            throw new IllegalStateException("No connection is bound to this thread.");
+        }
+        List<CommitAction> actions = beforeCommit.get();
+        if (actions == null) {
+            actions = new ArrayList<>();
+            beforeCommit.set(actions);
+        }
+        actions.add(action);
+    }
+
+    /**
+     * Runs and forgets the actions deferred with beforeCommit. The caller commits right afterwards.
+     * @throws SQLException if an action fails; the caller must then roll back instead.
+     */
+    public void runBeforeCommit() throws SQLException {
+        List<CommitAction> actions = beforeCommit.get();
+        beforeCommit.remove();
+        if (actions != null) {
+            Connection connection = boundConnection.get();
+            for (CommitAction action : actions) {
+                action.run(connection);
+            }
+        }
+    }
+
+    /**
+     * Unbinds the current thread's connection and returns it to the pool.
+     * Any uncommitted work is rolled back by the pool.
+     */
+    public void releaseBoundConnection() {
+        Connection connection = boundConnection.get();
+        boundConnection.remove();
+        beforeCommit.remove(); // Left over only if the transaction rolled back.
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Returns a snapshot of the connection pool counters, for monitoring and sizing.
+     * @return The current pool statistics.
+     */
+    public PoolStats getPoolStats() {
+        return pool.getStats();
+    }
+
+    /**
+     * Returns the fetch size to use for queries that stream a whole table.
+     * @return The configured streaming fetch size.
+     */
+    public int getStreamingFetchSize() {
+        return config.getStreamingFetchSize();
+    }
+
+    /**
+     * Returns the number of rows sent per executeBatch call by the DAOs' batch writes.
+     * @return The configured batch size.
+     */
+    public int getBatchSize() {
+        return config.getBatchSize();
+    }
+
+    /**
+     * Closes the pool. Intended to be called once when the application exits.
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Wraps a connection so that close() does nothing.
+     */
+    private static Connection suppressClose(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("close")) {
+                        return null;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                }
+        );
+    }
 }
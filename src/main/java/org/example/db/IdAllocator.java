@@ -0,0 +1,121 @@
+package org.example.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates prefixed identifiers (e.g. B001, U042, R1234) with a hi/lo block scheme.
+ * Each JVM atomically reserves a block of numbers from the id_sequences table and then
+ * hands them out from memory, so generating an ID is O(1) and never collides across processes.
+ * Numbers left unused when the application exits are simply skipped.
+ */
+public class IdAllocator {
+
+    private static final int DEFAULT_BLOCK_SIZE = 50;
+
+    private final String sequenceName;
+    private final String prefix;
+    private final String table;
+    private final String idColumn;
+    private final int blockSize;
+    private volatile Block block = new Block(0, 0);
+
+    /**
+     * @param sequenceName The row name in id_sequences.
+     * @param prefix The letter put in front of every number.
+     * @param table The table whose existing IDs seed the sequence the first time it is used.
+     * @param idColumn The ID column of that table.
+     */
+    public IdAllocator(String sequenceName, String prefix, String table, String idColumn) {
+        this(sequenceName, prefix, table, idColumn, DEFAULT_BLOCK_SIZE);
+    }
+
+    public IdAllocator(String sequenceName, String prefix, String table, String idColumn, int blockSize) {
+        this.sequenceName = sequenceName;
+        this.prefix = prefix;
+        this.table = table;
+        this.idColumn = idColumn;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Returns the next unused ID, reserving a new block from the database only when the current one is exhausted.
+     * @return The next ID, zero-padded to at least three digits.
+     * @throws SQLException if a new block cannot be reserved.
+     */
+    public String nextId() throws SQLException {
+        while (true) {
+            Block current = block;
+            long value = current.next.getAndIncrement();
+            if (value < current.end) {
+                return String.format("%s%03d", prefix, value);
+            }
+            synchronized (this) {
+                if (block == current) {
+                    block = reserveBlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Atomically advances the sequence row by one block.
+     * LAST_INSERT_ID(expr) makes the new value readable on the same connection without a second lock.
+     * This always runs on its own connection, so a rolled-back business transaction never
+     * holds the sequence row lock or hands the same block out twice.
+     */
+    private Block reserveBlock() throws SQLException {
+        String updateSql = "UPDATE id_sequences SET next_value = LAST_INSERT_ID(next_value + ?) WHERE name = ?";
+        try (Connection connection = DBConnection.getInstance().getUnboundConnection()) {
+            for (int attempt = 0; attempt < 2; attempt++) {
+                try (PreparedStatement pstm = connection.prepareStatement(updateSql)) {
+                    pstm.setInt(1, blockSize);
+                    pstm.setString(2, sequenceName);
+                    if (pstm.executeUpdate() > 0) {
+                        long end = readLastInsertId(connection);
+                        return new Block(end - blockSize, end);
+                    }
+                }
+                seedSequence(connection);
+            }
+        }
+        throw new SQLException("Could not reserve IDs for sequence '" + sequenceName + "'.");
+    }
+
+    private long readLastInsertId(Connection connection) throws SQLException {
+        try (PreparedStatement pstm = connection.prepareStatement("SELECT LAST_INSERT_ID()");
+             ResultSet resultSet = pstm.executeQuery()) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    /**
+     * Creates the sequence row the first time it is needed, starting after the highest existing ID.
+     * This is the only place the table is scanned, and INSERT IGNORE makes it safe if two clients race.
+     */
+    private void seedSequence(Connection connection) throws SQLException {
+        String sql = "INSERT IGNORE INTO id_sequences (name, next_value) "
+                + "SELECT ?, COALESCE(MAX(CAST(SUBSTRING(" + idColumn + ", 2) AS UNSIGNED)), 0) + 1 FROM " + table;
+        try (PreparedStatement pstm = connection.prepareStatement(sql)) {
+            pstm.setString(1, sequenceName);
+            pstm.executeUpdate();
+        }
+    }
+
+    /**
+     * A reserved range [next, end) of numbers.
+     */
+    private static final class Block {
+        private final AtomicLong next;
+        private final long end;
+
+        private Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
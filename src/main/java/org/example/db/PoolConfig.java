@@ -0,0 +1,51 @@
+package org.example.db;
+
+import lombok.Data;
+
+import java.util.Properties;
+import java.util.function.Consumer;
+
+/**
+ * Holds the settings used by the ConnectionPool.
+ * The defaults are sized for a handful of circulation desks sharing one MySQL server.
+ * All durations are in milliseconds.
+ */
+@Data
+public class PoolConfig {
+    private String url = "jdbc:mysql://localhost:3306/library_db";
+    private String user = "root";
+    private String password = "1234"; // <-- IMPORTANT: Set your MySQL password here
+
+    private int minIdle = 2;
+    private int maxPoolSize = 10;
+    private long borrowTimeoutMs = 5_000;
+    private int validationTimeoutSeconds = 2;
+    private long idleTimeoutMs = 600_000;
+    private long maxLifetimeMs = 1_800_000;
+    private long leakDetectionThresholdMs = 30_000;
+    private long housekeepingIntervalMs = 30_000;
+
+    // Integer.MIN_VALUE puts MySQL Connector/J in row-by-row streaming mode for full-table walks.
+    // A positive value only takes effect with useCursorFetch=true in the URL.
+    private int streamingFetchSize = Integer.MIN_VALUE;
+
+    // Number of rows sent per executeBatch call by the DAOs' saveAll/updateAll.
+    private int batchSize = 1000;
+
+    // Receives the problems the pool deals with on its own thread, e.g. suspected leaks and failed top-ups.
+    // When null they are logged as warnings through java.util.logging.
+    private Consumer<Exception> errorHandler;
+
+    /**
+     * Builds the driver properties passed to DriverManager for every new physical connection.
+     * @return The JDBC connection properties.
+     */
+    public Properties toDriverProperties() {
+        Properties props = new Properties();
+        props.setProperty("user", user);
+        props.setProperty("password", password);
+        // Lets the driver send a batch of INSERTs as one multi-row statement.
+        props.setProperty("rewriteBatchedStatements", "true");
+        return props;
+    }
+}
@@ -0,0 +1,32 @@
+package org.example.db;
+
+import lombok.Value;
+
+import java.util.Arrays;
+
+/**
+ * An immutable snapshot of the ConnectionPool counters.
+ * The wait-time histogram counts how long borrowers waited for a connection;
+ * waitBucketCounts[i] is the number of waits that took at most waitBucketBoundsMs[i],
+ * and the last slot counts everything above the largest bound.
+ */
+@Value
+public class PoolStats {
+    private int total;
+    private int active;
+    private int idle;
+    private int waiters;
+    private long borrowCount;
+    private long timeoutCount;
+    private long leakCount;
+    private long[] waitBucketBoundsMs;
+    private long[] waitBucketCounts;
+
+    @Override
+    public String toString() {
+        return "PoolStats{total=" + total + ", active=" + active + ", idle=" + idle
+                + ", waiters=" + waiters + ", borrows=" + borrowCount + ", timeouts=" + timeoutCount
+                + ", leaks=" + leakCount + ", waitBoundsMs=" + Arrays.toString(waitBucketBoundsMs)
+                + ", waitCounts=" + Arrays.toString(waitBucketCounts) + "}";
+    }
+}
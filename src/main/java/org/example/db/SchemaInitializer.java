@@ -0,0 +1,164 @@
+package org.example.db;
+
+import org.example.service.impl.IsbnNormalizer;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates the supporting tables and indexes the application relies on, if they are missing.
+ * It runs once when the connection pool starts and is safe to run against an existing database.
+ */
+public class SchemaInitializer {
+
+    /**
+     * Brings the schema up to date.
+     * @param connection A connection with DDL privileges.
+     * @throws SQLException if a statement fails.
+     */
+    public void initialize(Connection connection) throws SQLException {
+        // Hi/lo blocks for the B/U/R identifiers (see IdAllocator).
+        createTableIfMissing(connection,
+                "CREATE TABLE IF NOT EXISTS id_sequences ("
+                        + "name VARCHAR(32) NOT NULL PRIMARY KEY, "
+                        + "next_value BIGINT NOT NULL)");
+        // Every write to books, users and borrow_records, appended by the DAOs and read by ChangeFeed.
+        createTableIfMissing(connection,
+                "CREATE TABLE IF NOT EXISTS change_log ("
+                        + "seq BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY, "
+                        + "table_name VARCHAR(32) NOT NULL, "
+                        + "row_id VARCHAR(32) NOT NULL, "
+                        + "change_type VARCHAR(8) NOT NULL, "
+                        + "changed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)");
+        // Purging old entries: WHERE changed_at < ?.
+        createIndexIfMissing(connection, "change_log", "idx_change_log_changed_at",
+                "CREATE INDEX idx_change_log_changed_at ON change_log (changed_at)");
+
+        // Active/overdue loan reports: WHERE return_date IS NULL [AND borrow_date < ?].
+        createIndexIfMissing(connection, "borrow_records", "idx_borrow_records_return_borrow",
+                "CREATE INDEX idx_borrow_records_return_borrow ON borrow_records (return_date, borrow_date)");
+        // A member's loans and the per-user active-loan count: WHERE user_id = ? AND return_date IS NULL.
+        createIndexIfMissing(connection, "borrow_records", "idx_borrow_records_user_return",
+                "CREATE INDEX idx_borrow_records_user_return ON borrow_records (user_id, return_date)");
+        // Keyset pagination seeks on (sort column, primary key); InnoDB appends the primary key
+        // to every secondary index, so a single-column index is enough for each sort order.
+        createIndexIfMissing(connection, "books", "idx_books_title",
+                "CREATE INDEX idx_books_title ON books (title)");
+        createIndexIfMissing(connection, "books", "idx_books_author",
+                "CREATE INDEX idx_books_author ON books (author)");
+        createIndexIfMissing(connection, "users", "idx_users_name",
+                "CREATE INDEX idx_users_name ON users (name)");
+        createIndexIfMissing(connection, "borrow_records", "idx_borrow_records_borrow_date",
+                "CREATE INDEX idx_borrow_records_borrow_date ON borrow_records (borrow_date)");
+        // Summary projections (BookDAO.findAvailableSummary*): WHERE availability = true [ORDER BY book_id],
+        // answered from the index alone. The users summary (user_id, name) is already covered by idx_users_name.
+        createIndexIfMissing(connection, "books", "idx_books_available_summary",
+                "CREATE INDEX idx_books_available_summary ON books (availability, book_id, title, author)");
+        // One row per ISBN. Books are stored with the canonical ISBN-13, so rows stored before that are
+        // canonicalized first; otherwise an ISBN-10 and its ISBN-13 would both pass the index.
+        if (!indexExists(connection, "books", "uq_books_isbn")) {
+            canonicalizeIsbns(connection);
+            createIndexIfMissing(connection, "books", "uq_books_isbn",
+                    "CREATE UNIQUE INDEX uq_books_isbn ON books (isbn)");
+        }
+        // Server-side catalog search: MATCH (title, author, genre) AGAINST (...), see BookDAO.search.
+        createIndexIfMissing(connection, "books", "ft_books_title_author_genre",
+                "CREATE FULLTEXT INDEX ft_books_title_author_genre ON books (title, author, genre)");
+        // Returned loans whose fine is still outstanding: WHERE is_fine_paid = false AND fine > 0.
+        createIndexIfMissing(connection, "borrow_records", "idx_borrow_records_unpaid_fine",
+                "CREATE INDEX idx_borrow_records_unpaid_fine ON borrow_records (is_fine_paid, fine)");
+    }
+
+    // --- Helper Methods ---
+
+    private void createTableIfMissing(Connection connection, String ddl) throws SQLException {
+        try (Statement stm = connection.createStatement()) {
+            stm.execute(ddl);
+        }
+    }
+
+    /**
+     * MySQL has no CREATE INDEX IF NOT EXISTS, so the catalog is checked first.
+     */
+    private void createIndexIfMissing(Connection connection, String table, String indexName, String ddl) throws SQLException {
+        if (indexExists(connection, table, indexName)) {
+            return;
+        }
+        try (Statement stm = connection.createStatement()) {
+            stm.execute(ddl);
+        }
+    }
+
+    private boolean indexExists(Connection connection, String table, String indexName) throws SQLException {
+        String sql = "SELECT 1 FROM information_schema.statistics WHERE table_schema = DATABASE() AND table_name = ? AND index_name = ? LIMIT 1";
+        try (PreparedStatement pstm = connection.prepareStatement(sql)) {
+            pstm.setString(1, table);
+            pstm.setString(2, indexName);
+            try (ResultSet resultSet = pstm.executeQuery()) {
+                return resultSet.next();
+            }
+        }
+    }
+
+    /**
+     * One-off migration run before the unique ISBN index is built: rewrites every ISBN that
+     * IsbnNormalizer can canonicalize to its ISBN-13 form, in one transaction. Rows it cannot
+     * canonicalize keep their value. If two rows still end up with the same ISBN, nothing is
+     * rewritten and the startup fails with their IDs, since only staff can tell which one is right.
+     */
+    private void canonicalizeIsbns(Connection connection) throws SQLException {
+        Map<String, List<String>> bookIdsByIsbn = new LinkedHashMap<>();
+        Map<String, String> rewrites = new LinkedHashMap<>();
+        try (PreparedStatement pstm = connection.prepareStatement("SELECT book_id, isbn FROM books WHERE isbn IS NOT NULL");
+             ResultSet resultSet = pstm.executeQuery()) {
+            while (resultSet.next()) {
+                String bookId = resultSet.getString(1);
+                String stored = resultSet.getString(2);
+                String canonical = IsbnNormalizer.canonicalize(stored);
+                String isbn = canonical == null ? stored : canonical;
+                bookIdsByIsbn.computeIfAbsent(isbn, key -> new ArrayList<>()).add(bookId);
+                if (!isbn.equals(stored)) {
+                    rewrites.put(bookId, isbn);
+                }
+            }
+        }
+
+        List<String> duplicates = new ArrayList<>();
+        for (Map.Entry<String, List<String>> entry : bookIdsByIsbn.entrySet()) {
+            if (entry.getValue().size() > 1) {
+                duplicates.add(entry.getKey() + " (" + String.join(", ", entry.getValue()) + ")");
+            }
+        }
+        if (!duplicates.isEmpty()) {
+            throw new SQLException("The unique ISBN index cannot be built. These books share an ISBN; "
+                    + "correct or delete all but one of each: " + String.join("; ", duplicates));
+        }
+        if (rewrites.isEmpty()) {
+            return;
+        }
+
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (PreparedStatement pstm = connection.prepareStatement("UPDATE books SET isbn = ? WHERE book_id = ?")) {
+            for (Map.Entry<String, String> rewrite : rewrites.entrySet()) {
+                pstm.setString(1, rewrite.getValue());
+                pstm.setString(2, rewrite.getKey());
+                pstm.addBatch();
+            }
+            pstm.executeBatch();
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+}
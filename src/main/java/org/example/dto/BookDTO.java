@@ -1,16 +1,13 @@
 package org.example.dto;
 
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.Value;
 
 /**
  * A Data Transfer Object (DTO) for carrying book data between layers.
  * It is a plain Java object, decoupled from the database or any business logic.
+ * It is immutable: list and page reads build it straight from the row, and every screen shares that one instance.
  */
-@Data
-@NoArgsConstructor
-@AllArgsConstructor
+@Value
 public class BookDTO {
     private String bookId;
     private String isbn;
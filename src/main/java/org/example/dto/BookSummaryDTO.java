@@ -0,0 +1,14 @@
+package org.example.dto;
+
+import lombok.Value;
+
+/**
+ * The few columns that name a book in a picker, the borrow cart or the available-books report.
+ * It leaves out the ISBN, genre and availability, so lists of it are cheap to fetch and to hold.
+ */
+@Value
+public class BookSummaryDTO {
+    private String bookId;
+    private String title;
+    private String author;
+}
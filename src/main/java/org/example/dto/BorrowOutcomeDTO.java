@@ -0,0 +1,25 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The result of borrowing one book as part of a multi-book checkout.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BorrowOutcomeDTO {
+
+    public enum Status {
+        BORROWED,
+        UNAVAILABLE,    // The book does not exist or another loan holds it.
+        LIMIT_REACHED,  // Borrowing it would take the user over the borrowing limit.
+        FAILED          // The loan record could not be written; nothing was borrowed.
+    }
+
+    private String bookId;
+    private String recordId; // Set only when the status is BORROWED.
+    private Status status;
+}
@@ -1,14 +1,14 @@
 package org.example.dto;
 
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.Value;
 
 import java.time.LocalDate;
 
-@Data
-@NoArgsConstructor
-@AllArgsConstructor
+/**
+ * A Data Transfer Object (DTO) for carrying borrow record data between layers.
+ * Immutable, so the DAOs can emit it directly and the same instance can be shared by every reader.
+ */
+@Value
 public class BorrowRecordDTO {
     private String recordId;
     private String userId;
@@ -0,0 +1,20 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * The changes returned by one ChangeFeed read, and where the next read should continue.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeBatchDTO {
+    private List<ChangeDTO> changes;
+    private long nextSequence; // Pass to the next getChangesSince call.
+    private boolean truncated; // More changes were waiting than one batch holds; read again right away.
+    private boolean resync; // A change may have been missed; reload every screen instead of patching it.
+}
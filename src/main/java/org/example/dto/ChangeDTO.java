@@ -0,0 +1,21 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.dao.ChangeType;
+import org.example.service.DataVersions;
+
+/**
+ * A write to one row, as read from the change log. It names the row only; readers fetch the row
+ * again to see its new contents, and a row that is gone has been deleted.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeDTO {
+    private long sequence;
+    private DataVersions.Table table;
+    private String rowId;
+    private ChangeType type;
+}
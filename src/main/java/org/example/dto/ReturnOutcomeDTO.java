@@ -0,0 +1,28 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The result of processing one return as part of a batch of returns.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReturnOutcomeDTO {
+
+    public enum Status {
+        RETURNED,
+        NOT_FOUND,         // No borrow record with this ID.
+        ALREADY_RETURNED,  // The loan was closed before, e.g. the book was scanned twice.
+        FAILED             // The database rejected the update.
+    }
+
+    private String recordId;
+    private String bookId;
+    private String userId;
+    private double fine;
+    private Status status;
+    private String message; // Extra detail for the desk, or null.
+}
@@ -1,8 +1,6 @@
 package org.example.dto;
 
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.Value;
 
 import java.time.LocalDate;
 
@@ -10,10 +8,9 @@ import java.time.LocalDate;
  * A Data Transfer Object (DTO) for carrying user data.
  * It is a simple object used to transfer data across application layers,
  * keeping the UI decoupled from the database entity.
+ * Instances are read-only, so a list read by the DAO reaches the UI without another copy.
  */
-@Data
-@NoArgsConstructor
-@AllArgsConstructor
+@Value
 public class UserDTO {
     private String userId;
     private String name;
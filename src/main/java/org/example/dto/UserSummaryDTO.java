@@ -0,0 +1,13 @@
+package org.example.dto;
+
+import lombok.Value;
+
+/**
+ * A member as shown in the borrow screen's user picker: only the ID and the name,
+ * so contact details and credentials never leave the database for a lookup.
+ */
+@Value
+public class UserSummaryDTO {
+    private String userId;
+    private String name;
+}
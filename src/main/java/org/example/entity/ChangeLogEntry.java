@@ -0,0 +1,19 @@
+package org.example.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One row of the 'change_log' table: a write to a row of books, users or borrow_records.
+ * The sequence number is assigned by the database and grows with every change.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeLogEntry {
+    private long seq;
+    private String tableName;
+    private String rowId;
+    private String changeType;
+}
@@ -0,0 +1,37 @@
+package org.example.launcher;
+
+import org.example.db.DBConnection;
+import org.example.service.ImportProgress;
+import org.example.service.ImportService;
+import org.example.service.impl.ImportServiceImpl;
+
+import java.nio.file.Path;
+
+/**
+ * Command-line entry point for bulk imports, for loading large catalogs without opening the UI.
+ * Usage: BulkImportLauncher books|users &lt;file.csv&gt;
+ */
+public class BulkImportLauncher {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2 || !(args[0].equals("books") || args[0].equals("users"))) {
+            System.err.println("Usage: BulkImportLauncher books|users <file.csv>");
+            System.exit(2);
+        }
+
+        ImportService importService = new ImportServiceImpl();
+        Path csvFile = Path.of(args[1]);
+        try {
+            ImportProgress progress = args[0].equals("books")
+                    ? importService.importBooks(csvFile, p -> System.out.println(p))
+                    : importService.importUsers(csvFile, p -> System.out.println(p));
+
+            System.out.println("Finished: " + progress);
+            for (String reject : progress.getRejectMessages()) {
+                System.out.println("  " + reject);
+            }
+        } finally {
+            DBConnection.getInstance().shutdown();
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package org.example.service;
 
+import org.example.dao.BookSort;
+import org.example.dao.Page;
+import org.example.dao.PageKey;
 import org.example.dto.BookDTO;
+import org.example.dto.BookSummaryDTO;
 
 import java.sql.SQLException;
 import java.util.List;
@@ -10,10 +14,33 @@ import java.util.List;
  * This version is now complete and includes all necessary methods.
  */
 public interface BookService {
+    /**
+     * Adds a book with its ISBN in canonical ISBN-13 form.
+     * @return false if the book was not saved, including when the ISBN is invalid or already catalogued.
+     */
     boolean addBook(BookDTO bookDTO) throws SQLException;
+
+    /**
+     * @return false if the book was not updated, including when the ISBN is invalid or belongs to another book.
+     */
     boolean updateBook(BookDTO bookDTO) throws SQLException;
     boolean deleteBook(String bookId) throws SQLException;
     BookDTO getBookById(String bookId) throws SQLException;
+
+    /**
+     * Finds a book by ISBN, e.g. from a barcode scan. ISBN-10 and ISBN-13 forms of the same number match.
+     * @param isbn The ISBN as scanned or typed, with or without hyphens.
+     * @return The book, or null if the ISBN is invalid or not catalogued.
+     * @throws SQLException if the ISBN index has to be loaded and a database error occurs.
+     */
+    BookDTO getBookByIsbn(String isbn) throws SQLException;
+
+    /**
+     * Validates an ISBN's check digit and returns its canonical ISBN-13 form, as addBook will store it.
+     * @param isbn The ISBN as typed.
+     * @return The 13-digit ISBN without separators, or null if it is not a valid ISBN.
+     */
+    String normalizeIsbn(String isbn);
     List<BookDTO> getAllBooks() throws SQLException;
     String generateNextBookId() throws SQLException;
 
@@ -23,4 +50,53 @@ public interface BookService {
      * @throws SQLException if a database error occurs.
      */
     List<BookDTO> getAvailableBooks() throws SQLException;
+
+    /**
+     * Gets one page of books using keyset pagination.
+     * @param afterKey The nextKey of the previous page, or null for the first page.
+     * @param limit The maximum number of books on the page.
+     * @param sort The order to page through.
+     * @return The page of BookDTOs.
+     * @throws SQLException if a database error occurs.
+     */
+    Page<BookDTO> getBooksPage(PageKey afterKey, int limit, BookSort sort) throws SQLException;
+
+    /**
+     * Searches the catalog by title and author words and by book ID.
+     * Every word of the query must match the start of a title/author word or of the ID, ignoring case and accents.
+     * Large catalogs are searched on the server, and only the best few hundred matches are returned.
+     * @param query The text typed by the user; a blank query returns every book (the first few hundred for a large catalog).
+     * @return The matching books; the list has a fixed size but its elements can be reordered.
+     * @throws SQLException if the search index has to be loaded and a database error occurs.
+     */
+    List<BookDTO> searchBooks(String query) throws SQLException;
+
+    /**
+     * Gets one page of search results, best matches first.
+     * @param query The text typed by the user; every word must match.
+     * @param limit The maximum number of books on the page.
+     * @param afterKey The nextKey of the previous page, or null for the first page.
+     * @return The page of BookDTOs.
+     * @throws SQLException if a database error occurs.
+     */
+    Page<BookDTO> searchBooksPage(String query, int limit, PageKey afterKey) throws SQLException;
+
+    /**
+     * Typo-tolerant search over titles and authors, ranked by trigram similarity.
+     * Finds "Tolkien" for "tolkein" and "Harry Potter" for "harr pot".
+     * @param query The text typed by the user.
+     * @param limit The maximum number of results.
+     * @return The best matches, best first.
+     * @throws SQLException if the search index has to be loaded and a database error occurs.
+     */
+    List<BookDTO> searchBooksFuzzy(String query, int limit) throws SQLException;
+
+    /**
+     * Type-ahead lookup: the first few available books whose ID, title or author words start with the typed words.
+     * @param query The text typed so far.
+     * @param limit The maximum number of suggestions.
+     * @return Up to limit available books, as summaries.
+     * @throws SQLException if the search index has to be loaded and a database error occurs.
+     */
+    List<BookSummaryDTO> suggestAvailableBooks(String query, int limit) throws SQLException;
 }
@@ -1,8 +1,14 @@
 package org.example.service;
 
+import org.example.dao.BorrowRecordSort;
+import org.example.dao.Page;
+import org.example.dao.PageKey;
+import org.example.dto.BorrowOutcomeDTO;
 import org.example.dto.BorrowRecordDTO;
 
 import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -10,6 +16,76 @@ import java.util.List;
  */
 public interface BorrowService {
     boolean borrowBook(BorrowRecordDTO borrowRecordDTO) throws SQLException;
+
+    /**
+     * Lends several books to one user in a single transaction.
+     * The borrowing limit is checked once for the whole cart; books past the limit are not borrowed.
+     * Record IDs are generated by the service.
+     * @param userId The ID of the borrowing user.
+     * @param bookIds The books to borrow; duplicates are ignored.
+     * @param borrowDate The date of the loan.
+     * @return One outcome per distinct book, in the order given.
+     * @throws SQLException if a database error occurs.
+     */
+    List<BorrowOutcomeDTO> borrowBooks(String userId, List<String> bookIds, LocalDate borrowDate) throws SQLException;
     List<BorrowRecordDTO> getAllBorrowRecords() throws SQLException;
     String generateNextRecordId() throws SQLException;
+
+    /**
+     * Gets all loans that have not been returned yet.
+     * @return A list of active BorrowRecordDTOs.
+     * @throws SQLException if a database error occurs.
+     */
+    List<BorrowRecordDTO> getActiveBorrowRecords() throws SQLException;
+
+    /**
+     * Gets every loan of a single user.
+     * @param userId The ID of the user.
+     * @return A list of the user's BorrowRecordDTOs.
+     * @throws SQLException if a database error occurs.
+     */
+    List<BorrowRecordDTO> getBorrowRecordsByUser(String userId) throws SQLException;
+
+    /**
+     * Gets returned loans whose fine has not been paid yet.
+     * @return A list of BorrowRecordDTOs with an outstanding fine.
+     * @throws SQLException if a database error occurs.
+     */
+    List<BorrowRecordDTO> getRecordsWithUnpaidFines() throws SQLException;
+
+    /**
+     * Gets the borrow records with the given IDs, e.g. the rows named by a ChangeFeed batch.
+     * @param recordIds The IDs to look up.
+     * @return The records that exist, in no particular order.
+     * @throws SQLException if a database error occurs.
+     */
+    List<BorrowRecordDTO> getBorrowRecordsByIds(Collection<String> recordIds) throws SQLException;
+
+    /**
+     * Gets one page of borrow records using keyset pagination.
+     * @param afterKey The nextKey of the previous page, or null for the first page.
+     * @param limit The maximum number of borrow records on the page.
+     * @param sort The order to page through.
+     * @return The page of BorrowRecordDTOs.
+     * @throws SQLException if a database error occurs.
+     */
+    Page<BorrowRecordDTO> getBorrowRecordsPage(PageKey afterKey, int limit, BorrowRecordSort sort) throws SQLException;
+
+    /**
+     * Gets one page of the loans that still need action: books out on loan and fines not yet paid.
+     * @param afterKey The nextKey of the previous page, or null for the first page.
+     * @param limit The maximum number of borrow records on the page.
+     * @param sort The order to page through.
+     * @return The page of BorrowRecordDTOs.
+     * @throws SQLException if a database error occurs.
+     */
+    Page<BorrowRecordDTO> getOpenRecordsPage(PageKey afterKey, int limit, BorrowRecordSort sort) throws SQLException;
+
+    /**
+     * Finds an unreturned loan from a scanned or typed code.
+     * @param code A record ID, or the ID of a book currently on loan.
+     * @return The active loan, or null if the code matches none.
+     * @throws SQLException if a database error occurs.
+     */
+    BorrowRecordDTO findActiveLoan(String code) throws SQLException;
 }
@@ -0,0 +1,41 @@
+package org.example.service;
+
+import org.example.dto.ChangeBatchDTO;
+
+import java.sql.SQLException;
+
+/**
+ * Reads the change log that the DAOs append to on every write, so a screen can patch the rows that
+ * changed instead of reloading whole tables, and picks up writes made by other clients on the same database.
+ */
+public interface ChangeFeed {
+
+    /**
+     * @return The sequence number to start reading from; every later write gets a higher one.
+     * @throws SQLException if a database error occurs.
+     */
+    long getLatestSequence() throws SQLException;
+
+    /**
+     * Returns the changes written after the given sequence number that earlier calls have not returned.
+     * A change that commits late, behind newer ones, is returned by a later call than the newer ones.
+     * A caller that starts over from an older sequence gets its changes again, so applying one must be
+     * idempotent, e.g. fetching the row again and replacing the copy on screen.
+     * The caches and search indexes of this client are brought up to date before the batch is returned.
+     * If a missing change could not be accounted for, the batch is marked resync instead: the caches and
+     * indexes are dropped, every table's DataVersions entry is bumped, and screens should reload.
+     *
+     * @param sequence The nextSequence of the previous batch, or the result of getLatestSequence.
+     * @return The changes and the sequence number to continue from.
+     * @throws SQLException if a database error occurs.
+     */
+    ChangeBatchDTO getChangesSince(long sequence) throws SQLException;
+
+    /**
+     * Deletes the changes that are too old for any running client to still need.
+     *
+     * @return The number of changes deleted.
+     * @throws SQLException if a database error occurs.
+     */
+    int purgeExpiredChanges() throws SQLException;
+}
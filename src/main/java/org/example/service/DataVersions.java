@@ -0,0 +1,38 @@
+package org.example.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts the writes made to each table, so a screen that was hidden can tell whether its data
+ * is stale without querying it again. The service implementations bump a table's version after
+ * every write; a failed write may bump it too, which only costs one extra reload.
+ */
+public final class DataVersions {
+
+    /**
+     * The tables whose changes screens react to.
+     */
+    public enum Table {
+        BOOKS,
+        USERS,
+        BORROW_RECORDS
+    }
+
+    private static final AtomicLongArray VERSIONS = new AtomicLongArray(Table.values().length);
+
+    private DataVersions() {
+    }
+
+    /**
+     * @return A number that changes whenever the table is written.
+     */
+    public static long current(Table table) {
+        return VERSIONS.get(table.ordinal());
+    }
+
+    public static void bump(Table... tables) {
+        for (Table table : tables) {
+            VERSIONS.incrementAndGet(table.ordinal());
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package org.example.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live counters for a running bulk import.
+ * All counters are thread-safe and can be read from any thread while the import is running.
+ * Only the first MAX_REJECT_MESSAGES reject reasons are kept, so memory stays bounded for bad files.
+ */
+public class ImportProgress {
+
+    private static final int MAX_REJECT_MESSAGES = 100;
+
+    private final long startNanos = System.nanoTime();
+    private final AtomicLong rowsRead = new AtomicLong();
+    private final AtomicLong rowsAccepted = new AtomicLong();
+    private final AtomicLong rowsRejected = new AtomicLong();
+    private final AtomicLong rowsWritten = new AtomicLong();
+    private final List<String> rejectMessages = Collections.synchronizedList(new ArrayList<>());
+    private volatile long endNanos;
+    private volatile Throwable failure;
+
+    public void addRead(long count) {
+        rowsRead.addAndGet(count);
+    }
+
+    public void addAccepted(long count) {
+        rowsAccepted.addAndGet(count);
+    }
+
+    public void addWritten(long count) {
+        rowsWritten.addAndGet(count);
+    }
+
+    /**
+     * Counts one rejected row and remembers why, up to the message limit.
+     * @param lineNumber The 1-based line number in the source file.
+     * @param reason Why the row was rejected.
+     */
+    public void reject(long lineNumber, String reason) {
+        rowsRejected.incrementAndGet();
+        if (rejectMessages.size() < MAX_REJECT_MESSAGES) {
+            rejectMessages.add("Line " + lineNumber + ": " + reason);
+        }
+    }
+
+    /**
+     * Counts rows that passed validation but were refused by the database, e.g. a duplicate username.
+     * @param count The number of refused rows in the batch.
+     * @param reason The first error reported by the driver for the batch.
+     */
+    public void rejectWritten(long count, String reason) {
+        rowsRejected.addAndGet(count);
+        if (rejectMessages.size() < MAX_REJECT_MESSAGES) {
+            rejectMessages.add(count + " row(s) refused by the database: " + reason);
+        }
+    }
+
+    public void finish(Throwable failure) {
+        this.failure = failure;
+        this.endNanos = System.nanoTime();
+    }
+
+    public long getRowsRead() {
+        return rowsRead.get();
+    }
+
+    public long getRowsAccepted() {
+        return rowsAccepted.get();
+    }
+
+    public long getRowsRejected() {
+        return rowsRejected.get();
+    }
+
+    public long getRowsWritten() {
+        return rowsWritten.get();
+    }
+
+    public List<String> getRejectMessages() {
+        synchronized (rejectMessages) {
+            return new ArrayList<>(rejectMessages);
+        }
+    }
+
+    public boolean isFinished() {
+        return endNanos != 0;
+    }
+
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    public double getElapsedSeconds() {
+        long end = endNanos != 0 ? endNanos : System.nanoTime();
+        return (end - startNanos) / 1_000_000_000.0;
+    }
+
+    /**
+     * @return Rows written to the database per second since the import started.
+     */
+    public double getRowsPerSecond() {
+        double seconds = getElapsedSeconds();
+        return seconds > 0 ? rowsWritten.get() / seconds : 0.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("read=%d accepted=%d rejected=%d written=%d (%.0f rows/s, %.1f s)",
+                getRowsRead(), getRowsAccepted(), getRowsRejected(), getRowsWritten(),
+                getRowsPerSecond(), getElapsedSeconds());
+    }
+}
@@ -0,0 +1,39 @@
+package org.example.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.function.Consumer;
+
+/**
+ * The service layer interface for bulk-loading books and members from CSV files.
+ * Imports run on the calling thread, which reads the file; parsing and validation are spread
+ * across all cores and rows are written with JDBC batches, so callers should not invoke these
+ * methods on the JavaFX Application Thread.
+ */
+public interface ImportService {
+
+    /**
+     * Imports books from a CSV file with the columns isbn,title,author,genre.
+     * A header row is detected and skipped. New IDs are generated and every book starts as available.
+     *
+     * @param csvFile The file to import.
+     * @param onProgress Called from the writer thread after every written batch; may be null.
+     * @return The final counters, including the reject reasons.
+     * @throws IOException if the file cannot be read.
+     * @throws SQLException if writing to the database fails.
+     */
+    ImportProgress importBooks(Path csvFile, Consumer<ImportProgress> onProgress) throws IOException, SQLException;
+
+    /**
+     * Imports members from a CSV file with the columns name,contact,membership_date,username,password.
+     * membership_date is optional and uses the yyyy-MM-dd format.
+     *
+     * @param csvFile The file to import.
+     * @param onProgress Called from the writer thread after every written batch; may be null.
+     * @return The final counters, including the reject reasons.
+     * @throws IOException if the file cannot be read.
+     * @throws SQLException if writing to the database fails.
+     */
+    ImportProgress importUsers(Path csvFile, Consumer<ImportProgress> onProgress) throws IOException, SQLException;
+}
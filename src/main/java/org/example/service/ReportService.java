@@ -1,6 +1,10 @@
 package org.example.service;
 
-import org.example.dto.BookDTO;
+import org.example.dao.BookSort;
+import org.example.dao.BorrowRecordSort;
+import org.example.dao.Page;
+import org.example.dao.PageKey;
+import org.example.dto.BookSummaryDTO;
 import org.example.dto.BorrowRecordDTO;
 
 import java.sql.SQLException;
@@ -14,10 +18,10 @@ public interface ReportService {
 
     /**
      * Retrieves a list of all books that are currently available.
-     * @return A list of available BookDTOs.
+     * @return The ID, title and author of each available book.
      * @throws SQLException if a database error occurs.
      */
-    List<BookDTO> getAvailableBooks() throws SQLException;
+    List<BookSummaryDTO> getAvailableBooks() throws SQLException;
 
     /**
      * Retrieves a list of all books that are currently borrowed.
@@ -32,4 +36,34 @@ public interface ReportService {
      * @throws SQLException if a database error occurs.
      */
     List<BorrowRecordDTO> getOverdueBooks() throws SQLException;
+
+    /**
+     * Gets one page of the "Available Books" report using keyset pagination.
+     * @param afterKey The nextKey of the previous page, or null for the first page.
+     * @param limit The maximum number of books on the page.
+     * @param sort The order to page through.
+     * @return The page of available book summaries.
+     * @throws SQLException if a database error occurs.
+     */
+    Page<BookSummaryDTO> getAvailableBooksPage(PageKey afterKey, int limit, BookSort sort) throws SQLException;
+
+    /**
+     * Gets one page of the "Borrowed Books" report using keyset pagination.
+     * @param afterKey The nextKey of the previous page, or null for the first page.
+     * @param limit The maximum number of records on the page.
+     * @param sort The order to page through.
+     * @return The page of BorrowRecordDTOs for books that have not been returned.
+     * @throws SQLException if a database error occurs.
+     */
+    Page<BorrowRecordDTO> getBorrowedBooksPage(PageKey afterKey, int limit, BorrowRecordSort sort) throws SQLException;
+
+    /**
+     * Gets one page of the "Overdue Books" report, with fines calculated as of today.
+     * @param afterKey The nextKey of the previous page, or null for the first page.
+     * @param limit The maximum number of records on the page.
+     * @param sort The order to page through.
+     * @return The page of BorrowRecordDTOs for overdue books.
+     * @throws SQLException if a database error occurs.
+     */
+    Page<BorrowRecordDTO> getOverdueBooksPage(PageKey afterKey, int limit, BorrowRecordSort sort) throws SQLException;
 }
@@ -1,8 +1,10 @@
 package org.example.service;
 
 import org.example.dto.ReturnDTO;
+import org.example.dto.ReturnOutcomeDTO;
 
 import java.sql.SQLException;
+import java.util.List;
 
 /**
  * The service layer interface for the Book Return module.
@@ -19,4 +21,16 @@ public interface ReturnService {
      * @throws SQLException if a database error occurs.
      */
     boolean processReturn(ReturnDTO returnDTO) throws SQLException;
+
+    /**
+     * Processes many returns at once, e.g. the contents of the drop box.
+     * All records are loaded with one query, fines are calculated in memory and the record
+     * and book updates are sent as JDBC batches in one transaction. A return that cannot be
+     * processed does not stop the others; its outcome says why.
+     *
+     * @param returns The returns to process; only recordId and returnDate are used.
+     * @return One outcome per distinct record ID, in the order given.
+     * @throws SQLException if a database error occurs.
+     */
+    List<ReturnOutcomeDTO> processReturns(List<ReturnDTO> returns) throws SQLException;
 }
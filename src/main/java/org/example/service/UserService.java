@@ -1,7 +1,12 @@
 package org.example.service;
 
+import org.example.dao.Page;
+import org.example.dao.PageKey;
+import org.example.dao.UserSort;
 import org.example.dto.UserDTO;
+import org.example.dto.UserSummaryDTO;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -14,5 +19,33 @@ public interface UserService {
     boolean deleteUser(String userId) throws SQLException;
     UserDTO getUserById(String userId) throws SQLException;
     List<UserDTO> getAllUsers() throws SQLException;
+
+    /**
+     * Gets the users with the given IDs, e.g. the rows named by a ChangeFeed batch.
+     * @param userIds The IDs to look up.
+     * @return The users that exist, in no particular order.
+     * @throws SQLException if a database error occurs.
+     */
+    List<UserDTO> getUsersByIds(Collection<String> userIds) throws SQLException;
     String generateNextUserId() throws SQLException;
+
+    /**
+     * Gets one page of users using keyset pagination.
+     * @param afterKey The nextKey of the previous page, or null for the first page.
+     * @param limit The maximum number of users on the page.
+     * @param sort The order to page through.
+     * @return The page of UserDTOs.
+     * @throws SQLException if a database error occurs.
+     */
+    Page<UserDTO> getUsersPage(PageKey afterKey, int limit, UserSort sort) throws SQLException;
+
+    /**
+     * Type-ahead lookup: the first few users whose ID or name words start with the typed words.
+     * Answered from a shared in-memory index, so it does not load the users table per keystroke.
+     * @param query The text typed so far.
+     * @param limit The maximum number of suggestions.
+     * @return Up to limit user summaries.
+     * @throws SQLException if the index has to be loaded and a database error occurs.
+     */
+    List<UserSummaryDTO> suggestUsers(String query, int limit) throws SQLException;
 }
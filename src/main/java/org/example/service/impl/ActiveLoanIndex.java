@@ -0,0 +1,132 @@
+package org.example.service.impl;
+
+import org.example.dao.BorrowRecordDAO;
+import org.example.dao.impl.BorrowRecordDAOImpl;
+
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps the number of active loans per user in memory, so the borrowing-limit check
+ * does not need a COUNT(*) query on every checkout.
+ * The counters are loaded with one grouped query on first use and are compared with the
+ * database every RECONCILE_INTERVAL_MS to correct drift, e.g. from another desk's checkouts,
+ * and a user's counter is recounted right away whenever it would refuse a loan.
+ * The in-memory check is a fast path only: loans are inserted with
+ * BorrowRecordDAO.saveIfUnderLimit, which enforces the limit in the database as well.
+ */
+final class ActiveLoanIndex {
+
+    private static final long RECONCILE_INTERVAL_MS = 60_000;
+
+    private static volatile ActiveLoanIndex instance;
+
+    private final BorrowRecordDAO borrowRecordDAO = new BorrowRecordDAOImpl();
+    private final ConcurrentHashMap<String, AtomicInteger> activeLoans = new ConcurrentHashMap<>();
+
+    private ActiveLoanIndex() throws SQLException {
+        for (Map.Entry<String, Integer> entry : borrowRecordDAO.countActiveBorrowsByUser().entrySet()) {
+            activeLoans.put(entry.getKey(), new AtomicInteger(entry.getValue()));
+        }
+
+        ScheduledExecutorService reconciler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "active-loan-reconciler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reconciler.scheduleWithFixedDelay(this::reconcile, RECONCILE_INTERVAL_MS, RECONCILE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    static ActiveLoanIndex getInstance() throws SQLException {
+        if (instance == null) {
+            synchronized (ActiveLoanIndex.class) {
+                if (instance == null) {
+                    instance = new ActiveLoanIndex();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Reserves up to requested loan slots for a user without going over the limit.
+     * The reservation is a compare-and-set loop, so two desks cannot both take the last slot.
+     * A counter that refuses is recounted from the database first, since it may still include
+     * a loan returned at another desk since the last reconcile; only the database count refuses.
+     * @return The number of slots granted, between 0 and requested.
+     * @throws SQLException if the recount fails.
+     */
+    int reserve(String userId, int requested, int limit) throws SQLException {
+        int granted = tryReserve(userId, requested, limit);
+        if (granted < requested) {
+            int active = borrowRecordDAO.getActiveBorrowCountForUser(userId);
+            counterFor(userId).set(active + granted); // The slots granted above are not in the database yet.
+            granted += tryReserve(userId, requested - granted, limit);
+        }
+        return granted;
+    }
+
+    private int tryReserve(String userId, int requested, int limit) {
+        AtomicInteger counter = counterFor(userId);
+        while (true) {
+            int current = counter.get();
+            int granted = Math.min(requested, limit - current);
+            if (granted <= 0) {
+                return 0;
+            }
+            if (counter.compareAndSet(current, current + granted)) {
+                return granted;
+            }
+        }
+    }
+
+    /**
+     * Gives back slots after a return, or after a reservation that did not end in a loan.
+     */
+    void release(String userId, int count) {
+        if (count > 0) {
+            counterFor(userId).updateAndGet(current -> Math.max(0, current - count));
+        }
+    }
+
+    int getActiveLoans(String userId) {
+        AtomicInteger counter = activeLoans.get(userId);
+        return counter == null ? 0 : counter.get();
+    }
+
+    private AtomicInteger counterFor(String userId) {
+        return activeLoans.computeIfAbsent(userId, id -> new AtomicInteger());
+    }
+
+    /**
+     * Replaces each counter with the database count. A counter that changed while the query ran
+     * is left alone (its compare-and-set fails) and is corrected on the next run instead.
+     */
+    private void reconcile() {
+        try {
+            Map<String, Integer> before = new HashMap<>();
+            activeLoans.forEach((userId, counter) -> before.put(userId, counter.get()));
+
+            Map<String, Integer> actual = borrowRecordDAO.countActiveBorrowsByUser();
+
+            for (Map.Entry<String, Integer> entry : before.entrySet()) {
+                int expected = actual.getOrDefault(entry.getKey(), 0);
+                if (entry.getValue() != expected) {
+                    activeLoans.get(entry.getKey()).compareAndSet(entry.getValue(), expected);
+                }
+            }
+            for (Map.Entry<String, Integer> entry : actual.entrySet()) {
+                activeLoans.putIfAbsent(entry.getKey(), new AtomicInteger(entry.getValue()));
+            }
+        } catch (SQLException | RuntimeException e) {
+            // Keep the current counters; the database guard still enforces the limit.
+            e.printStackTrace();
+        }
+    }
+}
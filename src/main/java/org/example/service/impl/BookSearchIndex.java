@@ -0,0 +1,303 @@
+package org.example.service.impl;
+
+import org.example.dao.BookDAO;
+import org.example.dao.DataAccessException;
+import org.example.dao.impl.BookDAOImpl;
+import org.example.entity.Book;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * An in-memory inverted index over the catalog for the search box and the borrow screen's type-ahead.
+ * Every book gets an int ordinal; a TokenPrefixIndex maps title/author tokens and book IDs to ordinals.
+ * A query is split into tokens; each token matches every term and ID starting with it,
+ * and the tokens are combined with AND using one bitset per token.
+ * BookServiceImpl keeps the index current on add, update and delete, so it is built only once.
+ */
+final class BookSearchIndex {
+
+    private static volatile BookSearchIndex instance;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Indexed by ordinal; null marks a deleted book. The Book objects are private copies and never modified.
+    private Book[] docs = new Book[1024];
+    private int nextOrdinal;
+    private final Map<String, Integer> ordinalById = new HashMap<>();
+    private final TokenPrefixIndex prefixes = new TokenPrefixIndex();
+
+    // Typo-tolerant search. Built on first use; books edited since then are marked stale and
+    // scored directly, together with books added after the build, until the next rebuild.
+    private TrigramIndex trigrams;
+    private long[] staleOrdinals = new long[0];
+    private int staleCount;
+
+    private BookSearchIndex() {
+    }
+
+    /**
+     * Returns the shared index, building it from one streaming pass over the books table on first use.
+     */
+    static BookSearchIndex getInstance() throws SQLException {
+        if (instance == null) {
+            synchronized (BookSearchIndex.class) {
+                if (instance == null) {
+                    BookSearchIndex index = new BookSearchIndex();
+                    BookDAO bookDAO = new BookDAOImpl();
+                    try (Stream<Book> books = bookDAO.streamAll()) {
+                        books.forEach(index::put);
+                    } catch (DataAccessException e) {
+                        throw e.getCause();
+                    }
+                    instance = index;
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the index only if it has been built, for callers that just want to keep it current.
+     */
+    static BookSearchIndex getIfBuilt() {
+        return instance;
+    }
+
+    /**
+     * Drops the index so the next search rebuilds it, e.g. after a bulk import.
+     */
+    static void reset() {
+        instance = null;
+    }
+
+    /**
+     * Adds a book, or re-indexes it if a book with the same ID is already indexed.
+     */
+    void put(Book book) {
+        Book copy = copyOf(book, book.isAvailability());
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinalById.get(copy.getBookId());
+            if (ordinal != null) {
+                prefixes.removeTokens(ordinal, tokensOf(docs[ordinal]));
+                markTrigramsStale(ordinal);
+            } else {
+                ordinal = nextOrdinal++;
+                if (ordinal == docs.length) {
+                    docs = Arrays.copyOf(docs, docs.length * 2);
+                }
+                ordinalById.put(copy.getBookId(), ordinal);
+                prefixes.putId(copy.getBookId(), ordinal);
+            }
+            docs[ordinal] = copy;
+            prefixes.addTokens(ordinal, tokensOf(copy));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(String bookId) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinalById.remove(bookId);
+            if (ordinal != null) {
+                prefixes.removeTokens(ordinal, tokensOf(docs[ordinal]));
+                markTrigramsStale(ordinal);
+                prefixes.removeId(bookId);
+                docs[ordinal] = null;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Updates the availability flag after a checkout or return; the indexed text does not change.
+     */
+    void setAvailability(String bookId, boolean available) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinalById.get(bookId);
+            if (ordinal != null) {
+                docs[ordinal] = copyOf(docs[ordinal], available);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the books matching every token of the query, by title/author token prefix or ID prefix.
+     * @param query The text typed in the search box.
+     * @return The matching books in insertion order; all books for a blank query.
+     */
+    Book[] search(String query) {
+        List<String> tokens = TextNormalizer.tokenize(query);
+        lock.readLock().lock();
+        try {
+            return collect(prefixes.match(tokens, nextOrdinal));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the first few available books matching the query, for type-ahead fields.
+     * Stops at the limit, so a short prefix does not materialize every match.
+     * @param query The text typed so far; a blank query matches every book.
+     * @param limit The maximum number of results.
+     * @return Up to limit available books in insertion order.
+     */
+    Book[] completeAvailable(String query, int limit) {
+        List<String> tokens = TextNormalizer.tokenize(query);
+        lock.readLock().lock();
+        try {
+            long[] matches = prefixes.match(tokens, nextOrdinal);
+            Book[] result = new Book[Math.max(0, limit)];
+            int count = 0;
+            for (int ordinal = 0; ordinal < nextOrdinal && count < result.length; ordinal++) {
+                if (matches != null) {
+                    long word = matches[ordinal >>> 6] >>> ordinal;
+                    if (word == 0) {
+                        ordinal |= 63; // Skip the rest of an empty bitset word.
+                        continue;
+                    }
+                    ordinal += Long.numberOfTrailingZeros(word);
+                }
+                Book book = docs[ordinal];
+                if (book != null && book.isAvailability()) {
+                    result[count++] = book;
+                }
+            }
+            return Arrays.copyOf(result, count);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the books most similar to the query by shared trigrams, tolerating typos and partial words.
+     * @param query The text typed by the user.
+     * @param limit The maximum number of results.
+     * @return The best matches, best first.
+     */
+    Book[] fuzzySearch(String query, int limit) {
+        long[] queryGrams = TrigramIndex.gramsOf(query);
+        if (queryGrams.length == 0 || limit <= 0) {
+            return new Book[0];
+        }
+        ensureTrigramIndex();
+
+        lock.readLock().lock();
+        try {
+            TrigramIndex.TopK top = new TrigramIndex.TopK(limit);
+            top.addAll(trigrams.search(queryGrams, docs, staleOrdinals, limit));
+
+            // Books added or edited after the build are not in the trigram index; score them directly.
+            for (int ordinal = trigrams.getDocumentCount(); ordinal < nextOrdinal; ordinal++) {
+                scoreDirectly(top, ordinal, queryGrams);
+            }
+            for (int word = 0; word < staleOrdinals.length; word++) {
+                long bits = staleOrdinals[word];
+                while (bits != 0) {
+                    scoreDirectly(top, (word << 6) + Long.numberOfTrailingZeros(bits), queryGrams);
+                    bits &= bits - 1;
+                }
+            }
+
+            List<TrigramIndex.ScoredOrdinal> ranked = top.drain();
+            Book[] result = new Book[ranked.size()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = docs[ranked.get(i).ordinal];
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // --- Helper Methods ---
+
+    /**
+     * Builds the trigram index on first use, and rebuilds it once the books scored directly
+     * (edited or added since the last build) exceed 5% of the catalog.
+     */
+    private void ensureTrigramIndex() {
+        lock.writeLock().lock();
+        try {
+            int pending = trigrams == null ? Integer.MAX_VALUE : staleCount + (nextOrdinal - trigrams.getDocumentCount());
+            int allowed = trigrams == null ? 0 : Math.max(1_000, trigrams.getDocumentCount() / 20);
+            if (pending > allowed) {
+                trigrams = new TrigramIndex(docs, nextOrdinal);
+                staleOrdinals = new long[0];
+                staleCount = 0;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void markTrigramsStale(int ordinal) {
+        if (trigrams == null || ordinal >= trigrams.getDocumentCount()) {
+            return;
+        }
+        int word = ordinal >>> 6;
+        if (word >= staleOrdinals.length) {
+            staleOrdinals = Arrays.copyOf(staleOrdinals, Math.max(word + 1, staleOrdinals.length * 2));
+        }
+        if ((staleOrdinals[word] & (1L << ordinal)) == 0) {
+            staleOrdinals[word] |= 1L << ordinal;
+            staleCount++;
+        }
+    }
+
+    private void scoreDirectly(TrigramIndex.TopK top, int ordinal, long[] queryGrams) {
+        Book book = docs[ordinal];
+        if (book != null) {
+            long[] bookGrams = TrigramIndex.gramsOf(book);
+            top.offer(ordinal, TrigramIndex.sharedGrams(queryGrams, bookGrams), queryGrams.length, bookGrams.length);
+        }
+    }
+
+    private Book[] collect(long[] matches) {
+        if (matches == null) {
+            Book[] all = new Book[ordinalById.size()];
+            int count = 0;
+            for (int ordinal = 0; ordinal < nextOrdinal; ordinal++) {
+                if (docs[ordinal] != null) {
+                    all[count++] = docs[ordinal];
+                }
+            }
+            return all;
+        }
+        int total = 0;
+        for (long word : matches) {
+            total += Long.bitCount(word);
+        }
+        Book[] result = new Book[total];
+        int count = 0;
+        for (int i = 0; i < matches.length; i++) {
+            long word = matches[i];
+            while (word != 0) {
+                result[count++] = docs[(i << 6) + Long.numberOfTrailingZeros(word)];
+                word &= word - 1;
+            }
+        }
+        return result;
+    }
+
+    private static List<String> tokensOf(Book book) {
+        List<String> tokens = TextNormalizer.tokenize(book.getTitle());
+        tokens.addAll(TextNormalizer.tokenize(book.getAuthor()));
+        return tokens;
+    }
+
+    private static Book copyOf(Book book, boolean availability) {
+        return new Book(book.getBookId(), book.getIsbn(), book.getTitle(), book.getAuthor(), book.getGenre(), availability);
+    }
+}
@@ -1,24 +1,55 @@
 package org.example.service.impl;
 
+import org.example.cache.Cache;
+import org.example.cache.CacheRegistry;
 import org.example.dao.BookDAO;
+import org.example.dao.BookSort;
+import org.example.dao.Page;
+import org.example.dao.PageKey;
+import org.example.dao.TextSearchMode;
 import org.example.dao.impl.BookDAOImpl;
 import org.example.dto.BookDTO;
+import org.example.dto.BookSummaryDTO;
 import org.example.entity.Book;
 import org.example.service.BookService;
+import org.example.service.DataVersions;
 
 import java.sql.SQLException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 public class BookServiceImpl implements BookService {
 
+    // Catalogs larger than this are searched on the server (BookDAO.search) instead of being
+    // loaded into every client's BookSearchIndex.
+    private static final long LOCAL_SEARCH_MAX_BOOKS = 100_000;
+    // The rows searchBooks returns in server mode; a narrower query finds the rest.
+    private static final int SERVER_SEARCH_LIMIT = 500;
+
+    // Decided once from the catalog size, then kept so the search box stays consistent.
+    private static volatile Boolean serverSearch;
+
     private final BookDAO bookDAO = new BookDAOImpl();
+    private final Cache<String, Book> bookCache;
+
+    public BookServiceImpl() {
+        this(CacheRegistry.getBookCache());
+    }
+
+    /**
+     * @param bookCache The cache that getById reads through; every write through this service invalidates it.
+     */
+    public BookServiceImpl(Cache<String, Book> bookCache) {
+        this.bookCache = bookCache;
+    }
 
     @Override
     public List<BookDTO> getAvailableBooks() throws SQLException {
-        return bookDAO.findAvailableBooks().stream()
-                .map(this::mapToDTO)
-                .collect(Collectors.toList());
+        return bookDAO.findAvailableBooks();
     }
 
     // --- All other methods from the previous version remain unchanged ---
@@ -27,37 +58,230 @@ public class BookServiceImpl implements BookService {
         return bookDAO.generateNextId();
     }
 
+    /**
+     * Stores the ISBN in its canonical ISBN-13 form. A book whose ISBN is invalid, or already
+     * catalogued in either its ISBN-10 or ISBN-13 form, is not added.
+     */
     @Override
     public boolean addBook(BookDTO bookDTO) throws SQLException {
         Book book = mapToEntity(bookDTO);
-        return bookDAO.save(book);
+        String isbn = IsbnNormalizer.canonicalize(book.getIsbn());
+        if (isbn == null || IsbnIndex.getInstance().findBookId(isbn) != null) {
+            return false;
+        }
+        book.setIsbn(isbn);
+        try {
+            boolean saved = bookDAO.save(book);
+            if (saved) {
+                updateIndexes(book);
+            }
+            return saved;
+        } finally {
+            bookCache.invalidate(book.getBookId()); // Also clears a cached "not found" for the new ID.
+            DataVersions.bump(DataVersions.Table.BOOKS);
+        }
     }
 
+    /**
+     * A changed ISBN is stored in its canonical form and must not belong to another book.
+     * An ISBN left as it was is kept verbatim, so a legacy row that the schema migration could not
+     * canonicalize, e.g. one with a wrong check digit, can still have its other fields edited.
+     */
     @Override
     public boolean updateBook(BookDTO bookDTO) throws SQLException {
         Book book = mapToEntity(bookDTO);
-        return bookDAO.update(book);
+        Book stored = bookDAO.findById(book.getBookId());
+        if (stored == null) {
+            return false;
+        }
+        if (!Objects.equals(book.getIsbn(), stored.getIsbn())) {
+            String isbn = IsbnNormalizer.canonicalize(book.getIsbn());
+            String owner = isbn == null ? null : IsbnIndex.getInstance().findBookId(isbn);
+            if (isbn == null || (owner != null && !owner.equals(book.getBookId()))) {
+                return false;
+            }
+            book.setIsbn(isbn);
+        }
+        try {
+            boolean updated = bookDAO.update(book);
+            if (updated) {
+                updateIndexes(book);
+            }
+            return updated;
+        } finally {
+            bookCache.invalidate(book.getBookId());
+            DataVersions.bump(DataVersions.Table.BOOKS);
+        }
     }
 
     @Override
     public boolean deleteBook(String bookId) throws SQLException {
-        return bookDAO.delete(bookId);
+        try {
+            boolean deleted = bookDAO.delete(bookId);
+            BookSearchIndex index = BookSearchIndex.getIfBuilt();
+            if (deleted && index != null) {
+                index.remove(bookId);
+            }
+            IsbnIndex isbnIndex = IsbnIndex.getIfBuilt();
+            if (deleted && isbnIndex != null) {
+                isbnIndex.remove(bookId);
+            }
+            return deleted;
+        } finally {
+            bookCache.invalidate(bookId);
+            DataVersions.bump(DataVersions.Table.BOOKS);
+        }
+    }
+
+    /**
+     * Lets the next search re-check the catalog size, e.g. after a bulk import.
+     */
+    static void resetSearchMode() {
+        serverSearch = null;
     }
 
     @Override
     public BookDTO getBookById(String bookId) throws SQLException {
-        Book book = bookDAO.findById(bookId);
+        Book book = bookCache.get(bookId, bookDAO::findById);
         return (book != null) ? mapToDTO(book) : null;
     }
 
+    /**
+     * One hash lookup from the canonical ISBN to the book ID, then the entity cache.
+     */
+    @Override
+    public BookDTO getBookByIsbn(String isbn) throws SQLException {
+        String canonical = IsbnNormalizer.canonicalize(isbn);
+        String bookId = canonical == null ? null : IsbnIndex.getInstance().findBookId(canonical);
+        return bookId == null ? null : getBookById(bookId);
+    }
+
+    @Override
+    public String normalizeIsbn(String isbn) {
+        return IsbnNormalizer.canonicalize(isbn);
+    }
+
     @Override
     public List<BookDTO> getAllBooks() throws SQLException {
-        List<Book> books = bookDAO.findAll();
-        return books.stream()
+        return bookDAO.findAll();
+    }
+
+    @Override
+    public Page<BookDTO> getBooksPage(PageKey afterKey, int limit, BookSort sort) throws SQLException {
+        return bookDAO.findPage(afterKey, limit, sort);
+    }
+
+    /**
+     * Answers the search box from the in-memory BookSearchIndex instead of scanning every book,
+     * or, for a catalog too large to index on each client, with the first page of a server-side full-text search.
+     * The result maps each matching entity to a DTO only when that row is first read,
+     * so a table showing the result only pays for its visible rows.
+     */
+    @Override
+    public List<BookDTO> searchBooks(String query) throws SQLException {
+        if (useServerSearch()) {
+            Page<BookDTO> page = query.isBlank()
+                    ? bookDAO.findPage(null, SERVER_SEARCH_LIMIT, BookSort.ID_ASC)
+                    : bookDAO.search(query, TextSearchMode.ALL_WORDS, SERVER_SEARCH_LIMIT, null);
+            return page.getItems();
+        }
+        Book[] matches = BookSearchIndex.getInstance().search(query);
+        BookDTO[] rows = new BookDTO[matches.length];
+        return new AbstractList<>() {
+            @Override
+            public BookDTO get(int index) {
+                if (rows[index] == null) {
+                    rows[index] = mapToDTO(matches[index]);
+                }
+                return rows[index];
+            }
+
+            // Supported so a TableView can sort the result in place.
+            @Override
+            public BookDTO set(int index, BookDTO element) {
+                BookDTO previous = get(index);
+                rows[index] = element;
+                return previous;
+            }
+
+            @Override
+            public int size() {
+                return matches.length;
+            }
+        };
+    }
+
+    @Override
+    public Page<BookDTO> searchBooksPage(String query, int limit, PageKey afterKey) throws SQLException {
+        if (useServerSearch()) {
+            return bookDAO.search(query, TextSearchMode.ALL_WORDS, limit, afterKey);
+        }
+        // Locally the key's sort value is the position of the last row already returned.
+        Book[] matches = BookSearchIndex.getInstance().search(query);
+        int from = afterKey == null ? 0 : ((Number) afterKey.getSortValue()).intValue() + 1;
+        int to = Math.min(matches.length, from + limit);
+        List<BookDTO> items = new ArrayList<>(Math.max(0, to - from));
+        for (int i = from; i < to; i++) {
+            items.add(mapToDTO(matches[i]));
+        }
+        PageKey nextKey = to < matches.length ? new PageKey(to - 1, matches[to - 1].getBookId()) : null;
+        return new Page<>(items, nextKey);
+    }
+
+    /**
+     * In server mode the typo-tolerant fallback becomes a natural-language full-text search,
+     * which ranks books sharing any of the query's words.
+     */
+    @Override
+    public List<BookDTO> searchBooksFuzzy(String query, int limit) throws SQLException {
+        if (useServerSearch()) {
+            return bookDAO.search(query, TextSearchMode.ANY_WORD, limit, null).getItems();
+        }
+        return Arrays.stream(BookSearchIndex.getInstance().fuzzySearch(query, limit))
                 .map(this::mapToDTO)
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public List<BookSummaryDTO> suggestAvailableBooks(String query, int limit) throws SQLException {
+        if (IsbnNormalizer.canonicalize(query) != null) {
+            // A scanned barcode: resolve it directly instead of searching.
+            BookDTO scanned = getBookByIsbn(query);
+            List<BookSummaryDTO> result = new ArrayList<>(1);
+            if (scanned != null && scanned.isAvailability()) {
+                result.add(new BookSummaryDTO(scanned.getBookId(), scanned.getTitle(), scanned.getAuthor()));
+            }
+            return result;
+        }
+        if (useServerSearch()) {
+            return bookDAO.searchAvailableSummaries(query, limit);
+        }
+        return Arrays.stream(BookSearchIndex.getInstance().completeAvailable(query, limit))
+                .map(book -> new BookSummaryDTO(book.getBookId(), book.getTitle(), book.getAuthor()))
+                .collect(Collectors.toList());
+    }
+
+    private boolean useServerSearch() throws SQLException {
+        Boolean server = serverSearch;
+        if (server == null) {
+            // A local index that is already built keeps serving this session.
+            server = BookSearchIndex.getIfBuilt() == null && bookDAO.countAll() > LOCAL_SEARCH_MAX_BOOKS;
+            serverSearch = server;
+        }
+        return server;
+    }
+
+    private void updateIndexes(Book book) {
+        BookSearchIndex index = BookSearchIndex.getIfBuilt();
+        if (index != null) {
+            index.put(book);
+        }
+        IsbnIndex isbnIndex = IsbnIndex.getIfBuilt();
+        if (isbnIndex != null) {
+            isbnIndex.put(book);
+        }
+    }
+
     private Book mapToEntity(BookDTO dto) {
         return new Book(
                 dto.getBookId(),
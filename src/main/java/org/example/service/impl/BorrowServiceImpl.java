@@ -1,17 +1,29 @@
 package org.example.service.impl;
 
+import org.example.cache.Cache;
+import org.example.cache.CacheRegistry;
+import org.example.dao.BatchResult;
 import org.example.dao.BookDAO;
 import org.example.dao.BorrowRecordDAO;
+import org.example.dao.BorrowRecordSort;
+import org.example.dao.Page;
+import org.example.dao.PageKey;
+import org.example.dao.UserDAO;
 import org.example.dao.impl.BookDAOImpl;
 import org.example.dao.impl.BorrowRecordDAOImpl;
-import org.example.db.DBConnection;
+import org.example.dao.impl.UserDAOImpl;
+import org.example.dto.BorrowOutcomeDTO;
 import org.example.dto.BorrowRecordDTO;
 import org.example.entity.Book;
 import org.example.entity.BorrowRecord;
 import org.example.service.BorrowService;
+import org.example.service.DataVersions;
 
-import java.sql.Connection;
 import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -23,71 +35,171 @@ public class BorrowServiceImpl implements BorrowService {
 
     private final BorrowRecordDAO borrowRecordDAO = new BorrowRecordDAOImpl();
     private final BookDAO bookDAO = new BookDAOImpl();
+    private final UserDAO userDAO = new UserDAOImpl();
+    private final Cache<String, Book> bookCache = CacheRegistry.getBookCache();
 
     private static final int BORROWING_LIMIT = 3;
 
     /**
      * Processes a book loan, now with a check for the user's borrowing limit.
+     * The limit is checked against the in-memory ActiveLoanIndex; the insert re-checks it in the database while holding the member's row lock.
      */
     @Override
     public boolean borrowBook(BorrowRecordDTO borrowRecordDTO) throws SQLException {
+        ActiveLoanIndex activeLoans = ActiveLoanIndex.getInstance();
+        String userId = borrowRecordDTO.getUserId();
+
         // --- Business Rule Check ---
-        // First, check if the user has already reached their borrowing limit.
-        int activeBorrows = borrowRecordDAO.getActiveBorrowCountForUser(borrowRecordDTO.getUserId());
-        if (activeBorrows >= BORROWING_LIMIT) {
-            // If the limit is reached, return false so the controller can show a specific error.
+        // Reserve a loan slot first; if the user is at the limit, return false so the controller can show a specific error.
+        if (activeLoans.reserve(userId, 1, BORROWING_LIMIT) == 0) {
             return false;
         }
 
         // --- Transactional Logic ---
         // If the check passes, proceed with the transaction.
-        Connection connection = null;
+        // The cached copy of the book is dropped once the transaction is over, whatever its outcome.
+        boolean borrowed = false;
         try {
-            connection = DBConnection.getInstance().getConnection();
-            connection.setAutoCommit(false);
-
-            // Save the new borrow record.
-            boolean isRecordSaved = borrowRecordDAO.save(mapToEntity(borrowRecordDTO));
-            if (!isRecordSaved) {
-                connection.rollback();
-                return false;
-            }
+            borrowed = TransactionManager.inTransaction(tx -> {
+                // Lock the member first, so a checkout at another desk waits until this one has committed
+                // and then counts this loan too.
+                if (!userDAO.lockForUpdate(userId)) {
+                    tx.setRollbackOnly(); // No such member
+                    return false;
+                }
 
-            // Update the book's availability to false.
-            Book book = bookDAO.findById(borrowRecordDTO.getBookId());
-            if (book == null || !book.isAvailability()) {
-                connection.rollback(); // Book not found or already borrowed
-                return false;
-            }
-            book.setAvailability(false);
-            boolean isBookUpdated = bookDAO.update(book);
-            if (!isBookUpdated) {
-                connection.rollback();
-                return false;
+                // Claim the copy with one conditional UPDATE; if another desk got there first, nothing changes.
+                if (!bookDAO.tryCheckout(borrowRecordDTO.getBookId())) {
+                    tx.setRollbackOnly(); // Book not found or already borrowed
+                    return false;
+                }
+
+                // Save the new borrow record, unless the database says the user is already at the limit.
+                boolean isRecordSaved = borrowRecordDAO.saveIfUnderLimit(mapToEntity(borrowRecordDTO), BORROWING_LIMIT);
+                if (!isRecordSaved) {
+                    tx.setRollbackOnly();
+                    return false;
+                }
+
+                // If both operations succeed, the transaction is committed.
+                return true;
+            });
+            return borrowed;
+        } finally {
+            if (!borrowed) {
+                activeLoans.release(userId, 1);
+            } else {
+                markAvailability(borrowRecordDTO.getBookId(), false);
             }
+            bookCache.invalidate(borrowRecordDTO.getBookId());
+            DataVersions.bump(DataVersions.Table.BOOKS, DataVersions.Table.BORROW_RECORDS);
+        }
+    }
 
-            // If both operations succeed, commit the transaction.
-            connection.commit();
-            return true;
+    /**
+     * Borrows a whole cart with a constant number of round trips:
+     * the limit is checked in memory, then one batch of conditional UPDATEs claims the copies
+     * and one batch of conditional INSERTs writes the records, all inside one transaction.
+     */
+    @Override
+    public List<BorrowOutcomeDTO> borrowBooks(String userId, List<String> bookIds, LocalDate borrowDate) throws SQLException {
+        List<String> cart = new ArrayList<>(new LinkedHashSet<>(bookIds));
+        List<BorrowOutcomeDTO> outcomes = new ArrayList<>(cart.size());
+        for (String bookId : cart) {
+            outcomes.add(new BorrowOutcomeDTO(bookId, null, BorrowOutcomeDTO.Status.LIMIT_REACHED));
+        }
+
+        // --- Business Rule Check ---
+        // The limit is checked once; only the first books that still fit are attempted.
+        ActiveLoanIndex activeLoans = ActiveLoanIndex.getInstance();
+        int granted = activeLoans.reserve(userId, cart.size(), BORROWING_LIMIT);
+        if (granted == 0) {
+            return outcomes;
+        }
+        List<String> candidates = cart.subList(0, granted);
 
-        } catch (SQLException e) {
-            if (connection != null) {
-                connection.rollback();
+        int borrowed = 0;
+        try {
+            claimInTransaction(userId, borrowDate, candidates, outcomes);
+            for (BorrowOutcomeDTO outcome : outcomes) {
+                if (outcome.getStatus() == BorrowOutcomeDTO.Status.BORROWED) {
+                    borrowed++;
+                    markAvailability(outcome.getBookId(), false);
+                }
             }
-            throw e;
+            return outcomes;
         } finally {
-            if (connection != null) {
-                connection.setAutoCommit(true);
+            activeLoans.release(userId, granted - borrowed);
+            for (String bookId : candidates) {
+                bookCache.invalidate(bookId);
             }
+            DataVersions.bump(DataVersions.Table.BOOKS, DataVersions.Table.BORROW_RECORDS);
         }
     }
 
+    private void claimInTransaction(String userId, LocalDate borrowDate, List<String> candidates,
+                                    List<BorrowOutcomeDTO> outcomes) throws SQLException {
+        TransactionManager.inTransaction(tx -> {
+            // Serializes checkouts for this member across desks; see borrowBook.
+            if (!userDAO.lockForUpdate(userId)) {
+                for (int i = 0; i < candidates.size(); i++) {
+                    outcomes.get(i).setStatus(BorrowOutcomeDTO.Status.FAILED);
+                }
+                return null;
+            }
+
+            BatchResult claimed = bookDAO.tryCheckoutAll(candidates);
+
+            List<BorrowRecord> records = new ArrayList<>(candidates.size());
+            List<BorrowOutcomeDTO> claimedOutcomes = new ArrayList<>(candidates.size());
+            for (int i = 0; i < candidates.size(); i++) {
+                BorrowOutcomeDTO outcome = outcomes.get(i);
+                if (claimed.isSuccess(i)) {
+                    String recordId = borrowRecordDAO.generateNextId();
+                    records.add(new BorrowRecord(recordId, userId, outcome.getBookId(), borrowDate, null, 0.0, false));
+                    outcome.setRecordId(recordId);
+                    outcome.setStatus(BorrowOutcomeDTO.Status.BORROWED);
+                    claimedOutcomes.add(outcome);
+                } else {
+                    outcome.setStatus(BorrowOutcomeDTO.Status.UNAVAILABLE);
+                }
+            }
+            if (records.isEmpty()) {
+                return null;
+            }
+
+            BatchResult saved = borrowRecordDAO.saveAllUnderLimit(records, BORROWING_LIMIT);
+            if (!saved.getFailures().isEmpty()) {
+                // Roll back the claimed copies too, so a book is never marked borrowed without a record.
+                tx.setRollbackOnly();
+                for (BorrowOutcomeDTO outcome : claimedOutcomes) {
+                    outcome.setRecordId(null);
+                    outcome.setStatus(BorrowOutcomeDTO.Status.FAILED);
+                }
+                return null;
+            }
+
+            // Rows refused by the database limit guard give their copies back in the same transaction.
+            List<String> refusedBookIds = new ArrayList<>();
+            for (int i = 0; i < claimedOutcomes.size(); i++) {
+                if (!saved.isSuccess(i)) {
+                    BorrowOutcomeDTO outcome = claimedOutcomes.get(i);
+                    outcome.setRecordId(null);
+                    outcome.setStatus(BorrowOutcomeDTO.Status.LIMIT_REACHED);
+                    refusedBookIds.add(outcome.getBookId());
+                }
+            }
+            if (!refusedBookIds.isEmpty()) {
+                bookDAO.tryCheckinAll(refusedBookIds);
+            }
+            return null;
+        });
+    }
+
     // --- All other methods remain unchanged ---
     @Override
     public List<BorrowRecordDTO> getAllBorrowRecords() throws SQLException {
-        return borrowRecordDAO.findAll().stream()
-                .map(this::mapToDTO)
-                .collect(Collectors.toList());
+        return borrowRecordDAO.findAll();
     }
 
     @Override
@@ -95,6 +207,54 @@ public class BorrowServiceImpl implements BorrowService {
         return borrowRecordDAO.generateNextId();
     }
 
+    @Override
+    public List<BorrowRecordDTO> getActiveBorrowRecords() throws SQLException {
+        return borrowRecordDAO.findActiveBorrows();
+    }
+
+    @Override
+    public List<BorrowRecordDTO> getBorrowRecordsByUser(String userId) throws SQLException {
+        return borrowRecordDAO.findByUser(userId);
+    }
+
+    @Override
+    public List<BorrowRecordDTO> getRecordsWithUnpaidFines() throws SQLException {
+        return borrowRecordDAO.findUnpaidFines();
+    }
+
+    @Override
+    public List<BorrowRecordDTO> getBorrowRecordsByIds(Collection<String> recordIds) throws SQLException {
+        return borrowRecordDAO.findByIds(recordIds).stream()
+                .map(this::mapToDTO)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Page<BorrowRecordDTO> getBorrowRecordsPage(PageKey afterKey, int limit, BorrowRecordSort sort) throws SQLException {
+        return borrowRecordDAO.findPage(afterKey, limit, sort);
+    }
+
+    @Override
+    public Page<BorrowRecordDTO> getOpenRecordsPage(PageKey afterKey, int limit, BorrowRecordSort sort) throws SQLException {
+        return borrowRecordDAO.findOpenPage(afterKey, limit, sort);
+    }
+
+    @Override
+    public BorrowRecordDTO findActiveLoan(String code) throws SQLException {
+        BorrowRecord record = borrowRecordDAO.findById(code);
+        if (record == null || record.getReturnDate() != null) {
+            record = borrowRecordDAO.findActiveByBook(code);
+        }
+        return record == null ? null : mapToDTO(record);
+    }
+
+    private void markAvailability(String bookId, boolean available) {
+        BookSearchIndex index = BookSearchIndex.getIfBuilt();
+        if (index != null) {
+            index.setAvailability(bookId, available);
+        }
+    }
+
     private BorrowRecord mapToEntity(BorrowRecordDTO dto) {
         return new BorrowRecord(
                 dto.getRecordId(),
@@ -0,0 +1,250 @@
+package org.example.service.impl;
+
+import org.example.cache.Cache;
+import org.example.cache.CacheRegistry;
+import org.example.dao.BookDAO;
+import org.example.dao.ChangeLogDAO;
+import org.example.dao.ChangeType;
+import org.example.dao.UserDAO;
+import org.example.dao.impl.BookDAOImpl;
+import org.example.dao.impl.ChangeLogDAOImpl;
+import org.example.dao.impl.UserDAOImpl;
+import org.example.dto.ChangeBatchDTO;
+import org.example.dto.ChangeDTO;
+import org.example.entity.Book;
+import org.example.entity.ChangeLogEntry;
+import org.example.entity.User;
+import org.example.service.ChangeFeed;
+import org.example.service.DataVersions;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+public class ChangeFeedImpl implements ChangeFeed {
+
+    // The most changes returned by one call; a busier log is read in several calls.
+    private static final int MAX_CHANGES_PER_BATCH = 1_000;
+    // Sequence numbers are taken just before a transaction commits but become visible when it has committed,
+    // so a missing number may still appear. A hole is given up once every transaction that was open when it
+    // was first seen has ended; one still missing after this long is given up too, and everything is reloaded.
+    private static final long HOLE_TIMEOUT_SECONDS = 600;
+    // A gap wider than this is not a commit in flight but e.g. entries purged while this client was away;
+    // it is not tracked number by number, and everything is reloaded instead.
+    private static final int MAX_TRACKED_HOLES = 10_000;
+    // Clients poll every second, so a day of history is far more than any of them needs.
+    private static final int RETENTION_HOURS = 24;
+
+    private final ChangeLogDAO changeLogDAO = new ChangeLogDAOImpl();
+    private final BookDAO bookDAO = new BookDAOImpl();
+    private final UserDAO userDAO = new UserDAOImpl();
+    private final Cache<String, Book> bookCache;
+    private final Cache<String, User> userCache;
+    // The feed reads ahead of the sequence its caller settles on: every entry up to readUpTo has been
+    // returned once already, and only the holes below it are looked up again, until they fill or are given up.
+    private long settledUpTo = -1;
+    private long readUpTo = -1;
+    // The local System.nanoTime at which each missing sequence number up to readUpTo was first seen.
+    private final NavigableMap<Long, Long> holesFirstSeen = new TreeMap<>();
+
+    public ChangeFeedImpl() {
+        this(CacheRegistry.getBookCache(), CacheRegistry.getUserCache());
+    }
+
+    /**
+     * @param bookCache The cache that changed books are invalidated in.
+     * @param userCache The cache that changed users are invalidated in.
+     */
+    public ChangeFeedImpl(Cache<String, Book> bookCache, Cache<String, User> userCache) {
+        this.bookCache = bookCache;
+        this.userCache = userCache;
+    }
+
+    @Override
+    public long getLatestSequence() throws SQLException {
+        return changeLogDAO.findLatestSeq();
+    }
+
+    /**
+     * The next sequence number stops before the first hole whose write may still commit, so a transaction
+     * that committed late is not skipped. The changes after the hole are returned right away, and only once:
+     * the next call reads on from the last entry returned and looks up the missing numbers separately.
+     * A hole is only known to be a rolled-back write once the oldest open transaction started after the
+     * hole was first seen, which is checked before the log is read so a commit cannot slip in between.
+     */
+    @Override
+    public synchronized ChangeBatchDTO getChangesSince(long sequence) throws SQLException {
+        if (sequence != settledUpTo) {
+            // A new reader, or one starting over: forget what was returned past its sequence.
+            readUpTo = sequence;
+            holesFirstSeen.clear();
+        }
+        // The state is only replaced once the batch is ready, so a failed read is simply repeated.
+        NavigableMap<Long, Long> holes = new TreeMap<>(holesFirstSeen);
+
+        long probedAt = System.nanoTime();
+        Long oldestOpenSeconds = null;
+        boolean probed = false;
+        List<ChangeLogEntry> filled = List.of();
+        if (!holes.isEmpty()) {
+            try {
+                oldestOpenSeconds = changeLogDAO.findOldestOpenTransactionAgeSeconds();
+                probed = true;
+            } catch (SQLException e) {
+                // E.g. no PROCESS privilege; pending holes then wait for the timeout.
+            }
+            filled = changeLogDAO.findBySeqs(holes.keySet());
+        }
+        List<ChangeLogEntry> fresh = changeLogDAO.findAfter(readUpTo, MAX_CHANGES_PER_BATCH);
+        long readAt = System.nanoTime();
+
+        List<ChangeDTO> changes = new ArrayList<>(filled.size() + fresh.size());
+        boolean resync = false;
+        for (ChangeLogEntry entry : filled) {
+            holes.remove(entry.getSeq());
+            addChange(changes, entry);
+        }
+        long read = readUpTo;
+        for (ChangeLogEntry entry : fresh) {
+            if (entry.getSeq() - read - 1 > MAX_TRACKED_HOLES) {
+                resync = true;
+            } else {
+                for (long hole = read + 1; hole < entry.getSeq(); hole++) {
+                    holes.put(hole, readAt);
+                }
+            }
+            read = entry.getSeq();
+            addChange(changes, entry);
+        }
+
+        long next = read;
+        Iterator<Map.Entry<Long, Long>> pending = holes.entrySet().iterator();
+        while (pending.hasNext()) {
+            Map.Entry<Long, Long> hole = pending.next();
+            long firstSeen = hole.getValue();
+            // A hole seen for the first time in this call is never given up: the probe above predates it.
+            // Otherwise it is a rolled-back write if every transaction open when it was seen has ended;
+            // the extra second covers both clocks counting in whole seconds.
+            boolean rolledBack = firstSeen < probedAt && probed && (oldestOpenSeconds == null
+                    || oldestOpenSeconds + 1 <= TimeUnit.NANOSECONDS.toSeconds(probedAt - firstSeen));
+            if (rolledBack) {
+                pending.remove();
+            } else if (TimeUnit.NANOSECONDS.toSeconds(readAt - firstSeen) >= HOLE_TIMEOUT_SECONDS) {
+                pending.remove();
+                resync = true;
+            } else {
+                next = hole.getKey() - 1;
+                break;
+            }
+        }
+
+        if (resync) {
+            dropLocalCopies();
+        } else {
+            refreshLocalCopies(changes);
+        }
+        holesFirstSeen.clear();
+        holesFirstSeen.putAll(holes);
+        readUpTo = read;
+        settledUpTo = next;
+        return new ChangeBatchDTO(changes, next, fresh.size() == MAX_CHANGES_PER_BATCH, resync);
+    }
+
+    @Override
+    public int purgeExpiredChanges() throws SQLException {
+        return changeLogDAO.deleteOlderThan(RETENTION_HOURS);
+    }
+
+    private static void addChange(List<ChangeDTO> changes, ChangeLogEntry entry) {
+        DataVersions.Table table = toTable(entry.getTableName());
+        if (table != null) {
+            changes.add(new ChangeDTO(entry.getSeq(), table, entry.getRowId(), ChangeType.valueOf(entry.getChangeType())));
+        }
+    }
+
+    private static DataVersions.Table toTable(String tableName) {
+        try {
+            return DataVersions.Table.valueOf(tableName.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null; // A table this version does not show.
+        }
+    }
+
+    /**
+     * A skipped hole may hide a change that was never seen, so nothing cached can be trusted any more.
+     * The indexes are rebuilt on their next use and every screen reloads when its version is checked.
+     */
+    private void dropLocalCopies() {
+        bookCache.invalidateAll();
+        userCache.invalidateAll();
+        BookSearchIndex.reset();
+        IsbnIndex.reset();
+        UserSearchIndex.reset();
+        DataVersions.bump(DataVersions.Table.values());
+    }
+
+    /**
+     * Writes made through this client's services already keep its caches and indexes current;
+     * this catches up with the writes of other clients. Only rows already indexed are re-read.
+     */
+    private void refreshLocalCopies(List<ChangeDTO> changes) throws SQLException {
+        Set<String> bookIds = new LinkedHashSet<>();
+        Set<String> userIds = new LinkedHashSet<>();
+        for (ChangeDTO change : changes) {
+            if (change.getTable() == DataVersions.Table.BOOKS) {
+                bookIds.add(change.getRowId());
+            } else if (change.getTable() == DataVersions.Table.USERS) {
+                userIds.add(change.getRowId());
+            }
+        }
+
+        for (String bookId : bookIds) {
+            bookCache.invalidate(bookId);
+        }
+        BookSearchIndex bookIndex = BookSearchIndex.getIfBuilt();
+        IsbnIndex isbnIndex = IsbnIndex.getIfBuilt();
+        if (!bookIds.isEmpty() && (bookIndex != null || isbnIndex != null)) {
+            Set<String> deleted = new LinkedHashSet<>(bookIds);
+            for (Book book : bookDAO.findByIds(bookIds)) {
+                deleted.remove(book.getBookId());
+                if (bookIndex != null) {
+                    bookIndex.put(book);
+                }
+                if (isbnIndex != null) {
+                    isbnIndex.put(book);
+                }
+            }
+            for (String bookId : deleted) {
+                if (bookIndex != null) {
+                    bookIndex.remove(bookId);
+                }
+                if (isbnIndex != null) {
+                    isbnIndex.remove(bookId);
+                }
+            }
+        }
+
+        for (String userId : userIds) {
+            userCache.invalidate(userId);
+        }
+        UserSearchIndex userIndex = UserSearchIndex.getIfBuilt();
+        if (!userIds.isEmpty() && userIndex != null) {
+            Set<String> deleted = new LinkedHashSet<>(userIds);
+            for (User user : userDAO.findByIds(userIds)) {
+                deleted.remove(user.getUserId());
+                userIndex.put(user);
+            }
+            for (String userId : deleted) {
+                userIndex.remove(userId);
+            }
+        }
+    }
+}
@@ -3,6 +3,7 @@ package org.example.service.impl;
 import org.example.dao.BorrowRecordDAO;
 import org.example.dao.impl.BorrowRecordDAOImpl;
 import org.example.entity.BorrowRecord;
+import org.example.service.DataVersions;
 import org.example.service.FineService;
 
 import java.sql.SQLException;
@@ -26,7 +27,9 @@ public class FineServiceImpl implements FineService {
             record.setFinePaid(true);
 
             // 4. Use the DAO to save the updated record back to the database.
-            return borrowRecordDAO.update(record);
+            boolean updated = borrowRecordDAO.update(record);
+            DataVersions.bump(DataVersions.Table.BORROW_RECORDS);
+            return updated;
         }
 
         // Return false if the record was not found or had no fine to pay.
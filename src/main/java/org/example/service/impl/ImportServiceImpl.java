@@ -0,0 +1,317 @@
+package org.example.service.impl;
+
+import org.example.cache.CacheRegistry;
+import org.example.dao.BatchResult;
+import org.example.dao.BookDAO;
+import org.example.dao.UserDAO;
+import org.example.dao.impl.BookDAOImpl;
+import org.example.dao.impl.UserDAOImpl;
+import org.example.entity.Book;
+import org.example.entity.User;
+import org.example.service.DataVersions;
+import org.example.service.ImportProgress;
+import org.example.service.ImportService;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * The concrete implementation of the ImportService interface.
+ * Each import is a three-stage pipeline:
+ * 1. the calling thread reads the file and cuts it into chunks of lines,
+ * 2. a pool with one thread per core parses, validates and normalizes the chunks in parallel,
+ * 3. a single writer thread assigns IDs and inserts each chunk with one JDBC batch per transaction.
+ * The stages are connected by bounded hand-offs, so memory use does not grow with the file size.
+ */
+public class ImportServiceImpl implements ImportService {
+
+    private static final int LINES_PER_CHUNK = 2_000;
+
+    private final BookDAO bookDAO = new BookDAOImpl();
+    private final UserDAO userDAO = new UserDAOImpl();
+
+    @Override
+    public ImportProgress importBooks(Path csvFile, Consumer<ImportProgress> onProgress) throws IOException, SQLException {
+        // Duplicates are rejected while parsing: the Bloom filter answers "not in the catalog" for most new ISBNs
+        // without touching the index, and the exact set catches repeats within the file.
+        IsbnIndex catalog = IsbnIndex.getInstance();
+        BloomFilter inCatalog = catalog.toBloomFilter();
+        Set<String> inFile = ConcurrentHashMap.newKeySet();
+        try {
+            return runPipeline(csvFile, "isbn", fields -> parseBook(fields, catalog, inCatalog, inFile), books -> TransactionManager.inTransaction(tx -> {
+                for (Book book : books) {
+                    book.setBookId(bookDAO.generateNextId());
+                }
+                return bookDAO.saveAll(books);
+            }), onProgress);
+        } finally {
+            CacheRegistry.getBookCache().invalidateAll(); // Drops cached "not found" entries for the new IDs.
+            BookSearchIndex.reset(); // Rebuilt from the table on the next search.
+            BookServiceImpl.resetSearchMode(); // The catalog may have outgrown the local index.
+            IsbnIndex.reset();
+            DataVersions.bump(DataVersions.Table.BOOKS);
+        }
+    }
+
+    @Override
+    public ImportProgress importUsers(Path csvFile, Consumer<ImportProgress> onProgress) throws IOException, SQLException {
+        try {
+            return runPipeline(csvFile, "name", this::parseUser, users -> TransactionManager.inTransaction(tx -> {
+                for (User user : users) {
+                    user.setUserId(userDAO.generateNextId());
+                }
+                return userDAO.saveAll(users);
+            }), onProgress);
+        } finally {
+            CacheRegistry.getUserCache().invalidateAll(); // Drops cached "not found" entries for the new IDs.
+            UserSearchIndex.reset(); // Rebuilt from the table on the next lookup.
+            DataVersions.bump(DataVersions.Table.USERS);
+        }
+    }
+
+    // --- Row Parsers ---
+
+    /**
+     * Parses isbn,title,author,genre. Throws IllegalArgumentException with the reject reason.
+     * The ISBN is stored in its canonical ISBN-13 form; one already catalogued or seen earlier in the file is rejected.
+     */
+    private Book parseBook(String[] fields, IsbnIndex catalog, BloomFilter inCatalog, Set<String> inFile) {
+        String isbn = IsbnNormalizer.canonicalize(field(fields, 0));
+        if (isbn == null) {
+            throw new IllegalArgumentException("Invalid ISBN '" + field(fields, 0) + "'");
+        }
+        if (inCatalog.mightContain(isbn)) {
+            String bookId = catalog.findBookId(isbn);
+            if (bookId != null) {
+                throw new IllegalArgumentException("ISBN " + isbn + " is already catalogued as " + bookId);
+            }
+        }
+        if (!inFile.add(isbn)) {
+            throw new IllegalArgumentException("ISBN " + isbn + " appears earlier in the file");
+        }
+        String title = field(fields, 1);
+        if (title.isEmpty()) {
+            throw new IllegalArgumentException("Title is required");
+        }
+        return new Book(null, isbn, title, field(fields, 2), field(fields, 3), true);
+    }
+
+    /**
+     * Parses name,contact,membership_date,username,password. Throws IllegalArgumentException with the reject reason.
+     */
+    private User parseUser(String[] fields) {
+        String name = field(fields, 0);
+        String username = field(fields, 3);
+        if (name.isEmpty() || username.isEmpty()) {
+            throw new IllegalArgumentException("Name and username are required");
+        }
+        LocalDate membershipDate = null;
+        String date = field(fields, 2);
+        if (!date.isEmpty()) {
+            try {
+                membershipDate = LocalDate.parse(date);
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid membership date '" + date + "'");
+            }
+        }
+        return new User(null, name, field(fields, 1), membershipDate, username, field(fields, 4));
+    }
+
+    private static String field(String[] fields, int index) {
+        return index < fields.length ? fields[index].trim() : "";
+    }
+
+    // --- Pipeline ---
+
+    @FunctionalInterface
+    private interface RowParser<T> {
+        T parse(String[] fields);
+    }
+
+    @FunctionalInterface
+    private interface BatchSink<T> {
+        BatchResult write(List<T> rows) throws SQLException;
+    }
+
+    private <T> ImportProgress runPipeline(Path csvFile, String headerFirstColumn, RowParser<T> parser,
+                                           BatchSink<T> sink, Consumer<ImportProgress> onProgress) throws IOException, SQLException {
+        int workers = Runtime.getRuntime().availableProcessors();
+        int maxChunksInFlight = workers * 2;
+        ImportProgress progress = new ImportProgress();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        BlockingQueue<List<T>> writeQueue = new ArrayBlockingQueue<>(maxChunksInFlight);
+        Semaphore inFlight = new Semaphore(maxChunksInFlight);
+        List<T> endOfInput = new ArrayList<>(0);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService parsers = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "import-parser-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Thread writer = new Thread(() -> {
+            try {
+                while (true) {
+                    List<T> rows = writeQueue.take();
+                    if (rows == endOfInput) {
+                        return;
+                    }
+                    if (failure.get() != null) {
+                        continue; // Keep draining so the parsers never block on a full queue.
+                    }
+                    try {
+                        BatchResult result = sink.write(rows);
+                        progress.addWritten(result.getSuccessCount());
+                        if (!result.isAllSucceeded()) {
+                            String reason = result.getFailures().isEmpty() ? "Rejected by the database"
+                                    : result.getFailures().get(0).getMessage();
+                            progress.rejectWritten(result.getFailureCount(), reason);
+                        }
+                    } catch (SQLException | RuntimeException e) {
+                        failure.compareAndSet(null, e);
+                    }
+                    if (onProgress != null) {
+                        onProgress.accept(progress);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "import-writer");
+        writer.setDaemon(true);
+        writer.start();
+
+        try (BufferedReader reader = Files.newBufferedReader(csvFile, StandardCharsets.UTF_8)) {
+            long lineNumber = 0;
+            long chunkStartLine = 1;
+            List<String> chunk = new ArrayList<>(LINES_PER_CHUNK);
+            String line;
+            while (failure.get() == null && (line = reader.readLine()) != null) {
+                lineNumber++;
+                if (lineNumber == 1 && splitCsvLine(line)[0].trim().equalsIgnoreCase(headerFirstColumn)) {
+                    continue;
+                }
+                if (chunk.isEmpty()) {
+                    chunkStartLine = lineNumber;
+                }
+                chunk.add(line);
+                if (chunk.size() == LINES_PER_CHUNK) {
+                    submitChunk(chunk, chunkStartLine, parser, parsers, inFlight, writeQueue, progress, failure);
+                    chunk = new ArrayList<>(LINES_PER_CHUNK);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                submitChunk(chunk, chunkStartLine, parser, parsers, inFlight, writeQueue, progress, failure);
+            }
+
+            // Wait for every parser to hand its chunk over, then tell the writer to finish.
+            inFlight.acquire(maxChunksInFlight);
+            writeQueue.put(endOfInput);
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, e);
+            writer.interrupt();
+        } finally {
+            parsers.shutdownNow();
+        }
+
+        Throwable error = failure.get();
+        progress.finish(error);
+        if (error instanceof SQLException sqlException) {
+            throw sqlException;
+        }
+        if (error instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        }
+        if (error != null) {
+            throw new SQLException("The import was interrupted.", error);
+        }
+        return progress;
+    }
+
+    private <T> void submitChunk(List<String> lines, long firstLineNumber, RowParser<T> parser, ExecutorService parsers,
+                                 Semaphore inFlight, BlockingQueue<List<T>> writeQueue, ImportProgress progress,
+                                 AtomicReference<Throwable> failure) throws InterruptedException {
+        inFlight.acquire();
+        progress.addRead(lines.size());
+        parsers.execute(() -> {
+            try {
+                List<T> rows = new ArrayList<>(lines.size());
+                for (int i = 0; i < lines.size(); i++) {
+                    String line = lines.get(i);
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    try {
+                        rows.add(parser.parse(splitCsvLine(line)));
+                    } catch (IllegalArgumentException e) {
+                        progress.reject(firstLineNumber + i, e.getMessage());
+                    }
+                }
+                progress.addAccepted(rows.size());
+                if (!rows.isEmpty()) {
+                    writeQueue.put(rows);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                inFlight.release();
+            }
+        });
+    }
+
+    /**
+     * Splits one CSV line on commas, honouring double-quoted fields and "" escapes.
+     */
+    static String[] splitCsvLine(String line) {
+        List<String> fields = new ArrayList<>(8);
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        current.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+        return fields.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,59 @@
+package org.example.service.impl;
+
+import java.util.Arrays;
+
+/**
+ * A sorted, growable list of document ordinals backed by a primitive int array,
+ * so a posting list costs four bytes per entry instead of a boxed Integer.
+ */
+final class IntPostings {
+
+    private int[] ordinals = new int[4];
+    private int size;
+
+    /**
+     * Adds an ordinal, keeping the list sorted. New documents get the highest ordinal, so this is usually an append.
+     */
+    void add(int ordinal) {
+        if (size > 0 && ordinals[size - 1] >= ordinal) {
+            int index = Arrays.binarySearch(ordinals, 0, size, ordinal);
+            if (index >= 0) {
+                return;
+            }
+            insertAt(-index - 1, ordinal);
+            return;
+        }
+        insertAt(size, ordinal);
+    }
+
+    void remove(int ordinal) {
+        int index = Arrays.binarySearch(ordinals, 0, size, ordinal);
+        if (index >= 0) {
+            System.arraycopy(ordinals, index + 1, ordinals, index, size - index - 1);
+            size--;
+        }
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Sets the bit of every ordinal in the list.
+     */
+    void addTo(long[] bits) {
+        for (int i = 0; i < size; i++) {
+            int ordinal = ordinals[i];
+            bits[ordinal >>> 6] |= 1L << ordinal;
+        }
+    }
+
+    private void insertAt(int index, int ordinal) {
+        if (size == ordinals.length) {
+            ordinals = Arrays.copyOf(ordinals, size * 2);
+        }
+        System.arraycopy(ordinals, index, ordinals, index + 1, size - index);
+        ordinals[index] = ordinal;
+        size++;
+    }
+}
@@ -0,0 +1,103 @@
+package org.example.service.impl;
+
+import org.example.dao.BookDAO;
+import org.example.dao.DataAccessException;
+import org.example.dao.impl.BookDAOImpl;
+import org.example.entity.Book;
+
+import java.sql.SQLException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Maps canonical ISBN-13s to book IDs in memory, so a barcode scan resolves to a book with one hash lookup.
+ * Rows stored before ISBNs were canonicalized are indexed under their canonical form as well.
+ * BookServiceImpl keeps it current on add, update and delete; reads are lock-free.
+ */
+final class IsbnIndex {
+
+    private static volatile IsbnIndex instance;
+
+    private final ConcurrentHashMap<String, String> bookIdByIsbn = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, String> isbnByBookId = new ConcurrentHashMap<>();
+
+    private IsbnIndex() {
+    }
+
+    /**
+     * Returns the shared index, building it from one streaming pass over the books table on first use.
+     */
+    static IsbnIndex getInstance() throws SQLException {
+        if (instance == null) {
+            synchronized (IsbnIndex.class) {
+                if (instance == null) {
+                    IsbnIndex index = new IsbnIndex();
+                    BookDAO bookDAO = new BookDAOImpl();
+                    try (Stream<Book> books = bookDAO.streamAll()) {
+                        books.forEach(index::put);
+                    } catch (DataAccessException e) {
+                        throw e.getCause();
+                    }
+                    instance = index;
+                }
+            }
+        }
+        return instance;
+    }
+
+    static IsbnIndex getIfBuilt() {
+        return instance;
+    }
+
+    /**
+     * Drops the index so the next lookup rebuilds it, e.g. after a bulk import.
+     */
+    static void reset() {
+        instance = null;
+    }
+
+    /**
+     * @param canonicalIsbn An ISBN from IsbnNormalizer.canonicalize.
+     * @return The ID of the book with this ISBN, or null.
+     */
+    String findBookId(String canonicalIsbn) {
+        return bookIdByIsbn.get(canonicalIsbn);
+    }
+
+    int size() {
+        return bookIdByIsbn.size();
+    }
+
+    /**
+     * Adds a book, or moves it if its ISBN changed. A book with an invalid ISBN is only removed.
+     * If two legacy rows share an ISBN, the first one indexed keeps it.
+     */
+    synchronized void put(Book book) {
+        String isbn = IsbnNormalizer.canonicalize(book.getIsbn());
+        String previous = isbn == null ? isbnByBookId.remove(book.getBookId()) : isbnByBookId.put(book.getBookId(), isbn);
+        if (previous != null && !previous.equals(isbn)) {
+            bookIdByIsbn.remove(previous, book.getBookId());
+        }
+        if (isbn != null) {
+            bookIdByIsbn.putIfAbsent(isbn, book.getBookId());
+        }
+    }
+
+    synchronized void remove(String bookId) {
+        String isbn = isbnByBookId.remove(bookId);
+        if (isbn != null) {
+            bookIdByIsbn.remove(isbn, bookId);
+        }
+    }
+
+    /**
+     * Returns a Bloom filter holding every indexed ISBN, for fast duplicate pre-checks during bulk loads.
+     */
+    BloomFilter toBloomFilter() {
+        BloomFilter filter = new BloomFilter(bookIdByIsbn.size(), 0.01);
+        for (String isbn : bookIdByIsbn.keySet()) {
+            filter.add(isbn);
+        }
+        return filter;
+    }
+}
@@ -0,0 +1,83 @@
+package org.example.service.impl;
+
+/**
+ * Cleans up ISBNs typed by staff, scanned at the desk or read from import files.
+ * The canonical form stored in the books table is the 13-digit ISBN without separators.
+ * It is public for the schema migration that canonicalizes rows stored before this form was enforced.
+ */
+public final class IsbnNormalizer {
+
+    private IsbnNormalizer() {
+    }
+
+    /**
+     * Removes hyphens and spaces and upper-cases a trailing 'x'.
+     * @param raw The ISBN as entered.
+     * @return The 10- or 13-character ISBN, or null if it does not have the shape of an ISBN.
+     */
+    static String normalize(String raw) {
+        if (raw == null) {
+            return null;
+        }
+        StringBuilder digits = new StringBuilder(13);
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            } else if ((c == 'X' || c == 'x') && digits.length() == 9) {
+                digits.append('X');
+            } else if (c != '-' && c != ' ') {
+                return null;
+            }
+        }
+        int length = digits.length();
+        if (length == 10 || (length == 13 && digits.indexOf("X") < 0)) {
+            return digits.toString();
+        }
+        return null;
+    }
+
+    /**
+     * Validates the check digit and converts an ISBN-10 to its ISBN-13 form (978 prefix),
+     * so the same book always gets the same key.
+     * @param raw The ISBN as entered, with or without hyphens and spaces.
+     * @return The 13-digit canonical ISBN, or null if the ISBN is malformed or its check digit is wrong.
+     */
+    public static String canonicalize(String raw) {
+        String isbn = normalize(raw);
+        if (isbn == null) {
+            return null;
+        }
+        if (isbn.length() == 13) {
+            return isbn13CheckDigit(isbn) == isbn.charAt(12) ? isbn : null;
+        }
+        if (isbn10CheckDigit(isbn) != isbn.charAt(9)) {
+            return null;
+        }
+        String isbn13 = "978" + isbn.substring(0, 9);
+        return isbn13 + isbn13CheckDigit(isbn13);
+    }
+
+    /**
+     * ISBN-10: the digits weighted 10 down to 2, and the check digit brings the sum to a multiple of 11 ('X' is 10).
+     */
+    private static char isbn10CheckDigit(String isbn) {
+        int sum = 0;
+        for (int i = 0; i < 9; i++) {
+            sum += (10 - i) * (isbn.charAt(i) - '0');
+        }
+        int check = (11 - sum % 11) % 11;
+        return check == 10 ? 'X' : (char) ('0' + check);
+    }
+
+    /**
+     * ISBN-13: the first twelve digits weighted alternately 1 and 3, and the check digit brings the sum to a multiple of 10.
+     */
+    private static char isbn13CheckDigit(String isbn) {
+        int sum = 0;
+        for (int i = 0; i < 12; i++) {
+            sum += (i % 2 == 0 ? 1 : 3) * (isbn.charAt(i) - '0');
+        }
+        return (char) ('0' + (10 - sum % 10) % 10);
+    }
+}
@@ -1,19 +1,27 @@
 package org.example.service.impl;
 
+import org.example.cache.Cache;
+import org.example.cache.CacheRegistry;
+import org.example.dao.BatchResult;
 import org.example.dao.BookDAO;
 import org.example.dao.BorrowRecordDAO;
 import org.example.dao.impl.BookDAOImpl;
 import org.example.dao.impl.BorrowRecordDAOImpl;
-import org.example.db.DBConnection;
 import org.example.dto.ReturnDTO;
+import org.example.dto.ReturnOutcomeDTO;
 import org.example.entity.Book;
 import org.example.entity.BorrowRecord;
+import org.example.service.DataVersions;
 import org.example.service.ReturnService;
 
-import java.sql.Connection;
 import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * The concrete implementation of the ReturnService interface.
@@ -23,68 +31,166 @@ public class ReturnServiceImpl implements ReturnService {
 
     private final BorrowRecordDAO borrowRecordDAO = new BorrowRecordDAOImpl();
     private final BookDAO bookDAO = new BookDAOImpl();
+    private final Cache<String, Book> bookCache = CacheRegistry.getBookCache();
 
     private static final int LENDING_PERIOD_DAYS = 14;
     private static final double FINE_PER_DAY = 10.0;
 
     @Override
     public boolean processReturn(ReturnDTO returnDTO) throws SQLException {
-        Connection connection = null;
         try {
-            // 1. Get a single connection for the entire transaction.
-            connection = DBConnection.getInstance().getConnection();
-            // 2. Disable auto-commit to manage the transaction manually.
-            connection.setAutoCommit(false);
+            BorrowRecord returned = returnInTransaction(returnDTO);
+            if (returned == null) {
+                return false;
+            }
+            ActiveLoanIndex.getInstance().release(returned.getUserId(), 1);
+            markAvailable(returned.getBookId());
+            return true;
+        } finally {
+            // The book's availability may have changed; drop the cached copy once the transaction is over.
+            bookCache.invalidate(returnDTO.getBookId());
+            DataVersions.bump(DataVersions.Table.BOOKS, DataVersions.Table.BORROW_RECORDS);
+        }
+    }
 
-            // 3. Fetch the original borrow record from the database.
+    /**
+     * @return The closed record, or null if the return was rolled back.
+     */
+    private BorrowRecord returnInTransaction(ReturnDTO returnDTO) throws SQLException {
+        // 1. Run every step below in one transaction on a connection bound to this thread.
+        //    Any exception rolls back all changes and is re-thrown to the controller.
+        return TransactionManager.inTransaction(tx -> {
+            // 2. Fetch the original borrow record from the database.
             BorrowRecord recordToUpdate = borrowRecordDAO.findById(returnDTO.getRecordId());
-            if (recordToUpdate == null) {
-                connection.rollback();
-                return false; // Record not found
+            if (recordToUpdate == null || recordToUpdate.getReturnDate() != null) {
+                tx.setRollbackOnly();
+                return null; // Record not found, or the loan is already closed
             }
 
-            // 4. Calculate the fine based on the business rule.
+            // 3. Calculate the fine based on the business rule.
             double fine = calculateFine(recordToUpdate.getBorrowDate(), returnDTO.getReturnDate());
 
-            // 5. Update the borrow record with the return date and calculated fine.
+            // 4. Close the loan with the return date and calculated fine.
+            //    The "still on loan" condition catches a return made concurrently at another desk.
             recordToUpdate.setReturnDate(returnDTO.getReturnDate());
             recordToUpdate.setFine(fine);
-            boolean isRecordUpdated = borrowRecordDAO.update(recordToUpdate);
+            if (!borrowRecordDAO.tryReturn(recordToUpdate)) {
+                tx.setRollbackOnly();
+                return null;
+            }
 
-            if (!isRecordUpdated) {
-                connection.rollback(); // If update fails, roll back.
-                return false;
+            // 5. Make the book available again with one conditional UPDATE.
+            //    This fails if the book is missing or was never checked out.
+            if (!bookDAO.tryCheckin(recordToUpdate.getBookId())) {
+                tx.setRollbackOnly();
+                return null;
             }
 
-            // 6. Update the book's availability to true.
-            Book bookToUpdate = bookDAO.findById(recordToUpdate.getBookId());
-            if (bookToUpdate == null) {
-                connection.rollback(); // Should not happen if data is consistent
-                return false;
+            // 6. If all operations succeed, the transaction is committed.
+            return recordToUpdate;
+        });
+    }
+
+    @Override
+    public List<ReturnOutcomeDTO> processReturns(List<ReturnDTO> returns) throws SQLException {
+        Map<String, ReturnDTO> byRecordId = new LinkedHashMap<>();
+        for (ReturnDTO returnDTO : returns) {
+            byRecordId.putIfAbsent(returnDTO.getRecordId(), returnDTO);
+        }
+        if (byRecordId.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        try {
+            List<ReturnOutcomeDTO> outcomes = returnAllInTransaction(byRecordId);
+            ActiveLoanIndex activeLoans = ActiveLoanIndex.getInstance();
+            for (ReturnOutcomeDTO outcome : outcomes) {
+                if (outcome.getStatus() == ReturnOutcomeDTO.Status.RETURNED) {
+                    activeLoans.release(outcome.getUserId(), 1);
+                    markAvailable(outcome.getBookId());
+                }
+            }
+            return outcomes;
+        } finally {
+            // The books' availability may have changed; drop the cached copies once the transaction is over.
+            for (ReturnDTO returnDTO : byRecordId.values()) {
+                if (returnDTO.getBookId() != null) {
+                    bookCache.invalidate(returnDTO.getBookId());
+                }
             }
-            bookToUpdate.setAvailability(true);
-            boolean isBookUpdated = bookDAO.update(bookToUpdate);
+            DataVersions.bump(DataVersions.Table.BOOKS, DataVersions.Table.BORROW_RECORDS);
+        }
+    }
 
-            if (!isBookUpdated) {
-                connection.rollback(); // If update fails, roll back.
-                return false;
+    private List<ReturnOutcomeDTO> returnAllInTransaction(Map<String, ReturnDTO> byRecordId) throws SQLException {
+        return TransactionManager.inTransaction(tx -> {
+            // 1. Load every affected record with one multi-key query.
+            Map<String, BorrowRecord> records = new HashMap<>();
+            for (BorrowRecord record : borrowRecordDAO.findByIds(byRecordId.keySet())) {
+                records.put(record.getRecordId(), record);
             }
 
-            // 7. If all operations succeed, commit the transaction.
-            connection.commit();
-            return true;
+            // 2. Calculate the fines in memory and collect the loans that can be closed.
+            List<ReturnOutcomeDTO> outcomes = new ArrayList<>(byRecordId.size());
+            List<BorrowRecord> toClose = new ArrayList<>();
+            List<ReturnOutcomeDTO> closing = new ArrayList<>();
+            for (ReturnDTO returnDTO : byRecordId.values()) {
+                BorrowRecord record = records.get(returnDTO.getRecordId());
+                ReturnOutcomeDTO outcome = new ReturnOutcomeDTO(returnDTO.getRecordId(), null, null, 0.0, ReturnOutcomeDTO.Status.NOT_FOUND, null);
+                outcomes.add(outcome);
+                if (record == null) {
+                    continue;
+                }
+                outcome.setBookId(record.getBookId());
+                outcome.setUserId(record.getUserId());
+                if (record.getReturnDate() != null) {
+                    outcome.setStatus(ReturnOutcomeDTO.Status.ALREADY_RETURNED);
+                    continue;
+                }
+                record.setReturnDate(returnDTO.getReturnDate());
+                record.setFine(calculateFine(record.getBorrowDate(), returnDTO.getReturnDate()));
+                toClose.add(record);
+                closing.add(outcome);
+            }
+            if (toClose.isEmpty()) {
+                return outcomes;
+            }
 
-        } catch (SQLException e) {
-            // 8. If any error occurs, roll back all changes.
-            if (connection != null) {
-                connection.rollback();
+            // 3. Close the loans with one batch; the "still on loan" condition catches concurrent returns.
+            BatchResult closed = borrowRecordDAO.tryReturnAll(toClose);
+            int[] closeCounts = closed.getUpdateCounts();
+            List<String> bookIds = new ArrayList<>(toClose.size());
+            List<ReturnOutcomeDTO> checkingIn = new ArrayList<>(toClose.size());
+            for (int i = 0; i < toClose.size(); i++) {
+                ReturnOutcomeDTO outcome = closing.get(i);
+                if (closed.isSuccess(i)) {
+                    outcome.setStatus(ReturnOutcomeDTO.Status.RETURNED);
+                    outcome.setFine(toClose.get(i).getFine());
+                    bookIds.add(outcome.getBookId());
+                    checkingIn.add(outcome);
+                } else if (closeCounts[i] == 0) {
+                    outcome.setStatus(ReturnOutcomeDTO.Status.ALREADY_RETURNED);
+                } else {
+                    outcome.setStatus(ReturnOutcomeDTO.Status.FAILED);
+                }
             }
-            throw e; // Re-throw the exception to be handled by the controller.
-        } finally {
-            // 9. Always ensure the connection is returned to its normal state.
-            if (connection != null) {
-                connection.setAutoCommit(true);
+
+            // 4. Make the books available again with one batch of conditional UPDATEs.
+            //    The copy is physically back either way, so a book that was not marked as borrowed is only reported.
+            BatchResult checkedIn = bookDAO.tryCheckinAll(bookIds);
+            for (int i = 0; i < checkingIn.size(); i++) {
+                if (!checkedIn.isSuccess(i)) {
+                    checkingIn.get(i).setMessage("Book " + bookIds.get(i) + " was not marked as borrowed.");
+                }
             }
+            return outcomes;
+        });
+    }
+
+    private void markAvailable(String bookId) {
+        BookSearchIndex index = BookSearchIndex.getIfBuilt();
+        if (index != null) {
+            index.setAvailability(bookId, true);
         }
     }
 
@@ -0,0 +1,71 @@
+package org.example.service.impl;
+
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * The prefix lookup shared by the in-memory search indexes.
+ * Each record has an int ordinal chosen by the owning index. Its tokens map to sorted int posting lists,
+ * and a sorted map from the normalized record ID gives ID-prefix lookups.
+ * Not thread-safe: the owning index guards it with its own lock.
+ */
+final class TokenPrefixIndex {
+
+    private final TreeMap<String, Integer> idPrefixes = new TreeMap<>();
+    private final TreeMap<String, IntPostings> terms = new TreeMap<>();
+
+    void putId(String id, int ordinal) {
+        idPrefixes.put(TextNormalizer.normalize(id), ordinal);
+    }
+
+    void removeId(String id) {
+        idPrefixes.remove(TextNormalizer.normalize(id));
+    }
+
+    void addTokens(int ordinal, List<String> tokens) {
+        for (String token : tokens) {
+            terms.computeIfAbsent(token, t -> new IntPostings()).add(ordinal);
+        }
+    }
+
+    void removeTokens(int ordinal, List<String> tokens) {
+        for (String token : tokens) {
+            IntPostings postings = terms.get(token);
+            if (postings != null) {
+                postings.remove(ordinal);
+                if (postings.isEmpty()) {
+                    terms.remove(token);
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the records matching every query token: each token must be the start of one of
+     * the record's tokens or of its ID.
+     * @param queryTokens The normalized query tokens.
+     * @param ordinalCount One more than the highest ordinal in use.
+     * @return A bitset of the matching ordinals, or null when there are no query tokens.
+     */
+    long[] match(List<String> queryTokens, int ordinalCount) {
+        int words = (ordinalCount + 63) >>> 6;
+        long[] matches = null;
+        for (String token : queryTokens) {
+            long[] tokenMatches = new long[words];
+            for (IntPostings postings : terms.subMap(token, true, token + Character.MAX_VALUE, false).values()) {
+                postings.addTo(tokenMatches);
+            }
+            for (int ordinal : idPrefixes.subMap(token, true, token + Character.MAX_VALUE, false).values()) {
+                tokenMatches[ordinal >>> 6] |= 1L << ordinal;
+            }
+            if (matches == null) {
+                matches = tokenMatches;
+            } else {
+                for (int i = 0; i < words; i++) {
+                    matches[i] &= tokenMatches[i];
+                }
+            }
+        }
+        return matches;
+    }
+}
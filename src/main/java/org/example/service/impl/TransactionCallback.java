@@ -0,0 +1,14 @@
+package org.example.service.impl;
+
+import java.sql.SQLException;
+
+/**
+ * A unit of work executed by the TransactionManager inside a database transaction.
+ * Every DAO call made from within the callback uses the transaction's connection.
+ *
+ * @param <T> The type of the result returned by the unit of work.
+ */
+@FunctionalInterface
+public interface TransactionCallback<T> {
+    T doInTransaction(TransactionStatus status) throws SQLException;
+}
@@ -0,0 +1,99 @@
+package org.example.service.impl;
+
+import org.example.db.DBConnection;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Runs units of work inside database transactions.
+ * A pooled connection is bound to the calling thread (platform or virtual) for the length of
+ * the transaction, and every DAO picks it up through DBConnection.getConnection(), so many
+ * transactions can run in parallel without sharing a connection or a global lock.
+ *
+ * If inTransaction is called while the thread is already inside a transaction, the work joins
+ * the outer transaction instead of starting a new one, and shares its rollback-only flag.
+ */
+public final class TransactionManager {
+
+    /** Marker meaning "keep the connection's default isolation level". */
+    public static final int DEFAULT_ISOLATION = -1;
+
+    private static volatile int defaultIsolation = Connection.TRANSACTION_READ_COMMITTED;
+    private static final ThreadLocal<TransactionStatus> currentStatus = new ThreadLocal<>();
+
+    private TransactionManager() {
+    }
+
+    /**
+     * Sets the isolation level used by inTransaction calls that do not specify one.
+     * @param isolation One of the java.sql.Connection TRANSACTION_* constants, or DEFAULT_ISOLATION.
+     */
+    public static void setDefaultIsolation(int isolation) {
+        defaultIsolation = isolation;
+    }
+
+    /**
+     * Executes the callback in a transaction using the default isolation level.
+     * @see #inTransaction(int, TransactionCallback)
+     */
+    public static <T> T inTransaction(TransactionCallback<T> callback) throws SQLException {
+        return inTransaction(defaultIsolation, callback);
+    }
+
+    /**
+     * Executes the callback in a transaction.
+     * The transaction is committed when the callback returns normally, and rolled back if it
+     * throws or calls setRollbackOnly() on its status.
+     *
+     * @param isolation One of the java.sql.Connection TRANSACTION_* constants, or DEFAULT_ISOLATION.
+     *                  Ignored when joining an outer transaction.
+     * @param callback The unit of work.
+     * @return The value returned by the callback.
+     * @throws SQLException if the callback or the commit/rollback fails.
+     */
+    public static <T> T inTransaction(int isolation, TransactionCallback<T> callback) throws SQLException {
+        DBConnection dbConnection = DBConnection.getInstance();
+
+        // Join the transaction that is already running on this thread.
+        TransactionStatus outer = currentStatus.get();
+        if (outer != null) {
+            return callback.doInTransaction(outer);
+        }
+        if (dbConnection.isConnectionBound()) {
+            throw new IllegalStateException("A connection is bound to this thread outside of the TransactionManager.");
+        }
+
+        Connection connection = dbConnection.bindConnection();
+        try {
+            if (isolation != DEFAULT_ISOLATION) {
+                connection.setTransactionIsolation(isolation);
+            }
+            connection.setAutoCommit(false);
+
+            TransactionStatus status = new TransactionStatus();
+            currentStatus.set(status);
+            T result = callback.doInTransaction(status);
+
+            if (status.isRollbackOnly()) {
+                connection.rollback();
+            } else {
+                dbConnection.runBeforeCommit();
+                connection.commit();
+            }
+            return result;
+
+        } catch (SQLException | RuntimeException e) {
+            try {
+                connection.rollback();
+            } catch (SQLException rollbackError) {
+                e.addSuppressed(rollbackError);
+            }
+            throw e;
+        } finally {
+            currentStatus.remove();
+            // The pool restores auto-commit and the isolation level before the connection is reused.
+            dbConnection.releaseBoundConnection();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package org.example.service.impl;
+
+/**
+ * Handed to a TransactionCallback so the unit of work can ask for a rollback
+ * without throwing, e.g. when a business rule fails half-way through.
+ */
+public class TransactionStatus {
+
+    private boolean rollbackOnly;
+
+    /**
+     * Marks the transaction so that it is rolled back instead of committed when the callback returns.
+     * When called inside a joined (nested) transaction, the outer transaction is rolled back.
+     */
+    public void setRollbackOnly() {
+        this.rollbackOnly = true;
+    }
+
+    public boolean isRollbackOnly() {
+        return rollbackOnly;
+    }
+}
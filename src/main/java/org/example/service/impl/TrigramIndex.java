@@ -0,0 +1,342 @@
+package org.example.service.impl;
+
+import org.example.entity.Book;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * An immutable trigram index over book titles and authors, for typo-tolerant search.
+ * Each word is padded ("  word ") and cut into three-character grams. A query is scored against
+ * a book by the number of grams they share, so "tolkein" still finds "Tolkien" and "harr pot"
+ * finds "Harry Potter".
+ * Storage is compact: the gram dictionary is an open-addressing long-to-int table, and the
+ * posting lists are delta-encoded varints in a single byte array (about 1-2 bytes per posting).
+ * BookSearchIndex builds it from a snapshot of its documents and handles later edits itself.
+ */
+final class TrigramIndex {
+
+    // Share of the query's grams a book must contain to be a candidate.
+    private static final double MIN_CONTAINMENT = 0.4;
+
+    private final int documentCount;
+    private final short[] gramsPerDoc;
+
+    // Gram dictionary: open addressing, keys[i] == 0 means empty. Kept at most half full.
+    private long[] keys = new long[4096];
+    private int[] gramIds = new int[4096];
+    private int mask = 4095;
+
+    // Posting list of gram g: bytes postings[offsets[g]] .. postings[offsets[g + 1]].
+    private final int[] offsets;
+    private final byte[] postings;
+
+    // Per-query scratch, reused under the index's monitor.
+    private final short[] shared;
+    private final int[] touched;
+
+    /**
+     * Builds the index in two passes over the documents: the first sizes every posting list,
+     * the second writes them, so no per-gram lists are allocated.
+     * @param docs Documents by ordinal; null entries are skipped.
+     * @param documentCount The number of ordinals to index.
+     */
+    TrigramIndex(Book[] docs, int documentCount) {
+        this.documentCount = documentCount;
+        this.gramsPerDoc = new short[documentCount];
+
+        // Pass 1: assign gram IDs and add up the encoded size of each posting list.
+        int[] sizes = new int[1024];
+        int[] lastDoc = new int[1024];
+        int gramCount = 0;
+        for (int ordinal = 0; ordinal < documentCount; ordinal++) {
+            if (docs[ordinal] == null) {
+                continue;
+            }
+            long[] grams = gramsOf(docs[ordinal]);
+            gramsPerDoc[ordinal] = (short) Math.min(Short.MAX_VALUE, grams.length);
+            for (long gram : grams) {
+                int id = idOf(gram);
+                if (id < 0) {
+                    id = insert(gram, gramCount++);
+                    if (id == sizes.length) {
+                        sizes = Arrays.copyOf(sizes, id * 2);
+                        lastDoc = Arrays.copyOf(lastDoc, id * 2);
+                    }
+                    lastDoc[id] = -1;
+                }
+                sizes[id] += varintSize(ordinal - lastDoc[id]);
+                lastDoc[id] = ordinal;
+            }
+        }
+
+        this.offsets = new int[gramCount + 1];
+        for (int id = 0; id < gramCount; id++) {
+            offsets[id + 1] = offsets[id] + sizes[id];
+        }
+        this.postings = new byte[offsets[gramCount]];
+
+        // Pass 2: write the delta-encoded postings.
+        int[] writeAt = Arrays.copyOf(offsets, gramCount);
+        Arrays.fill(lastDoc, 0, gramCount, -1);
+        for (int ordinal = 0; ordinal < documentCount; ordinal++) {
+            if (docs[ordinal] == null) {
+                continue;
+            }
+            for (long gram : gramsOf(docs[ordinal])) {
+                int id = idOf(gram);
+                writeAt[id] = writeVarint(postings, writeAt[id], ordinal - lastDoc[id]);
+                lastDoc[id] = ordinal;
+            }
+        }
+
+        this.shared = new short[documentCount];
+        this.touched = new int[documentCount];
+    }
+
+    int getDocumentCount() {
+        return documentCount;
+    }
+
+    /**
+     * Scores the indexed documents against a query and returns the best ones.
+     * @param queryGrams The distinct grams of the query, from gramsOf.
+     * @param docs The current documents by ordinal; null entries and excluded ordinals are skipped.
+     * @param excluded Ordinals whose indexed text is out of date; the caller scores those itself.
+     * @param limit The maximum number of results.
+     * @return Ranked matches, best first.
+     */
+    synchronized List<ScoredOrdinal> search(long[] queryGrams, Book[] docs, long[] excluded, int limit) {
+        int touchedCount = 0;
+        for (long gram : queryGrams) {
+            int id = idOf(gram);
+            if (id < 0) {
+                continue;
+            }
+            int ordinal = -1;
+            int position = offsets[id];
+            int end = offsets[id + 1];
+            while (position < end) {
+                int delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = postings[position++];
+                    delta |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                ordinal += delta;
+                if (shared[ordinal]++ == 0) {
+                    touched[touchedCount++] = ordinal;
+                }
+            }
+        }
+
+        TopK top = new TopK(limit);
+        for (int i = 0; i < touchedCount; i++) {
+            int ordinal = touched[i];
+            int count = shared[ordinal];
+            shared[ordinal] = 0;
+            boolean stale = excluded != null && (ordinal >>> 6) < excluded.length
+                    && (excluded[ordinal >>> 6] & (1L << ordinal)) != 0;
+            if (!stale && docs[ordinal] != null) {
+                top.offer(ordinal, count, queryGrams.length, gramsPerDoc[ordinal]);
+            }
+        }
+        return top.drain();
+    }
+
+    // --- Scoring ---
+
+    /**
+     * A matching document and its score: the share of query grams it contains, with the
+     * Dice coefficient as tie-breaker so shorter, closer titles rank first.
+     */
+    static final class ScoredOrdinal {
+        final int ordinal;
+        final double containment;
+        final double dice;
+
+        ScoredOrdinal(int ordinal, double containment, double dice) {
+            this.ordinal = ordinal;
+            this.containment = containment;
+            this.dice = dice;
+        }
+
+        boolean betterThan(ScoredOrdinal other) {
+            if (containment != other.containment) {
+                return containment > other.containment;
+            }
+            if (dice != other.dice) {
+                return dice > other.dice;
+            }
+            return ordinal < other.ordinal;
+        }
+    }
+
+    /**
+     * Keeps the best results seen so far in a min-heap of size limit.
+     */
+    static final class TopK {
+        private final int limit;
+        private final PriorityQueue<ScoredOrdinal> heap;
+
+        TopK(int limit) {
+            this.limit = limit;
+            this.heap = new PriorityQueue<>(Math.max(1, limit), (a, b) -> a.betterThan(b) ? 1 : (b.betterThan(a) ? -1 : 0));
+        }
+
+        void offer(int ordinal, int sharedGrams, int queryGrams, int docGrams) {
+            if (queryGrams == 0) {
+                return;
+            }
+            double containment = (double) sharedGrams / queryGrams;
+            if (containment < MIN_CONTAINMENT) {
+                return;
+            }
+            ScoredOrdinal candidate = new ScoredOrdinal(ordinal, containment, 2.0 * sharedGrams / (queryGrams + docGrams));
+            if (heap.size() < limit) {
+                heap.add(candidate);
+            } else if (limit > 0 && candidate.betterThan(heap.peek())) {
+                heap.poll();
+                heap.add(candidate);
+            }
+        }
+
+        void addAll(List<ScoredOrdinal> results) {
+            for (ScoredOrdinal result : results) {
+                if (heap.size() < limit) {
+                    heap.add(result);
+                } else if (limit > 0 && result.betterThan(heap.peek())) {
+                    heap.poll();
+                    heap.add(result);
+                }
+            }
+        }
+
+        List<ScoredOrdinal> drain() {
+            List<ScoredOrdinal> results = new ArrayList<>(heap);
+            results.sort((a, b) -> a.betterThan(b) ? -1 : (b.betterThan(a) ? 1 : 0));
+            return results;
+        }
+    }
+
+    // --- Gram Extraction ---
+
+    /**
+     * Returns the distinct grams of a book's title and author.
+     */
+    static long[] gramsOf(Book book) {
+        return gramsOf(book.getTitle() + " " + (book.getAuthor() == null ? "" : book.getAuthor()));
+    }
+
+    /**
+     * Returns the distinct grams of some text, each packed into a long (three 21-bit characters).
+     */
+    static long[] gramsOf(String text) {
+        List<String> tokens = TextNormalizer.tokenize(text);
+        long[] grams = new long[0];
+        int count = 0;
+        for (String token : tokens) {
+            String padded = "  " + token + " ";
+            if (count + padded.length() > grams.length) {
+                grams = Arrays.copyOf(grams, Math.max(16, (count + padded.length()) * 2));
+            }
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                grams[count++] = ((long) padded.charAt(i) << 42) | ((long) padded.charAt(i + 1) << 21) | padded.charAt(i + 2);
+            }
+        }
+        Arrays.sort(grams, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || grams[distinct - 1] != grams[i]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, distinct);
+    }
+
+    /**
+     * Counts the grams two gram sets have in common; both arrays must be sorted.
+     */
+    static int sharedGrams(long[] a, long[] b) {
+        int shared = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                shared++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return shared;
+    }
+
+    // --- Primitive Helpers ---
+
+    private int idOf(long gram) {
+        int slot = slotOf(gram);
+        while (keys[slot] != 0) {
+            if (keys[slot] == gram) {
+                return gramIds[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int insert(long gram, int id) {
+        if (id * 2 >= keys.length) {
+            long[] oldKeys = keys;
+            int[] oldIds = gramIds;
+            keys = new long[oldKeys.length * 2];
+            gramIds = new int[oldKeys.length * 2];
+            mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    insertSlot(oldKeys[i], oldIds[i]);
+                }
+            }
+        }
+        insertSlot(gram, id);
+        return id;
+    }
+
+    private void insertSlot(long gram, int id) {
+        int slot = slotOf(gram);
+        while (keys[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = gram;
+        gramIds[slot] = id;
+    }
+
+    private int slotOf(long gram) {
+        long h = gram * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private static int varintSize(int value) {
+        int size = 1;
+        while ((value >>>= 7) != 0) {
+            size++;
+        }
+        return size;
+    }
+
+    private static int writeVarint(byte[] target, int position, int value) {
+        while ((value & ~0x7F) != 0) {
+            target[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        target[position++] = (byte) value;
+        return position;
+    }
+}
@@ -0,0 +1,142 @@
+package org.example.service.impl;
+
+import org.example.dao.DataAccessException;
+import org.example.dao.UserDAO;
+import org.example.dao.impl.UserDAOImpl;
+import org.example.dto.UserSummaryDTO;
+import org.example.entity.User;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * An in-memory prefix index over members by user ID and name, for the borrow screen's type-ahead.
+ * It is laid out like BookSearchIndex: every user gets an int ordinal and a TokenPrefixIndex maps
+ * name tokens and user IDs to ordinals. UserServiceImpl keeps it current, so it is built only once.
+ */
+final class UserSearchIndex {
+
+    private static volatile UserSearchIndex instance;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Indexed by ordinal; null marks a deleted user. Only the fields shown in lookups are kept.
+    private UserSummaryDTO[] docs = new UserSummaryDTO[1024];
+    private int nextOrdinal;
+    private final Map<String, Integer> ordinalById = new HashMap<>();
+    private final TokenPrefixIndex prefixes = new TokenPrefixIndex();
+
+    private UserSearchIndex() {
+    }
+
+    /**
+     * Returns the shared index, building it from one streaming pass over the users' IDs and names on first use.
+     */
+    static UserSearchIndex getInstance() throws SQLException {
+        if (instance == null) {
+            synchronized (UserSearchIndex.class) {
+                if (instance == null) {
+                    UserSearchIndex index = new UserSearchIndex();
+                    UserDAO userDAO = new UserDAOImpl();
+                    try (Stream<UserSummaryDTO> users = userDAO.streamSummaries()) {
+                        users.forEach(index::put);
+                    } catch (DataAccessException e) {
+                        throw e.getCause();
+                    }
+                    instance = index;
+                }
+            }
+        }
+        return instance;
+    }
+
+    static UserSearchIndex getIfBuilt() {
+        return instance;
+    }
+
+    /**
+     * Drops the index so the next lookup rebuilds it, e.g. after a bulk import.
+     */
+    static void reset() {
+        instance = null;
+    }
+
+    /**
+     * Adds a user, or re-indexes it if a user with the same ID is already indexed.
+     * Only the ID and name are kept, so the index holds no contact details or credentials.
+     */
+    void put(User user) {
+        put(new UserSummaryDTO(user.getUserId(), user.getName()));
+    }
+
+    void put(UserSummaryDTO user) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinalById.get(user.getUserId());
+            if (ordinal != null) {
+                prefixes.removeTokens(ordinal, TextNormalizer.tokenize(docs[ordinal].getName()));
+            } else {
+                ordinal = nextOrdinal++;
+                if (ordinal == docs.length) {
+                    docs = Arrays.copyOf(docs, docs.length * 2);
+                }
+                ordinalById.put(user.getUserId(), ordinal);
+                prefixes.putId(user.getUserId(), ordinal);
+            }
+            docs[ordinal] = user;
+            prefixes.addTokens(ordinal, TextNormalizer.tokenize(user.getName()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(String userId) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinalById.remove(userId);
+            if (ordinal != null) {
+                prefixes.removeTokens(ordinal, TextNormalizer.tokenize(docs[ordinal].getName()));
+                prefixes.removeId(userId);
+                docs[ordinal] = null;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the first few users whose ID or name words start with the typed words.
+     * @param query The text typed so far; a blank query matches every user.
+     * @param limit The maximum number of results.
+     * @return Up to limit users in insertion order.
+     */
+    UserSummaryDTO[] complete(String query, int limit) {
+        List<String> tokens = TextNormalizer.tokenize(query);
+        lock.readLock().lock();
+        try {
+            long[] matches = prefixes.match(tokens, nextOrdinal);
+            UserSummaryDTO[] result = new UserSummaryDTO[Math.max(0, limit)];
+            int count = 0;
+            for (int ordinal = 0; ordinal < nextOrdinal && count < result.length; ordinal++) {
+                if (matches != null) {
+                    long word = matches[ordinal >>> 6] >>> ordinal;
+                    if (word == 0) {
+                        ordinal |= 63; // Skip the rest of an empty bitset word.
+                        continue;
+                    }
+                    ordinal += Long.numberOfTrailingZeros(word);
+                }
+                if (docs[ordinal] != null) {
+                    result[count++] = docs[ordinal];
+                }
+            }
+            return Arrays.copyOf(result, count);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
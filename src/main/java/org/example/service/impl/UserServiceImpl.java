@@ -1,18 +1,39 @@
 package org.example.service.impl;
 
+import org.example.cache.Cache;
+import org.example.cache.CacheRegistry;
+import org.example.dao.Page;
+import org.example.dao.PageKey;
 import org.example.dao.UserDAO;
+import org.example.dao.UserSort;
 import org.example.dao.impl.UserDAOImpl;
 import org.example.dto.UserDTO;
+import org.example.dto.UserSummaryDTO;
 import org.example.entity.User;
+import org.example.service.DataVersions;
 import org.example.service.UserService;
 
 import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
 
 public class UserServiceImpl implements UserService {
 
     private final UserDAO userDAO = new UserDAOImpl();
+    private final Cache<String, User> userCache;
+
+    public UserServiceImpl() {
+        this(CacheRegistry.getUserCache());
+    }
+
+    /**
+     * @param userCache The cache that getById reads through; every write through this service invalidates it.
+     */
+    public UserServiceImpl(Cache<String, User> userCache) {
+        this.userCache = userCache;
+    }
 
     @Override
     public String generateNextUserId() throws SQLException {
@@ -22,32 +43,84 @@ public class UserServiceImpl implements UserService {
     // --- All other methods remain unchanged ---
     @Override
     public boolean addUser(UserDTO userDTO) throws SQLException {
-        return userDAO.save(mapToEntity(userDTO));
+        User user = mapToEntity(userDTO);
+        try {
+            boolean saved = userDAO.save(user);
+            if (saved) {
+                updateSearchIndex(user);
+            }
+            return saved;
+        } finally {
+            userCache.invalidate(userDTO.getUserId()); // Also clears a cached "not found" for the new ID.
+            DataVersions.bump(DataVersions.Table.USERS);
+        }
     }
 
     @Override
     public boolean updateUser(UserDTO userDTO) throws SQLException {
-        return userDAO.update(mapToEntity(userDTO));
+        User user = mapToEntity(userDTO);
+        try {
+            boolean updated = userDAO.update(user);
+            if (updated) {
+                updateSearchIndex(user);
+            }
+            return updated;
+        } finally {
+            userCache.invalidate(userDTO.getUserId());
+            DataVersions.bump(DataVersions.Table.USERS);
+        }
     }
 
     @Override
     public boolean deleteUser(String userId) throws SQLException {
-        return userDAO.delete(userId);
+        try {
+            boolean deleted = userDAO.delete(userId);
+            UserSearchIndex index = UserSearchIndex.getIfBuilt();
+            if (deleted && index != null) {
+                index.remove(userId);
+            }
+            return deleted;
+        } finally {
+            userCache.invalidate(userId);
+            DataVersions.bump(DataVersions.Table.USERS);
+        }
     }
 
     @Override
     public UserDTO getUserById(String userId) throws SQLException {
-        User user = userDAO.findById(userId);
+        User user = userCache.get(userId, userDAO::findById);
         return (user != null) ? mapToDTO(user) : null;
     }
 
     @Override
     public List<UserDTO> getAllUsers() throws SQLException {
-        return userDAO.findAll().stream()
+        return userDAO.findAll();
+    }
+
+    @Override
+    public List<UserDTO> getUsersByIds(Collection<String> userIds) throws SQLException {
+        return userDAO.findByIds(userIds).stream()
                 .map(this::mapToDTO)
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public Page<UserDTO> getUsersPage(PageKey afterKey, int limit, UserSort sort) throws SQLException {
+        return userDAO.findPage(afterKey, limit, sort);
+    }
+
+    @Override
+    public List<UserSummaryDTO> suggestUsers(String query, int limit) throws SQLException {
+        return Arrays.asList(UserSearchIndex.getInstance().complete(query, limit));
+    }
+
+    private void updateSearchIndex(User user) {
+        UserSearchIndex index = UserSearchIndex.getIfBuilt();
+        if (index != null) {
+            index.put(user);
+        }
+    }
+
     private User mapToEntity(UserDTO dto) {
         return new User(
                 dto.getUserId(),